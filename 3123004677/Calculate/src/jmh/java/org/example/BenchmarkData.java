@@ -0,0 +1,67 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试共用的数据准备，所有数据都由固定种子生成，每次运行的输入相同
+ */
+final class BenchmarkData {
+    static final long SEED = 20240917L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 用固定种子生成的合法表达式
+     */
+    static List<Expression> expressions(int count, int range) {
+        return new ExpressionGenerator(range, new SplittableRandom(SEED)).generateExpressions(count);
+    }
+
+    /**
+     * 表达式对应的答案字符串
+     */
+    static List<String> answers(List<Expression> expressions) {
+        List<String> answers = new ArrayList<>(expressions.size());
+        for (Expression expr : expressions) {
+            answers.add(expr.calculateResult());
+        }
+        return answers;
+    }
+
+    /**
+     * 题目文件中的题目文本（不含题号）
+     */
+    static String[] exerciseLines(List<Expression> expressions) {
+        String[] lines = new String[expressions.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = expressions.get(i).toString();
+        }
+        return lines;
+    }
+
+    /**
+     * 不经过生成器约束的随机表达式树，约有三分之一违反约束，用于对比约束检查的两种方式
+     */
+    static Expression randomTree(SplittableRandom random, int range, int operatorCount) {
+        return new Expression(randomNode(random, range, operatorCount));
+    }
+
+    private static Expression.ExpressionNode randomNode(SplittableRandom random, int range, int operatorCount) {
+        if (operatorCount == 0) {
+            if (random.nextBoolean() && range > 1) {
+                int denominator = random.nextInt(range - 1) + 2;
+                int numerator = Math.max(1, random.nextInt(denominator));
+                return new Expression.NumberNode(new Fraction(numerator, denominator));
+            }
+            return new Expression.NumberNode(new Fraction(random.nextInt(range)));
+        }
+        int leftOperatorCount = random.nextInt(operatorCount);
+        Expression.ExpressionNode left = randomNode(random, range, leftOperatorCount);
+        Expression.ExpressionNode right = randomNode(random, range, operatorCount - 1 - leftOperatorCount);
+        Expression.OperatorType[] operators = Expression.OperatorType.values();
+        return new Expression.OperatorNode(operators[random.nextInt(operators.length)], left, right);
+    }
+}
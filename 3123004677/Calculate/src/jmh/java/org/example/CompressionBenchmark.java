@@ -0,0 +1,91 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压缩输出：不压缩、gzip和最快级别的分块gzip的端到端耗时和写出的字节数
+ * 每次调用流式生成count道题并写出题目和答案（压缩在后台线程中进行），或判定这样写出的文件
+ * 写出的字节数由辅助计数器fileBytes报告：每次迭代的值是一次调用写出的字节数，汇总表中是各次测量迭代之和
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+    @Param({"none", "gzip", "fast"})
+    String compression;
+
+    @Param({"100000"})
+    int count;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private List<Expression> expressions;
+    private List<String> answers;
+    private ParallelGrader grader;
+
+    /**
+     * 最近一次写出的题目和答案文件的总字节数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Output {
+        public long fileBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jmh-compression");
+        fileHandler = new FileHandler();
+        fileHandler.setFilePaths(directory.resolve("Exercises.txt").toString(),
+                directory.resolve("Answers.txt").toString(), directory.resolve("Grade.txt").toString());
+        fileHandler.setCompression(Compression.forName(compression));
+        expressions = BenchmarkData.expressions(count, 100);
+        answers = BenchmarkData.answers(expressions);
+        fileHandler.writeExercisesAndAnswers(expressions, answers);
+        grader = new ParallelGrader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private long fileBytes() throws IOException {
+        return Files.size(Paths.get(fileHandler.getExercisesFile())) + Files.size(Paths.get(fileHandler.getAnswersFile()));
+    }
+
+    @Benchmark
+    public GenerationResult generateStreaming(Output output) throws IOException {
+        GenerationResult result = PerformanceOptimizer.generateStreaming(count, 100, 4, fileHandler, BenchmarkData.SEED);
+        output.fileBytes = fileBytes();
+        return result;
+    }
+
+    @Benchmark
+    public void writeExercisesAndAnswers(Output output) throws IOException {
+        fileHandler.writeExercisesAndAnswers(expressions, answers);
+        output.fileBytes = fileBytes();
+    }
+
+    @Benchmark
+    public ParallelGrader.Result grade() throws IOException {
+        return grader.grade(fileHandler.getExercisesFile(), fileHandler.getAnswersFile());
+    }
+}
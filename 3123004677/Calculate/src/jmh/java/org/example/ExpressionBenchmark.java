@@ -0,0 +1,145 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表达式求值（树遍历和编译后的扁平数组）、规范形式、渲染和约束检查，
+ * 每次调用处理一批表达式，结果按表达式个数归一
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionBenchmark {
+    private static final int COUNT = 1000;
+
+    @Param({"10", "100"})
+    int range;
+
+    private final ExpressionRenderer renderer = new ExpressionRenderer();
+    private Expression[] expressions;
+    private CompiledExpressions compiled;
+    private final long[] results = new long[COUNT];
+    /** 未经生成器约束的随机表达式，用于对比异常与状态标记 */
+    private Expression[] unchecked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Expression> generated = BenchmarkData.expressions(COUNT, range);
+        expressions = generated.toArray(new Expression[0]);
+        compiled = CompiledExpressions.compile(generated);
+        SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        unchecked = new Expression[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            unchecked[i] = BenchmarkData.randomTree(random, range, random.nextInt(3) + 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void evaluate(Blackhole blackhole) {
+        for (Expression expr : expressions) {
+            blackhole.consume(expr.getRoot().evaluate());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void evaluatePacked(Blackhole blackhole) {
+        for (Expression expr : expressions) {
+            blackhole.consume(expr.getRoot().evaluatePacked());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long[] evaluateCompiled() {
+        compiled.evaluateAll(results);
+        return results;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void calculateResult(Blackhole blackhole) {
+        for (Expression expr : expressions) {
+            blackhole.consume(expr.calculateResult());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void canonicalForm(Blackhole blackhole) {
+        for (Expression expr : expressions) {
+            blackhole.consume(expr.getCanonicalForm());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void fingerprint(Blackhole blackhole) {
+        for (Expression expr : expressions) {
+            blackhole.consume(expr.getFingerprint());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void render(Blackhole blackhole) {
+        for (Expression expr : expressions) {
+            blackhole.consume(expr.toString());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int renderBytes() {
+        int length = 0;
+        for (Expression expr : expressions) {
+            renderer.render(expr);
+            length += renderer.getLength();
+        }
+        return length;
+    }
+
+    /**
+     * 约束检查：违反约束时抛出并捕获异常
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int validateByException() {
+        int valid = 0;
+        for (Expression expr : unchecked) {
+            try {
+                if (FractionMath.isOverflow(expr.getRoot().evaluatePacked())) {
+                    expr.getRoot().evaluate();
+                }
+                valid++;
+            } catch (ArithmeticException e) {
+                // 无效表达式
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * 约束检查：返回{@link EvaluationStatus}
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int validateByStatus() {
+        int valid = 0;
+        for (Expression expr : unchecked) {
+            if (expr.validate() == EvaluationStatus.OK) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+}
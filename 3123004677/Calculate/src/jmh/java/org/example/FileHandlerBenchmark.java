@@ -0,0 +1,83 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件读写：写出题目和答案、按行读取、映射读取和并行判定，每次调用处理整个文件
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileHandlerBenchmark {
+    @Param({"10000", "100000"})
+    int count;
+
+    private Path directory;
+    private String exercisesFile;
+    private String answersFile;
+    private FileHandler fileHandler;
+    private List<Expression> expressions;
+    private List<String> answers;
+    private ParallelGrader grader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jmh-io");
+        exercisesFile = directory.resolve("Exercises.txt").toString();
+        answersFile = directory.resolve("Answers.txt").toString();
+        fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile, answersFile, directory.resolve("Grade.txt").toString());
+        expressions = BenchmarkData.expressions(count, 100);
+        answers = BenchmarkData.answers(expressions);
+        fileHandler.writeExercisesAndAnswers(expressions, answers);
+        grader = new ParallelGrader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void writeExercisesAndAnswers() throws IOException {
+        fileHandler.writeExercisesAndAnswers(expressions, answers);
+    }
+
+    @Benchmark
+    public List<String> readExercises() throws IOException {
+        return fileHandler.readExercises(exercisesFile);
+    }
+
+    @Benchmark
+    public List<String> readAnswers() throws IOException {
+        return fileHandler.readAnswers(answersFile);
+    }
+
+    @Benchmark
+    public int visitExercises() throws IOException {
+        int[] length = new int[1];
+        fileHandler.visitExercises(exercisesFile, (index, buffer, offset, size) -> length[0] += size);
+        return length[0];
+    }
+
+    @Benchmark
+    public ParallelGrader.Result grade() throws IOException {
+        return grader.grade(exercisesFile, answersFile);
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分数运算：Fraction对象运算与FractionMath打包运算，以及新建操作数节点与从共享表中取节点
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FractionBenchmark {
+    private static final int MASK = 1023;
+
+    @Param({"10", "100"})
+    int range;
+
+    private Fraction[] fractions;
+    private long[] packed;
+    /** 范围内的真分数，用于创建操作数节点 */
+    private int[] numerators;
+    private int[] denominators;
+    private OperandTable table;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        fractions = new Fraction[MASK + 1];
+        packed = new long[MASK + 1];
+        for (int i = 0; i <= MASK; i++) {
+            int denominator = random.nextInt(range - 1) + 2;
+            // 分子从1开始，除法不会除以0
+            fractions[i] = new Fraction(random.nextInt(denominator * 2) + 1, denominator);
+            packed[i] = fractions[i].toPacked();
+        }
+        table = OperandTable.forRange(range);
+        numerators = new int[MASK + 1];
+        denominators = new int[MASK + 1];
+        for (int i = 0; i <= MASK; i++) {
+            denominators[i] = random.nextInt(range - 1) + 2;
+            numerators[i] = random.nextInt(denominators[i] - 1) + 1;
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & MASK;
+    }
+
+    @Benchmark
+    public Fraction add() {
+        int i = next();
+        return fractions[i].add(fractions[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public Fraction subtract() {
+        int i = next();
+        return fractions[i].subtract(fractions[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public Fraction multiply() {
+        int i = next();
+        return fractions[i].multiply(fractions[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public Fraction divide() {
+        int i = next();
+        return fractions[i].divide(fractions[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public long packedAdd() {
+        int i = next();
+        return FractionMath.add(packed[i], packed[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public long packedMultiply() {
+        int i = next();
+        return FractionMath.multiply(packed[i], packed[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public long packedDivide() {
+        int i = next();
+        return FractionMath.divide(packed[i], packed[(i + 1) & MASK]);
+    }
+
+    @Benchmark
+    public Expression.NumberNode newOperandNode() {
+        int i = next();
+        return new Expression.NumberNode(new Fraction(numerators[i], denominators[i]));
+    }
+
+    @Benchmark
+    public Expression.NumberNode sharedOperandNode() {
+        int i = next();
+        return table.fraction(numerators[i], denominators[i]);
+    }
+}
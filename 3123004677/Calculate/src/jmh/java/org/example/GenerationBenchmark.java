@@ -0,0 +1,65 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 题目生成：单线程生成器（有无单运算结果缓存）和并行生成，每次调用生成count道题
+ * 范围5走枚举抽样，范围10和100走随机构造；并行生成按线程数1到16测量扩展性，
+ * 分别测可复现的固定顺序合并和各线程在无锁指纹集合上并发查重
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark {
+    @Param({"5", "10", "100"})
+    int range;
+
+    @Param({"1000", "10000"})
+    int count;
+
+    private long seed;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        seed = BenchmarkData.SEED;
+    }
+
+    @Benchmark
+    public List<Expression> generateExpressions() {
+        // 每次调用换一个种子，避免多次测量同一组题目
+        return new ExpressionGenerator(range, new SplittableRandom(seed++)).generateExpressions(count);
+    }
+
+    @Benchmark
+    public List<Expression> generateWithSubtreeCache() {
+        ExpressionGenerator generator = new ExpressionGenerator(range, new SplittableRandom(seed++));
+        generator.setSubtreeCache(true);
+        return generator.generateExpressions(count);
+    }
+
+    @Benchmark
+    public List<Expression> generateInParallel(Threads threads) {
+        return PerformanceOptimizer.generateExpressionsInParallel(count, range, threads.threads, seed++);
+    }
+
+    @Benchmark
+    public List<Expression> generateConcurrent(Threads threads) {
+        return PerformanceOptimizer.generateExpressionsInParallel(count, range, threads.threads);
+    }
+
+    /**
+     * 并行生成的线程数，只用于并行生成的基准
+     */
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"1", "2", "4", "8", "16"})
+        int threads;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 判定模式：不同线程数下解析题目判定与读取答案表缓存判定的耗时，每次调用判定整个文件
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GradingBenchmark {
+    @Param({"1", "2", "4"})
+    int threads;
+
+    @Param({"100000"})
+    int count;
+
+    private Path directory;
+    private String exercisesFile;
+    private String answersFile;
+    private ParallelGrader grader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jmh-grading");
+        exercisesFile = directory.resolve("Exercises.txt").toString();
+        answersFile = directory.resolve("Answers.txt").toString();
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile, answersFile, directory.resolve("Grade.txt").toString());
+        fileHandler.setWriteAnswerKey(true);
+        PerformanceOptimizer.generateStreaming(count, 100, 4, fileHandler, BenchmarkData.SEED);
+        grader = new ParallelGrader(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * 解析并求值所有题目后判定
+     */
+    @Benchmark
+    public ParallelGrader.Result gradeParsing() throws IOException {
+        return grader.grade(grader.computeKey(exercisesFile), answersFile);
+    }
+
+    /**
+     * 直接映射生成时写出的答案表缓存后判定
+     */
+    @Benchmark
+    public ParallelGrader.Result gradeWithAnswerKey() throws IOException {
+        return grader.grade(exercisesFile, answersFile);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 题目解析和答案规范化，每次调用处理一批题目，结果按题目个数归一
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsingBenchmark {
+    private static final int COUNT = 1000;
+
+    @Param({"10", "100"})
+    int range;
+
+    private final ExpressionParser parser = new ExpressionParser();
+    private final GradeChecker checker = new GradeChecker();
+    private String[] exercises;
+    private String[] answers;
+    /** 所有题目连续存放的UTF-8字节，模拟映射读取时的字节切片 */
+    private ByteBuffer exerciseBytes;
+    private int[] offsets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Expression> expressions = BenchmarkData.expressions(COUNT, range);
+        exercises = BenchmarkData.exerciseLines(expressions);
+        answers = BenchmarkData.answers(expressions).toArray(new String[0]);
+
+        offsets = new int[COUNT + 1];
+        byte[][] encoded = new byte[COUNT][];
+        for (int i = 0; i < COUNT; i++) {
+            encoded[i] = exercises[i].getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+        exerciseBytes = ByteBuffer.allocateDirect(offsets[COUNT]);
+        for (byte[] bytes : encoded) {
+            exerciseBytes.put(bytes);
+        }
+        exerciseBytes.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void parse(Blackhole blackhole) {
+        for (String exercise : exercises) {
+            blackhole.consume(parser.parse(exercise));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void parseBytes(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(parser.parse(exerciseBytes, offsets[i], offsets[i + 1] - offsets[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void compile(Blackhole blackhole) {
+        CompiledExpressions compiled = new CompiledExpressions(COUNT);
+        for (String exercise : exercises) {
+            parser.parseInto(exercise, 0, exercise.length(), compiled);
+        }
+        blackhole.consume(compiled);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void normalizeAnswer(Blackhole blackhole) {
+        for (String answer : answers) {
+            blackhole.consume(checker.normalizeAnswer(answer));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void parseAnswer(Blackhole blackhole) {
+        for (String answer : answers) {
+            blackhole.consume(GradeChecker.parseAnswer(answer));
+        }
+    }
+}
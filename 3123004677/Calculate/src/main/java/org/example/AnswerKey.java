@@ -0,0 +1,244 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 标准答案表
+ * 每道题的正确答案以FractionMath打包形式保存在long数组中；
+ * 精确结果超出int范围的题目标记为{@link GradeChecker#UNPARSED}，答案字符串另外保存
+ * 答案表可以保存为题目文件旁的缓存文件，以题目文件内容的SHA-256为键，题目不变时直接读取而不必重新解析
+ *
+ * 缓存文件格式（大端序）：
+ * 头部：魔数(4) 版本(4) SHA-256(32) 题目数量(4)
+ * 记录：每题8字节，分子(4) 分母(4)，恰好是FractionMath打包形式的long；分母为0表示答案在尾部
+ * 尾部：精确答案数量(4)，每项为 题号(4) 字节数(4) UTF-8字节
+ * 读取时整个文件被内存映射，记录按需直接从映射中读取，不复制到堆中
+ */
+public class AnswerKey {
+    /** 缓存文件的魔数和版本 */
+    private static final int MAGIC = 0x414B4559; // "AKEY"
+    private static final int VERSION = 2;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_SIZE = 4 + 4 + HASH_LENGTH + 4;
+    private static final int RECORD_SIZE = 8;
+    /** 缓存文件的扩展名 */
+    public static final String SIDECAR_SUFFIX = ".key";
+
+    private final long[] answers;          // 在内存中计算的答案
+    private final ByteBuffer records;      // 或者映射的缓存文件
+    private final int size;
+    private final Map<Integer, String> exactAnswers;
+
+    AnswerKey(long[] answers, Map<Integer, String> exactAnswers) {
+        this.answers = answers;
+        this.records = null;
+        this.size = answers.length;
+        this.exactAnswers = exactAnswers;
+    }
+
+    private AnswerKey(ByteBuffer records, int size, Map<Integer, String> exactAnswers) {
+        this.answers = null;
+        this.records = records;
+        this.size = size;
+        this.exactAnswers = exactAnswers;
+    }
+
+    /**
+     * 逐条追加答案构造答案表（生成题目时使用）
+     */
+    public static class Builder {
+        private long[] answers = new long[1024];
+        private final Map<Integer, String> exactAnswers = new HashMap<>();
+        private int size;
+
+        /**
+         * 追加一道题的答案字符串
+         */
+        public void add(CharSequence answer) {
+            if (size == answers.length) {
+                answers = Arrays.copyOf(answers, size * 2);
+            }
+            long value = GradeChecker.parseAnswer(answer);
+            if (value == GradeChecker.UNPARSED) {
+                exactAnswers.put(size, answer.toString());
+            }
+            answers[size++] = value;
+        }
+
+        public AnswerKey build() {
+            return new AnswerKey(Arrays.copyOf(answers, size), exactAnswers);
+        }
+    }
+
+    /**
+     * 题目数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 是否直接读取自映射的缓存文件
+     */
+    public boolean isMapped() {
+        return records != null;
+    }
+
+    /**
+     * 第index题（从0开始）的答案，超出int范围时为{@link GradeChecker#UNPARSED}
+     */
+    public long get(int index) {
+        if (records != null) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("题号超出范围: " + index);
+            }
+            // 文件不超过2GB，合法题号的偏移量不会超出int
+            return records.getLong(HEADER_SIZE + index * RECORD_SIZE);
+        }
+        return answers[index];
+    }
+
+    /**
+     * 第index题的答案字符串
+     */
+    public String getAnswer(int index) {
+        long value = get(index);
+        return value != GradeChecker.UNPARSED ? FractionMath.toString(value) : exactAnswers.get(index);
+    }
+
+    /**
+     * 判断用户答案是否正确
+     * @param userAnswer 由{@link GradeChecker#parseAnswer}解析的用户答案
+     * @param userText 用户答案无法解析时的原始文本
+     */
+    public boolean isCorrect(int index, long userAnswer, String userText, GradeChecker checker) {
+        long correct = get(index);
+        if (correct != GradeChecker.UNPARSED && userAnswer != GradeChecker.UNPARSED) {
+            return correct == userAnswer;
+        }
+        if (correct == GradeChecker.UNPARSED && userAnswer == GradeChecker.UNPARSED) {
+            return checker.isCorrect(exactAnswers.get(index), userText);
+        }
+        return false;
+    }
+
+    /**
+     * 题目文件对应的缓存文件路径
+     */
+    public static String sidecarPath(String exerciseFile) {
+        return exerciseFile + SIDECAR_SUFFIX;
+    }
+
+    /**
+     * 计算文件内容的SHA-256
+     */
+    public static byte[] hash(String filePath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("缺少SHA-256算法", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 映射缓存文件
+     * @return 缓存不存在、已损坏或与hash不匹配时返回null
+     */
+    public static AnswerKey read(String sidecarFile, byte[] hash) {
+        if (!new File(sidecarFile).isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(sidecarFile), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                // 超过2GB的答案表无法整体映射，重新计算
+                return null;
+            }
+            // 映射在通道关闭后仍然有效
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return null;
+            }
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                if (buffer.get(8 + i) != hash[i]) {
+                    return null;
+                }
+            }
+            int count = buffer.getInt(8 + HASH_LENGTH);
+            long trailer = HEADER_SIZE + (long) count * RECORD_SIZE;
+            if (count < 0 || trailer + 4 > fileSize) {
+                return null;
+            }
+            buffer.position((int) trailer);
+            int exactCount = buffer.getInt();
+            Map<Integer, String> exactAnswers = new HashMap<>();
+            for (int i = 0; i < exactCount; i++) {
+                int index = buffer.getInt();
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                exactAnswers.put(index, new String(bytes, StandardCharsets.UTF_8));
+            }
+            return new AnswerKey(buffer, count, exactAnswers);
+        } catch (IOException | RuntimeException e) {
+            // 缓存损坏时重新计算
+            return null;
+        }
+    }
+
+    /**
+     * 读取题目文件对应的缓存文件，哈希不一致时返回null
+     */
+    public static AnswerKey readFor(String exerciseFile) throws IOException {
+        String sidecar = sidecarPath(exerciseFile);
+        if (!new File(sidecar).isFile()) {
+            return null;
+        }
+        return read(sidecar, hash(exerciseFile));
+    }
+
+    /**
+     * 写入缓存文件
+     */
+    public void write(String sidecarFile, byte[] hash) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sidecarFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(hash);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(get(i));
+            }
+            out.writeInt(exactAnswers.size());
+            for (Map.Entry<Integer, String> entry : exactAnswers.entrySet()) {
+                byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(entry.getKey());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+}
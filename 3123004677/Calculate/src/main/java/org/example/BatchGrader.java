@@ -0,0 +1,195 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 批量答案判定
+ * 同一份题目文件只解析、求值一次得到{@link AnswerKey}，并缓存到题目文件旁的缓存文件中；
+ * 目录中的所有答案文件在同一个fork-join线程池中并行判定，每个学生输出一个Grade文件，最后输出汇总
+ */
+public class BatchGrader {
+    /** 每个学生的评分文件名前缀 */
+    public static final String GRADE_PREFIX = "Grade_";
+    /** 汇总文件名 */
+    public static final String SUMMARY_FILE = "Summary.txt";
+
+    private final int parallelism;
+    private final ParallelGrader grader;
+    private boolean keyFromCache;
+    private Compression compression = Compression.NONE;
+
+    public BatchGrader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchGrader(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.grader = new ParallelGrader(this.parallelism);
+    }
+
+    /**
+     * 单个学生的判定结果
+     */
+    public static class StudentResult {
+        private final String name;
+        private final int correctCount;
+        private final int wrongCount;
+
+        StudentResult(String name, int correctCount, int wrongCount) {
+            this.name = name;
+            this.correctCount = correctCount;
+            this.wrongCount = wrongCount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCorrectCount() {
+            return correctCount;
+        }
+
+        public int getWrongCount() {
+            return wrongCount;
+        }
+    }
+
+    /**
+     * 获取题目文件的标准答案表：二进制题目文件直接读出其中的答案；
+     * 缓存文件的哈希与题目文件一致时直接读取，否则重新计算并写入缓存
+     */
+    public AnswerKey loadKey(String exerciseFile) throws IOException {
+        if (BinaryExerciseFile.isBinary(exerciseFile)) {
+            keyFromCache = false;
+            return BinaryExerciseFile.open(exerciseFile).toAnswerKey();
+        }
+        byte[] hash = AnswerKey.hash(exerciseFile);
+        String sidecar = AnswerKey.sidecarPath(exerciseFile);
+        AnswerKey key = AnswerKey.read(sidecar, hash);
+        keyFromCache = key != null;
+        if (key == null) {
+            key = grader.computeKey(exerciseFile);
+            try {
+                key.write(sidecar, hash);
+            } catch (IOException e) {
+                // 目录不可写时只是不缓存，不影响判定
+                new File(sidecar).delete();
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 最近一次{@link #loadKey}是否命中缓存
+     */
+    public boolean isKeyFromCache() {
+        return keyFromCache;
+    }
+
+    /**
+     * 列出目录中的答案文件（按文件名排序，忽略隐藏文件、答案表缓存和行索引）
+     */
+    public static List<String> listAnswerFiles(String answerDir) throws IOException {
+        File[] files = new File(answerDir).listFiles();
+        if (files == null) {
+            throw new IOException("无法读取答案目录: " + answerDir);
+        }
+        Arrays.sort(files);
+        List<String> answerFiles = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isFile() && !name.startsWith(".") && !name.endsWith(AnswerKey.SIDECAR_SUFFIX)
+                    && !name.endsWith(LineIndex.SUFFIX)) {
+                answerFiles.add(file.getPath());
+            }
+        }
+        return answerFiles;
+    }
+
+    /**
+     * 判定目录中的所有答案文件，评分文件和汇总写入outputDir
+     */
+    public List<StudentResult> gradeDirectory(String exerciseFile, String answerDir, String outputDir) throws IOException {
+        return gradeAll(loadKey(exerciseFile), listAnswerFiles(answerDir), outputDir);
+    }
+
+    /**
+     * 用同一份标准答案表并行判定多份答案
+     * @return 按输入顺序排列的判定结果
+     */
+    public List<StudentResult> gradeAll(AnswerKey key, List<String> answerFiles, String outputDir) throws IOException {
+        File directory = new File(outputDir);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建输出目录: " + outputDir);
+        }
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setCompression(compression);
+        StudentResult[] results = new StudentResult[answerFiles.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(answerFiles.size());
+        for (int i = 0; i < answerFiles.size(); i++) {
+            int student = i;
+            String answerFile = answerFiles.get(i);
+            tasks.add(ParallelGrader.task(() -> {
+                String name = new File(answerFile).getName();
+                ParallelGrader.Result result = grader.grade(pool(), key, answerFile);
+                fileHandler.writeGrade(new File(directory, GRADE_PREFIX + name).getPath(),
+                        result.getCorrectIndices(), result.getWrongIndices());
+                results[student] = new StudentResult(name,
+                        result.getCorrectIndices().length, result.getWrongIndices().length);
+            }));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ParallelGrader.invokeAll(pool, tasks);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        List<StudentResult> studentResults = Arrays.asList(results);
+        writeSummary(new File(directory, SUMMARY_FILE).getPath(), studentResults);
+        return studentResults;
+    }
+
+    /**
+     * 设置每个学生的评分文件的压缩方式（压缩时文件名加上.gz），汇总文件不压缩
+     */
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 任务中的线程池：学生任务已经运行在线程池中，内部的分块任务直接分叉执行
+     */
+    private static ForkJoinPool pool() {
+        return ForkJoinTask.getPool();
+    }
+
+    /**
+     * 写入汇总：学生数量以及每个学生的正确和错误题数
+     */
+    private static void writeSummary(String filePath, List<StudentResult> results) throws IOException {
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(filePath)) {
+            writer.write("Students: ");
+            writer.writeInt(results.size());
+            writer.newLine();
+            for (StudentResult result : results) {
+                writer.write(result.getName());
+                writer.write(": Correct: ");
+                writer.writeInt(result.getCorrectCount());
+                writer.write(", Wrong: ");
+                writer.writeInt(result.getWrongCount());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二进制题目文件
+ * 题目以后缀形式和变长整数编码的操作数保存，
+ * 每道题的答案紧跟在题目之后，读取时不需要解析文本，也不需要重新求值。
+ * 题目按固定数量分块，文件末尾的块索引记录每块的起始位置，按题号读取时最多跳过一块内的记录
+ *
+ * 文件格式（大端序）：
+ * 头部：魔数(4) 版本(4) 题目数量(4) 每块题目数(4) 块索引位置(8)
+ * 记录：形状(1) 运算符(1) 按后缀顺序的操作数 答案
+ * 块索引：块数(4)，每块的起始位置(8)
+ *
+ * 数值编码：首个变长整数h的低2位是类型，0为自然数h>>>2；1为分数，分子h>>>2，后跟变长整数分母；
+ * 2为文本（超出int范围的精确答案），h>>>2是UTF-8字节数，后跟这些字节
+ * 读取时整个文件被内存映射，因此文件不能超过2GB，写入时超过即失败
+ */
+public final class BinaryExerciseFile {
+    /** 二进制题目文件的扩展名 */
+    public static final String EXTENSION = ".bin";
+    /** 默认每块的题目数 */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static final int MAGIC = 0x45584249; // "EXBI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+    private static final int MAX_OPERATORS = 3;
+    /** 能整体映射的最大文件大小 */
+    static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private static final int NATURAL = 0;
+    private static final int FRACTION = 1;
+    private static final int TEXT = 2;
+
+    private static final Expression.OperatorType[] OPERATORS = Expression.OperatorType.values();
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int blockSize;
+    private final long indexOffset;
+
+    private BinaryExerciseFile(ByteBuffer buffer, int count, int blockSize, long indexOffset) {
+        this.buffer = buffer;
+        this.count = count;
+        this.blockSize = blockSize;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * 文本题目文件对应的二进制文件路径：把.txt换成.bin
+     */
+    public static String pathFor(String exercisesFile) {
+        String base = exercisesFile.endsWith(".txt")
+                ? exercisesFile.substring(0, exercisesFile.length() - 4) : exercisesFile;
+        return base + EXTENSION;
+    }
+
+    /**
+     * 根据文件开头的魔数判断是否为二进制题目文件
+     */
+    public static boolean isBinary(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) != -1) {
+                // 读满4个字节
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * 映射二进制题目文件
+     * @throws IOException 文件不是二进制题目文件、已损坏或超过2GB时
+     */
+    public static BinaryExerciseFile open(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > MAX_FILE_SIZE) {
+                throw new IOException("二进制题目文件超过2GB: " + filePath);
+            }
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("不是二进制题目文件: " + filePath);
+            }
+            // 映射在通道关闭后仍然有效
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("不是二进制题目文件: " + filePath);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("不支持的二进制题目文件版本: " + buffer.getInt(4));
+            }
+            int count = buffer.getInt(8);
+            int blockSize = buffer.getInt(12);
+            long indexOffset = buffer.getLong(16);
+            long blocks = blockSize > 0 ? ((long) count + blockSize - 1) / blockSize : -1;
+            if (count < 0 || blocks < 0 || indexOffset < HEADER_SIZE
+                    || indexOffset + 4 + blocks * 8 > fileSize || buffer.getInt((int) indexOffset) != blocks) {
+                throw new IOException("二进制题目文件已损坏: " + filePath);
+            }
+            return new BinaryExerciseFile(buffer, count, blockSize, indexOffset);
+        }
+    }
+
+    /**
+     * 题目数量
+     */
+    public int size() {
+        return count;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 定位到第index题（从0开始）的记录：先查块索引，再跳过块内之前的记录
+     */
+    private ByteBuffer seek(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("题号超出范围: " + index);
+        }
+        ByteBuffer view = buffer.duplicate();
+        int block = index / blockSize;
+        view.position((int) buffer.getLong((int) indexOffset + 4 + block * 8));
+        for (int i = block * blockSize; i < index; i++) {
+            skipRecord(view);
+        }
+        return view;
+    }
+
+    /**
+     * 第index题（从0开始）的表达式
+     */
+    public Expression getExpression(int index) {
+        return readExpression(seek(index));
+    }
+
+    /**
+     * 第index题的答案字符串
+     */
+    public String getAnswer(int index) {
+        ByteBuffer view = seek(index);
+        skipExpression(view);
+        return readAnswer(view);
+    }
+
+    /**
+     * 第index题的答案（FractionMath打包形式），超出int范围时为{@link GradeChecker#UNPARSED}
+     */
+    public long getAnswerValue(int index) {
+        ByteBuffer view = seek(index);
+        skipExpression(view);
+        long header = readVarLong(view);
+        return readValue(view, header);
+    }
+
+    /**
+     * 顺序读出所有答案，得到标准答案表（判定时不需要解析和求值题目）
+     */
+    public AnswerKey toAnswerKey() {
+        long[] answers = new long[count];
+        Map<Integer, String> exactAnswers = new HashMap<>();
+        ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            skipExpression(view);
+            long header = readVarLong(view);
+            if ((header & 3) == TEXT) {
+                answers[i] = GradeChecker.UNPARSED;
+                exactAnswers.put(i, readText(view, header));
+            } else {
+                answers[i] = readValue(view, header);
+            }
+        }
+        return new AnswerKey(answers, exactAnswers);
+    }
+
+    /**
+     * 按顺序把所有题目和答案写到另一个输出（例如转换为文本格式）
+     */
+    public void copyTo(ExerciseOutput output) throws IOException {
+        ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            Expression expression = readExpression(view);
+            output.write(expression, readAnswer(view));
+        }
+    }
+
+    private static Expression readExpression(ByteBuffer view) {
+        int shape = view.get() & 0xFF;
+        int operators = view.get() & 0xFF;
+        int tokens = 1 + 2 * Integer.bitCount(shape);
+        Expression.ExpressionNode[] stack = new Expression.ExpressionNode[MAX_OPERATORS + 1];
+        int sp = 0;
+        int operator = 0;
+        for (int token = 0; token < tokens; token++) {
+            if (token > 0 && (shape & 1 << (token - 1)) != 0) {
+                Expression.OperatorType type = OPERATORS[operators >>> (2 * operator++) & 3];
+                Expression.ExpressionNode right = stack[--sp];
+                stack[sp - 1] = new Expression.OperatorNode(type, stack[sp - 1], right);
+            } else {
+                long value = readValue(view, readVarLong(view));
+                stack[sp++] = new Expression.NumberNode(Fraction.fromPacked(value));
+            }
+        }
+        return new Expression(stack[0]);
+    }
+
+    private static String readAnswer(ByteBuffer view) {
+        long header = readVarLong(view);
+        if ((header & 3) == TEXT) {
+            return readText(view, header);
+        }
+        return FractionMath.toString(readValue(view, header));
+    }
+
+    /**
+     * 读取自然数或分数（header已经读出），文本类型时跳过内容并返回{@link GradeChecker#UNPARSED}
+     */
+    private static long readValue(ByteBuffer view, long header) {
+        switch ((int) (header & 3)) {
+            case NATURAL:
+                return FractionMath.valueOf((int) (header >>> 2));
+            case FRACTION:
+                return FractionMath.pack((int) (header >>> 2), (int) readVarLong(view));
+            case TEXT:
+                view.position(view.position() + (int) (header >>> 2));
+                return GradeChecker.UNPARSED;
+            default:
+                throw new IllegalStateException("未知的数值类型: " + (header & 3));
+        }
+    }
+
+    private static String readText(ByteBuffer view, long header) {
+        byte[] bytes = new byte[(int) (header >>> 2)];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipExpression(ByteBuffer view) {
+        int shape = view.get() & 0xFF;
+        view.get();
+        int operands = 1 + Integer.bitCount(shape);
+        for (int i = 0; i < operands; i++) {
+            readValue(view, readVarLong(view));
+        }
+    }
+
+    private static void skipRecord(ByteBuffer view) {
+        skipExpression(view);
+        readValue(view, readVarLong(view));
+    }
+
+    private static long readVarLong(ByteBuffer view) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = view.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * 二进制题目文件的写入器
+     * 记录编码进可重用的大缓冲区，缓冲区满时整块写入通道；关闭时写出块索引并回填头部
+     */
+    public static final class Writer implements ExerciseOutput {
+        private final FileChannel channel;
+        private final int blockSize;
+        private final long maxFileSize;
+        private final byte[] buffer = new byte[Utf8ChannelWriter.DEFAULT_BUFFER_SIZE];
+        private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        private long flushed = HEADER_SIZE;  // 已写入通道的字节数（含头部）
+        private int position;
+        private long[] blockOffsets = new long[64];
+        private int count;
+
+        // 编码当前表达式时的临时状态
+        private int shape;
+        private int operatorBits;
+        private int tokenCount;
+        private int operatorCount;
+        private final long[] operands = new long[MAX_OPERATORS + 1];
+        private int operandCount;
+
+        public Writer(String filePath) throws IOException {
+            this(filePath, DEFAULT_BLOCK_SIZE);
+        }
+
+        public Writer(String filePath, int blockSize) throws IOException {
+            this(filePath, blockSize, MAX_FILE_SIZE);
+        }
+
+        Writer(String filePath, int blockSize, long maxFileSize) throws IOException {
+            if (blockSize <= 0) {
+                throw new IllegalArgumentException("每块题目数必须大于0");
+            }
+            this.blockSize = blockSize;
+            this.maxFileSize = maxFileSize;
+            this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * 写入一道题目及其答案
+         * @throws IllegalArgumentException 运算符超过3个或操作数不是非负的int分数时
+         * @throws IOException 加上块索引后文件将超过2GB、读取时无法映射时
+         */
+        @Override
+        public void write(Expression expression, CharSequence answer) throws IOException {
+            shape = 0;
+            operatorBits = 0;
+            tokenCount = 0;
+            operatorCount = 0;
+            operandCount = 0;
+            encode(expression.getRoot());
+
+            if (count % blockSize == 0) {
+                int block = count / blockSize;
+                if (block == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                }
+                blockOffsets[block] = flushed + position;
+            }
+            // 每个操作数最多两个10字节的变长整数
+            ensureCapacity(2 + operandCount * 20);
+            buffer[position++] = (byte) shape;
+            buffer[position++] = (byte) operatorBits;
+            for (int i = 0; i < operandCount; i++) {
+                writeValue(operands[i]);
+            }
+            writeAnswer(answer);
+            // 关闭时还要写出块索引，这道题所在的块也算在内
+            long blocks = count / blockSize + 1;
+            if (flushed + position + 4 + blocks * 8 > maxFileSize) {
+                throw new IOException("二进制题目文件将超过2GB，无法映射读取，请减少题目数量或改用文本格式");
+            }
+            count++;
+        }
+
+        private void encode(Expression.ExpressionNode node) {
+            if (node instanceof Expression.OperatorNode) {
+                Expression.OperatorNode operatorNode = (Expression.OperatorNode) node;
+                encode(operatorNode.getLeft());
+                encode(operatorNode.getRight());
+                if (operatorCount == MAX_OPERATORS) {
+                    throw new IllegalArgumentException("表达式的运算符超过" + MAX_OPERATORS + "个");
+                }
+                shape |= 1 << (tokenCount - 1);
+                operatorBits |= operatorNode.getOperator().ordinal() << (2 * operatorCount);
+                operatorCount++;
+            } else {
+                if (operandCount == operands.length) {
+                    throw new IllegalArgumentException("表达式的运算符超过" + MAX_OPERATORS + "个");
+                }
+                long value = node.evaluatePacked();
+                if (FractionMath.isOverflow(value) || FractionMath.numerator(value) < 0) {
+                    throw new IllegalArgumentException("操作数必须是非负的int分数: " + node);
+                }
+                operands[operandCount++] = value;
+            }
+            tokenCount++;
+        }
+
+        /**
+         * 答案能解析为非负的int分数时按数值保存，否则保存原文
+         */
+        private void writeAnswer(CharSequence answer) throws IOException {
+            long value = GradeChecker.parseAnswer(answer);
+            if (value != GradeChecker.UNPARSED && FractionMath.numerator(value) >= 0) {
+                ensureCapacity(20);
+                writeValue(value);
+                return;
+            }
+            byte[] bytes = answer.toString().getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(10);
+            writeVarLong((long) bytes.length << 2 | TEXT);
+            if (bytes.length > buffer.length - position) {
+                flush();
+                writeFully(ByteBuffer.wrap(bytes), flushed);
+                flushed += bytes.length;
+            } else {
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        private void writeValue(long value) {
+            int numerator = FractionMath.numerator(value);
+            int denominator = FractionMath.denominator(value);
+            if (denominator == 1) {
+                writeVarLong((long) numerator << 2 | NATURAL);
+            } else {
+                writeVarLong((long) numerator << 2 | FRACTION);
+                writeVarLong(denominator);
+            }
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int bytes) throws IOException {
+            if (position + bytes > buffer.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            byteBuffer.clear().limit(position);
+            writeFully(byteBuffer, flushed);
+            flushed += position;
+            position = 0;
+        }
+
+        /**
+         * 从文件的offset处写出整个缓冲区（头部需要回填，所有写入都指定位置）
+         */
+        private void writeFully(ByteBuffer source, long offset) throws IOException {
+            int start = source.position();
+            while (source.hasRemaining()) {
+                channel.write(source, offset + source.position() - start);
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 写出块索引并回填头部
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                int blocks = (count + blockSize - 1) / blockSize;
+                long indexOffset = flushed + position;
+                ensureCapacity(4);
+                writeInt(blocks);
+                for (int i = 0; i < blocks; i++) {
+                    ensureCapacity(8);
+                    writeLong(blockOffsets[i]);
+                }
+                flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(blockSize).putLong(indexOffset);
+                header.flip();
+                writeFully(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 流水线式的分块gzip写入通道
+ * 写入的数据先复制到固定大小的块中，写满的块交给后台压缩线程，调用方立即继续填充下一块；
+ * 每块压缩为一个独立的gzip成员，多个成员首尾相接仍是合法的gzip文件
+ * 块在两个线程之间循环使用，最多同时存在{@link #BLOCKS}块，压缩跟不上时写入方才会等待；
+ * 写入方每次等待都有超时，并检查压缩线程是否失败或已经退出，压缩线程出任何错都不会让写入方永远阻塞
+ */
+final class BlockGzipChannel implements WritableByteChannel {
+    /** 每块未压缩数据的字节数 */
+    static final int BLOCK_SIZE = 1 << 20;
+    /** 循环使用的块数：一块在填充，其余的在排队或压缩 */
+    private static final int BLOCKS = 3;
+    /** 写入方等待块时检查压缩线程状态的间隔 */
+    private static final long POLL_MILLIS = 100;
+
+    private static final byte[] MEMBER_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /** 待压缩的块 */
+    private static final class Block {
+        final byte[] data;
+        int length;
+
+        Block(int capacity) {
+            data = new byte[capacity];
+        }
+    }
+
+    /** 放在最后一块之后，通知压缩线程结束 */
+    private static final Block END = new Block(0);
+
+    private final WritableByteChannel channel;
+    private final int level;
+    private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCKS + 1);
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCKS);
+    private final Thread compressor;
+    private volatile Throwable failure;
+    private Block current;
+    private boolean submitted;
+    private boolean open = true;
+
+    BlockGzipChannel(WritableByteChannel channel, int level) {
+        this.channel = channel;
+        this.level = level;
+        for (int i = 0; i < BLOCKS; i++) {
+            free.add(new Block(BLOCK_SIZE));
+        }
+        compressor = new Thread(this::compressBlocks, "gzip-compressor");
+        compressor.setDaemon(true);
+        compressor.start();
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        checkFailure();
+        int written = source.remaining();
+        while (source.hasRemaining()) {
+            if (current == null) {
+                current = takeFree();
+                current.length = 0;
+            }
+            int length = Math.min(source.remaining(), BLOCK_SIZE - current.length);
+            source.get(current.data, current.length, length);
+            current.length += length;
+            if (current.length == BLOCK_SIZE) {
+                put(current);
+                current = null;
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 交出最后一块并等待压缩线程写完
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            if (current == null && !submitted) {
+                // 空文件也写出一个空的gzip成员，保证结果是合法的gzip文件
+                current = takeFree();
+                current.length = 0;
+            }
+            if (current != null && (current.length > 0 || !submitted)) {
+                put(current);
+            }
+            current = null;
+            put(END);
+            compressor.join();
+            checkFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待压缩线程时被中断");
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void compressBlocks() {
+        Deflater deflater = new Deflater(level, true);
+        CRC32 crc = new CRC32();
+        ByteBuffer output = ByteBuffer.allocate(BLOCK_SIZE + BLOCK_SIZE / 16 + 64);
+        try {
+            while (true) {
+                Block block = filled.take();
+                if (block == END) {
+                    return;
+                }
+                try {
+                    if (failure == null) {
+                        writeMember(block, deflater, crc, output);
+                    }
+                } catch (Throwable e) {
+                    // 出错后继续取出块并归还，写入方在下一次写入或关闭时得到异常
+                    failure = e;
+                } finally {
+                    // 块的总数等于free的容量，归还总能立即成功
+                    free.offer(block);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("压缩线程被中断");
+            // 归还已经排队的块，不再压缩
+            Block block;
+            while ((block = filled.poll()) != null) {
+                if (block != END) {
+                    free.offer(block);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 把一块压缩为一个gzip成员：头部、deflate数据、CRC32和原始长度
+     */
+    private void writeMember(Block block, Deflater deflater, CRC32 crc, ByteBuffer output) throws IOException {
+        output.clear();
+        output.put(MEMBER_HEADER);
+        deflater.reset();
+        deflater.setInput(block.data, 0, block.length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (!output.hasRemaining()) {
+                output.flip();
+                writeFully(output);
+                output.clear();
+            }
+            int length = deflater.deflate(output.array(), output.position(), output.remaining());
+            output.position(output.position() + length);
+        }
+        crc.reset();
+        crc.update(block.data, 0, block.length);
+        if (output.remaining() < 8) {
+            output.flip();
+            writeFully(output);
+            output.clear();
+        }
+        putIntLittleEndian(output, (int) crc.getValue());
+        putIntLittleEndian(output, block.length);
+        output.flip();
+        writeFully(output);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void putIntLittleEndian(ByteBuffer buffer, int value) {
+        buffer.put((byte) value).put((byte) (value >>> 8)).put((byte) (value >>> 16)).put((byte) (value >>> 24));
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable e = failure;
+        if (e != null) {
+            throw new IOException("压缩写入失败: " + e, e);
+        }
+    }
+
+    /**
+     * 等待超时时调用：压缩线程已经失败或退出时抛出异常，而不是继续等待它取出或归还块
+     */
+    private void checkCompressor() throws IOException {
+        checkFailure();
+        if (!compressor.isAlive()) {
+            // 压缩线程可能在上一次检查之后记录了错误才退出
+            checkFailure();
+            throw new IOException("压缩线程已退出");
+        }
+    }
+
+    private Block takeFree() throws IOException {
+        try {
+            Block block;
+            while ((block = free.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkCompressor();
+            }
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待空闲块时被中断");
+        }
+    }
+
+    private void put(Block block) throws IOException {
+        submitted = true;
+        try {
+            while (!filled.offer(block, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkCompressor();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待压缩线程时被中断");
+        }
+    }
+}
@@ -8,6 +8,12 @@ public class CommandLineParser {
     private int range = 0;
     private String exerciseFile = "";
     private String answerFile = "";
+    private String answerDir = "";
+    private boolean writeAnswerKey = false;
+    private Long seed = null;
+    private String format = null;
+    private String convertFile = "";
+    private Compression compression = Compression.NONE;
 
     public CommandLineParser(String[] args) {
         this.args = args;
@@ -66,6 +72,60 @@ public class CommandLineParser {
                         throw new Exception("-a参数缺少值");
                     }
                     break;
+                case "-k":
+                    writeAnswerKey = true;
+                    break;
+                case "--seed":
+                    if (i + 1 < args.length) {
+                        try {
+                            seed = Long.parseLong(args[i + 1]);
+                            i++;
+                        } catch (NumberFormatException e) {
+                            throw new Exception("--seed参数必须为整数");
+                        }
+                    } else {
+                        throw new Exception("--seed参数缺少值");
+                    }
+                    break;
+                case "-format":
+                    if (i + 1 < args.length) {
+                        format = args[i + 1];
+                        if (!format.equals("txt") && !format.equals("bin")) {
+                            throw new Exception("-format参数必须为txt或bin");
+                        }
+                        i++;
+                    } else {
+                        throw new Exception("-format参数缺少值");
+                    }
+                    break;
+                case "-compress":
+                    if (i + 1 < args.length) {
+                        try {
+                            compression = Compression.forName(args[i + 1]);
+                            i++;
+                        } catch (IllegalArgumentException e) {
+                            throw new Exception("-compress参数必须为none、gzip或fast");
+                        }
+                    } else {
+                        throw new Exception("-compress参数缺少值");
+                    }
+                    break;
+                case "-c":
+                    if (i + 1 < args.length) {
+                        convertFile = args[i + 1];
+                        i++;
+                    } else {
+                        throw new Exception("-c参数缺少值");
+                    }
+                    break;
+                case "-d":
+                    if (i + 1 < args.length) {
+                        answerDir = args[i + 1];
+                        i++;
+                    } else {
+                        throw new Exception("-d参数缺少值");
+                    }
+                    break;
                 default:
                     throw new Exception("未知参数: " + args[i]);
             }
@@ -75,6 +135,12 @@ public class CommandLineParser {
         if (generateMode && gradeMode) {
             throw new Exception("不能同时使用生成模式和判定模式");
         }
+        if (compression != Compression.NONE && isBinaryFormat()) {
+            throw new Exception("-compress参数不能与二进制格式同时使用");
+        }
+        if (!convertFile.isEmpty() && (generateMode || gradeMode)) {
+            throw new Exception("-c参数不能与生成模式或判定模式同时使用");
+        }
 
         if (generateMode) {
             if (count <= 0) {
@@ -87,15 +153,31 @@ public class CommandLineParser {
             if (range <= 0) {
                 throw new Exception("数值范围必须大于0");
             }
+            if (writeAnswerKey && isBinaryFormat()) {
+                throw new Exception("-k参数不能与二进制格式同时使用，二进制题目文件已包含答案");
+            }
+        } else if (writeAnswerKey) {
+            throw new Exception("-k参数只能用于生成模式");
+        } else if (seed != null) {
+            throw new Exception("--seed参数只能用于生成模式");
+        } else if (format != null) {
+            throw new Exception("-format参数只能用于生成模式");
+        } else if (!convertFile.isEmpty()) {
+            if (!answerFile.isEmpty() || !answerDir.isEmpty()) {
+                throw new Exception("-c参数不能与-a或-d参数同时使用");
+            }
         } else if (gradeMode) {
             if (exerciseFile.isEmpty()) {
                 throw new Exception("必须指定题目文件");
             }
-            if (answerFile.isEmpty()) {
+            if (answerFile.isEmpty() && answerDir.isEmpty()) {
                 throw new Exception("必须指定答案文件");
             }
+            if (!answerFile.isEmpty() && !answerDir.isEmpty()) {
+                throw new Exception("-a和-d参数不能同时使用");
+            }
         } else {
-            throw new Exception("必须指定-n和-r参数或-e和-a参数");
+            throw new Exception("必须指定-n和-r参数、-e和-a参数或-c参数");
         }
     }
 
@@ -122,4 +204,58 @@ public class CommandLineParser {
     public String getAnswerFile() {
         return answerFile;
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量判定模式：用一份题目文件判定目录中的所有答案文件
+     */
+    public boolean isBatchGradeMode() {
+        return gradeMode && !answerDir.isEmpty();
+    }
+
+    public String getAnswerDir() {
+        return answerDir;
+    }
+
+    /**
+     * 生成题目时是否同时写出答案表缓存文件
+     */
+    public boolean isWriteAnswerKey() {
+        return writeAnswerKey;
+    }
+
+    /**
+     * 是否指定了随机数种子（指定后相同的种子和参数生成完全相同的题目）
+     */
+    public boolean hasSeed() {
+        return seed != null;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 生成题目时是否使用二进制格式（题目和答案写入同一个.bin文件）
+     */
+    public boolean isBinaryFormat() {
+        return "bin".equals(format);
+    }
+
+    /**
+     * 转换模式：把二进制题目文件转换为文本格式的题目文件和答案文件
+     */
+    public boolean isConvertMode() {
+        return !convertFile.isEmpty();
+    }
+
+    public String getConvertFile() {
+        return convertFile;
+    }
+
+    /**
+     * 输出的文本文件（题目、答案或评分结果）的压缩方式
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+}
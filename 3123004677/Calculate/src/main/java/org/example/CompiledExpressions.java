@@ -0,0 +1,233 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译后的表达式批次
+ * 每个表达式被展平为后缀形式的操作码序列，所有表达式的操作码、操作数分别存放在
+ * 连续的基本类型数组中（结构数组），求值时用一个非递归的栈循环一次处理整批表达式
+ */
+public class CompiledExpressions {
+    /** 操作码：压入下一个操作数 */
+    public static final byte PUSH = 0;
+    /** 操作码：运算符，取值为 {@link Expression.OperatorType#ordinal()} + 1 */
+    public static final byte ADD = 1;
+    public static final byte SUBTRACT = 2;
+    public static final byte MULTIPLY = 3;
+    public static final byte DIVIDE = 4;
+
+    private static final Expression.OperatorType[] OPERATORS = Expression.OperatorType.values();
+
+    private byte[] opcodes;       // 所有表达式的操作码
+    private long[] operands;      // 所有表达式的操作数（FractionMath打包形式）
+    private int[] codeStart;      // 每个表达式第一条操作码的位置，末尾多一个哨兵
+    private int[] operandStart;   // 每个表达式第一个操作数的位置，末尾多一个哨兵
+    private int codeSize;
+    private int operandSize;
+    private int count;
+    private int depth;            // 当前表达式编译时的栈深度
+    private int maxDepth;         // 所有表达式求值所需的最大栈深度
+
+    public CompiledExpressions() {
+        this(16);
+    }
+
+    public CompiledExpressions(int expectedCount) {
+        int capacity = Math.max(expectedCount, 1);
+        this.opcodes = new byte[capacity * 7];
+        this.operands = new long[capacity * 4];
+        this.codeStart = new int[capacity + 1];
+        this.operandStart = new int[capacity + 1];
+    }
+
+    /**
+     * 编译一批表达式
+     */
+    public static CompiledExpressions compile(List<Expression> expressions) {
+        CompiledExpressions compiled = new CompiledExpressions(expressions.size());
+        for (Expression expression : expressions) {
+            compiled.add(expression);
+        }
+        return compiled;
+    }
+
+    /**
+     * 编译并追加一个表达式
+     */
+    public void add(Expression expression) {
+        emit(expression.getRoot());
+        endExpression();
+    }
+
+    /**
+     * 按后序遍历输出操作码
+     */
+    private void emit(Expression.ExpressionNode node) {
+        if (node instanceof Expression.OperatorNode) {
+            Expression.OperatorNode operatorNode = (Expression.OperatorNode) node;
+            emit(operatorNode.getLeft());
+            emit(operatorNode.getRight());
+            pushOperator(operatorNode.getOperator());
+        } else {
+            pushOperand(node.evaluatePacked());
+        }
+    }
+
+    /**
+     * 追加一条压入操作数的指令
+     */
+    public void pushOperand(long value) {
+        ensureCodeCapacity();
+        if (operandSize == operands.length) {
+            operands = Arrays.copyOf(operands, operands.length * 2);
+        }
+        opcodes[codeSize++] = PUSH;
+        operands[operandSize++] = value;
+        if (++depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * 追加一条运算指令
+     */
+    public void pushOperator(Expression.OperatorType operator) {
+        if (depth < 2) {
+            throw new IllegalStateException("运算符缺少操作数");
+        }
+        ensureCodeCapacity();
+        opcodes[codeSize++] = (byte) (operator.ordinal() + 1);
+        depth--;
+    }
+
+    /**
+     * 结束当前表达式
+     */
+    public void endExpression() {
+        if (depth != 1) {
+            throw new IllegalStateException("表达式不完整");
+        }
+        if (count + 2 > codeStart.length) {
+            codeStart = Arrays.copyOf(codeStart, codeStart.length * 2);
+            operandStart = Arrays.copyOf(operandStart, operandStart.length * 2);
+        }
+        count++;
+        codeStart[count] = codeSize;
+        operandStart[count] = operandSize;
+        depth = 0;
+    }
+
+    /**
+     * 丢弃当前尚未结束的表达式（解析失败时回滚）
+     */
+    public void discardExpression() {
+        codeSize = codeStart[count];
+        operandSize = operandStart[count];
+        depth = 0;
+    }
+
+    private void ensureCodeCapacity() {
+        if (codeSize == opcodes.length) {
+            opcodes = Arrays.copyOf(opcodes, opcodes.length * 2);
+        }
+    }
+
+    /**
+     * 表达式数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 一次性计算整批表达式的值
+     * @return 每个表达式的结果（打包形式），溢出的表达式为{@link FractionMath#OVERFLOW}
+     */
+    public long[] evaluateAll() {
+        long[] results = new long[count];
+        evaluateAll(results);
+        return results;
+    }
+
+    /**
+     * 一次性计算整批表达式的值并写入调用方提供的数组
+     * @throws ArithmeticException 表达式违反题目约束时
+     */
+    public void evaluateAll(long[] results) {
+        long[] stack = new long[Math.max(maxDepth, 1)];
+        byte[] code = opcodes;
+        long[] values = operands;
+        int pc = 0;
+        int operand = 0;
+        for (int i = 0; i < count; i++) {
+            int end = codeStart[i + 1];
+            int sp = 0;
+            while (pc < end) {
+                byte op = code[pc++];
+                if (op == PUSH) {
+                    stack[sp++] = values[operand++];
+                } else {
+                    long right = stack[--sp];
+                    stack[sp - 1] = Expression.OperatorNode.apply(OPERATORS[op - 1], stack[sp - 1], right);
+                }
+            }
+            results[i] = stack[0];
+        }
+    }
+
+    /**
+     * 计算单个表达式的值
+     */
+    public long evaluate(int index) {
+        long[] stack = new long[Math.max(maxDepth, 1)];
+        int operand = operandStart[index];
+        int sp = 0;
+        for (int pc = codeStart[index]; pc < codeStart[index + 1]; pc++) {
+            byte op = opcodes[pc];
+            if (op == PUSH) {
+                stack[sp++] = operands[operand++];
+            } else {
+                long right = stack[--sp];
+                stack[sp - 1] = Expression.OperatorNode.apply(OPERATORS[op - 1], stack[sp - 1], right);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * 用BigInteger精确计算单个表达式的值（快速路径溢出时使用）
+     */
+    public Fraction evaluateExact(int index) {
+        Fraction[] stack = new Fraction[Math.max(maxDepth, 1)];
+        int operand = operandStart[index];
+        int sp = 0;
+        for (int pc = codeStart[index]; pc < codeStart[index + 1]; pc++) {
+            byte op = opcodes[pc];
+            if (op == PUSH) {
+                stack[sp++] = Fraction.fromPacked(operands[operand++]);
+            } else {
+                Fraction right = stack[--sp];
+                stack[sp - 1] = Expression.OperatorNode.applyExact(OPERATORS[op - 1], stack[sp - 1], right);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * 一次性计算整批表达式的答案字符串
+     */
+    public List<String> calculateResults() {
+        long[] results = evaluateAll();
+        List<String> answers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (FractionMath.isOverflow(results[i])) {
+                answers.add(evaluateExact(i).toString());
+            } else {
+                answers.add(FractionMath.toString(results[i]));
+            }
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 输出文件的压缩方式
+ * 压缩输出都是gzip格式（扩展名.gz），按块分成多个gzip成员，可以直接用gzip或{@link java.util.zip.GZIPInputStream}解压；
+ * FAST使用最快的压缩级别，用较大的文件换取更短的压缩时间
+ * 读取时按文件开头的魔数识别，与扩展名无关
+ */
+public enum Compression {
+    NONE(0),
+    GZIP(Deflater.DEFAULT_COMPRESSION),
+    FAST(Deflater.BEST_SPEED);
+
+    /** 压缩文件的扩展名 */
+    public static final String EXTENSION = ".gz";
+
+    private final int level;
+
+    Compression(int level) {
+        this.level = level;
+    }
+
+    /**
+     * 按扩展名选择压缩方式：.gz使用默认级别的gzip，其余不压缩
+     */
+    public static Compression forPath(String filePath) {
+        return filePath.endsWith(EXTENSION) ? GZIP : NONE;
+    }
+
+    /**
+     * 命令行中的名称（none、gzip、fast）对应的压缩方式
+     * @throws IllegalArgumentException 名称无效时
+     */
+    public static Compression forName(String name) {
+        for (Compression compression : values()) {
+            if (compression.getName().equals(name)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("未知的压缩方式: " + name);
+    }
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * 使用这种压缩方式时实际写出的文件路径：压缩时在末尾加上.gz
+     */
+    public String apply(String filePath) {
+        return this == NONE || filePath.endsWith(EXTENSION) ? filePath : filePath + EXTENSION;
+    }
+
+    /**
+     * 根据文件开头的gzip魔数判断文件是否经过压缩
+     */
+    public static boolean isCompressed(String filePath) throws IOException {
+        try (InputStream in = new FileInputStream(filePath)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    /**
+     * 打开读取filePath的输入流，压缩文件自动解压
+     */
+    public static InputStream openInput(String filePath) throws IOException {
+        InputStream in = new FileInputStream(filePath);
+        if (!isCompressed(filePath)) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, 1 << 16);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 打开写入filePath的通道，压缩方式不是NONE时由后台线程按块压缩
+     */
+    WritableByteChannel open(String filePath) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return this == NONE ? channel : new BlockGzipChannel(channel, level);
+    }
+}
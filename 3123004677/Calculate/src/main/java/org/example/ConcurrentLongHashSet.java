@@ -0,0 +1,93 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的并发long集合
+ * 基于AtomicLongArray的开放寻址表，插入时用CAS占用空槽位，
+ * 多个线程可以同时查重而不需要竞争同一把锁
+ * 表的容量在创建时根据预计元素数量确定，不会扩容；装载因子不超过0.5，每个预计元素占用16字节
+ */
+public class ConcurrentLongHashSet {
+    private static final long EMPTY = 0L; // 空槽位标记，元素0单独记录
+
+    private final AtomicLongArray table;
+    private final int mask;
+    private final AtomicBoolean containsZero = new AtomicBoolean();
+    private final LongAdder size = new LongAdder(); // 分段计数，避免所有线程竞争同一个计数器
+
+    /**
+     * @param expectedSize 预计存放的元素数量，实际容量为其2倍以保持较短的探测序列
+     * @throws IllegalArgumentException 预计数量超过{@link LongHashSet#MAX_CAPACITY}的一半时
+     */
+    public ConcurrentLongHashSet(int expectedSize) {
+        if (expectedSize > LongHashSet.MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException("查重集合最多容纳" + LongHashSet.MAX_CAPACITY / 2 + "个元素");
+        }
+        int capacity = LongHashSet.tableSizeFor(Math.max(expectedSize, 8) * 2L);
+        this.table = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 原子地插入元素（不存在时才插入）
+     * @return 元素原本不存在且由本次调用插入时返回true
+     * @throws IllegalStateException 集合已满时
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero.compareAndSet(false, true)) {
+                size.increment();
+                return true;
+            }
+            return false;
+        }
+        int index = LongHashSet.slot(value, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = table.get(index);
+            if (current == EMPTY) {
+                if (table.compareAndSet(index, EMPTY, value)) {
+                    size.increment();
+                    return true;
+                }
+                // CAS失败说明其他线程刚占用了该槽位，重新检查它是否就是同一个元素
+                current = table.get(index);
+            }
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        throw new IllegalStateException("查重集合已满，容量为" + table.length());
+    }
+
+    /**
+     * 判断元素是否存在
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero.get();
+        }
+        int index = LongHashSet.slot(value, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = table.get(index);
+            if (current == EMPTY) {
+                return false;
+            }
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 元素数量（并发插入时为近似值）
+     */
+    public int size() {
+        return size.intValue();
+    }
+}
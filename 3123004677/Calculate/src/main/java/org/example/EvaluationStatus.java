@@ -0,0 +1,67 @@
+package org.example;
+
+/**
+ * 表达式求值的结果状态
+ * 违反题目约束的运算不抛出异常，而是返回分母为0的打包标记值，分子区分具体原因：
+ * 1为溢出（即{@link FractionMath#OVERFLOW}），2为负数减法，3为除数为0，4为非真分数的除法
+ * 标记值对{@link FractionMath#isOverflow}同样成立，不会被误当作合法分数使用
+ */
+public enum EvaluationStatus {
+    /** 合法的结果 */
+    OK(null),
+    /** 快速路径溢出，需要用Fraction精确计算后才能确定 */
+    OVERFLOW("计算结果超出快速路径范围"),
+    NEGATIVE_SUBTRACTION("减法运算结果为负数"),
+    DIVIDE_BY_ZERO("除数不能为0"),
+    IMPROPER_QUOTIENT("除法运算结果必须是真分数或自然数");
+
+    private static final EvaluationStatus[] VALUES = values();
+
+    private final String message;
+
+    EvaluationStatus(String message) {
+        this.message = message;
+    }
+
+    /**
+     * 违反约束时的说明
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 对应的打包标记值（OK没有标记值）
+     */
+    public long sentinel() {
+        if (this == OK) {
+            throw new IllegalStateException("合法结果没有标记值");
+        }
+        return FractionMath.pack(ordinal(), 0);
+    }
+
+    /**
+     * 是否违反题目约束（溢出不算违反约束）
+     */
+    public boolean isViolation() {
+        return this != OK && this != OVERFLOW;
+    }
+
+    /**
+     * 打包结果对应的状态
+     */
+    public static EvaluationStatus of(long value) {
+        if (!FractionMath.isOverflow(value)) {
+            return OK;
+        }
+        int code = FractionMath.numerator(value);
+        return code > 1 && code < VALUES.length ? VALUES[code] : OVERFLOW;
+    }
+
+    /**
+     * 打包结果是否是违反约束的标记值
+     */
+    public static boolean isViolation(long value) {
+        return FractionMath.isOverflow(value) && FractionMath.numerator(value) > 1;
+    }
+}
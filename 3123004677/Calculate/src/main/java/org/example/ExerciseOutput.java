@@ -0,0 +1,26 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 题目与答案的输出目标（文本文件或二进制文件），题号由输出自动编排
+ */
+public interface ExerciseOutput extends Closeable {
+    /**
+     * 写入一道题目及其答案
+     */
+    void write(Expression expression, CharSequence answer) throws IOException;
+
+    /**
+     * 写入一道题目及其答案，题目文本已经渲染好（例如在生成线程中），不需要文本的格式可以忽略它
+     */
+    default void write(Expression expression, CharSequence exercise, CharSequence answer) throws IOException {
+        write(expression, answer);
+    }
+
+    /**
+     * 已写入的题目数量
+     */
+    int getCount();
+}
@@ -0,0 +1,156 @@
+package org.example;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 题目与答案的流式写入器
+ * 逐条写入题目和对应答案，两个文件在同一遍中完成，题号由写入器自动编排
+ * 文本直接以UTF-8编码进大缓冲区，再通过FileChannel整块写出
+ * 指定答案表缓存文件时，关闭时额外写出与题目文件哈希绑定的{@link AnswerKey}，判定时不必重新解析题目
+ * 需要行索引时，写入每行之前记下行首偏移，两个文件旁各写出一个{@link LineIndex}，之后可以按题号直接读取任意一段
+ */
+public class ExerciseWriter implements ExerciseOutput {
+    private final Utf8ChannelWriter exerciseWriter;
+    private final Utf8ChannelWriter answerWriter;
+    private final String exercisesFile;
+    private final String answerKeyFile;
+    private final AnswerKey.Builder answerKey;
+    private final LineIndex.Writer exerciseIndex;
+    private final LineIndex.Writer answerIndex;
+    private final ExpressionRenderer renderer = new ExpressionRenderer();
+    private int count;
+
+    public ExerciseWriter(String exercisesFile, String answersFile) throws IOException {
+        this(exercisesFile, answersFile, null);
+    }
+
+    /**
+     * @param answerKeyFile 答案表缓存文件，为null时不写出
+     */
+    public ExerciseWriter(String exercisesFile, String answersFile, String answerKeyFile) throws IOException {
+        this(exercisesFile, answersFile, answerKeyFile, false);
+    }
+
+    /**
+     * @param answerKeyFile 答案表缓存文件，为null时不写出
+     * @param writeLineIndex 是否在两个文件旁写出行索引
+     */
+    public ExerciseWriter(String exercisesFile, String answersFile, String answerKeyFile,
+                          boolean writeLineIndex) throws IOException {
+        this(exercisesFile, answersFile, answerKeyFile, writeLineIndex, Compression.NONE);
+    }
+
+    /**
+     * @param answerKeyFile 答案表缓存文件，为null时不写出
+     * @param writeLineIndex 是否在两个文件旁写出行索引（压缩文件无法按偏移定位，不能写出行索引）
+     * @param compression 两个文件的压缩方式，为NONE时按各自的扩展名选择
+     */
+    public ExerciseWriter(String exercisesFile, String answersFile, String answerKeyFile,
+                          boolean writeLineIndex, Compression compression) throws IOException {
+        Compression exerciseCompression = compression != Compression.NONE ? compression : Compression.forPath(exercisesFile);
+        Compression answerCompression = compression != Compression.NONE ? compression : Compression.forPath(answersFile);
+        if (writeLineIndex && (exerciseCompression != Compression.NONE || answerCompression != Compression.NONE)) {
+            throw new IllegalArgumentException("压缩文件不能写出行索引");
+        }
+        this.exercisesFile = exercisesFile;
+        this.answerKeyFile = answerKeyFile;
+        this.answerKey = answerKeyFile != null ? new AnswerKey.Builder() : null;
+        List<Closeable> opened = new ArrayList<>();
+        try {
+            this.exerciseWriter = open(opened, new Utf8ChannelWriter(exercisesFile, exerciseCompression));
+            this.answerWriter = open(opened, new Utf8ChannelWriter(answersFile, answerCompression));
+            this.exerciseIndex = writeLineIndex
+                    ? open(opened, new LineIndex.Writer(LineIndex.pathFor(exercisesFile), exercisesFile)) : null;
+            this.answerIndex = writeLineIndex
+                    ? open(opened, new LineIndex.Writer(LineIndex.pathFor(answersFile), answersFile)) : null;
+        } catch (IOException e) {
+            for (Closeable closeable : opened) {
+                try {
+                    closeable.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static <T extends Closeable> T open(List<Closeable> opened, T closeable) {
+        opened.add(closeable);
+        return closeable;
+    }
+
+    /**
+     * 写入一道题目及其答案
+     */
+    public void write(CharSequence exercise, CharSequence answer) throws IOException {
+        count++;
+        indexLines();
+        exerciseWriter.writeNumberedLine(count, exercise);
+        answerWriter.writeNumberedLine(count, answer);
+        if (answerKey != null) {
+            answerKey.add(answer);
+        }
+    }
+
+    @Override
+    public void write(Expression expression, CharSequence exercise, CharSequence answer) throws IOException {
+        write(exercise, answer);
+    }
+
+    /**
+     * 写入一道题目及其答案，题目直接渲染为UTF-8字节，不经过字符串
+     */
+    @Override
+    public void write(Expression expression, CharSequence answer) throws IOException {
+        count++;
+        byte[] exercise = renderer.render(expression);
+        indexLines();
+        exerciseWriter.writeNumberedLine(count, exercise, 0, renderer.getLength());
+        answerWriter.writeNumberedLine(count, answer);
+        if (answerKey != null) {
+            answerKey.add(answer);
+        }
+    }
+
+    /**
+     * 记下即将写入的两行的行首偏移
+     */
+    private void indexLines() throws IOException {
+        if (exerciseIndex != null) {
+            exerciseIndex.add(exerciseWriter.getBytesWritten());
+            answerIndex.add(answerWriter.getBytesWritten());
+        }
+    }
+
+    /**
+     * 已写入的题目数量
+     */
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            exerciseWriter.close();
+        } finally {
+            answerWriter.close();
+        }
+        if (exerciseIndex != null) {
+            // 文本文件关闭后索引才能记录它们最终的大小和修改时间
+            try {
+                exerciseIndex.close();
+            } finally {
+                answerIndex.close();
+            }
+        }
+        if (answerKey != null) {
+            // 题目文件写完后才能计算哈希
+            answerKey.build().write(answerKeyFile, AnswerKey.hash(exercisesFile));
+        }
+    }
+}
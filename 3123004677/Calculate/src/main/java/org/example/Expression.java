@@ -19,6 +19,13 @@ public class Expression {
             return symbol;
         }
         
+        /**
+         * 是否满足交换律（加法和乘法）
+         */
+        public boolean isCommutative() {
+            return this == ADD || this == MULTIPLY;
+        }
+        
         public static OperatorType fromSymbol(String symbol) {
             for (OperatorType op : values()) {
                 if (op.getSymbol().equals(symbol)) {
@@ -35,11 +42,78 @@ public class Expression {
         this.root = root;
     }
     
+    public ExpressionNode getRoot() {
+        return root;
+    }
+    
     /**
      * 计算表达式的结果
      */
     public String calculateResult() {
-        return root.evaluate().toString();
+        long result = root.evaluatePacked();
+        if (FractionMath.isOverflow(result)) {
+            // 超出int快速路径，改用BigInteger精确计算
+            return root.evaluate().toString();
+        }
+        return FractionMath.toString(result);
+    }
+    
+    /**
+     * 检查表达式是否满足题目约束，不抛出异常
+     * 快速路径溢出时用Fraction精确地重新检查，因此不会返回OVERFLOW
+     */
+    public EvaluationStatus validate() {
+        EvaluationStatus status = EvaluationStatus.of(root.evaluateChecked());
+        if (status != EvaluationStatus.OVERFLOW) {
+            return status;
+        }
+        return ExactResult.evaluate(root).status;
+    }
+    
+    /**
+     * 快速路径溢出后的精确求值结果：与打包求值的返回值一样，要么是合法的值，要么是违反约束的状态
+     */
+    private static final class ExactResult {
+        // 每种状态共用一个实例，违反约束时不分配对象
+        private static final ExactResult[] VIOLATIONS = new ExactResult[EvaluationStatus.values().length];
+        
+        static {
+            for (EvaluationStatus status : EvaluationStatus.values()) {
+                VIOLATIONS[status.ordinal()] = new ExactResult(null, status);
+            }
+        }
+        
+        final Fraction value; // 违反约束时为null
+        final EvaluationStatus status;
+        
+        private ExactResult(Fraction value, EvaluationStatus status) {
+            this.value = value;
+            this.status = status;
+        }
+        
+        /**
+         * 精确计算子树的值，遇到第一个违反约束的运算时返回它的状态
+         */
+        static ExactResult evaluate(ExpressionNode node) {
+            if (!(node instanceof OperatorNode)) {
+                return new ExactResult(node.evaluate(), EvaluationStatus.OK);
+            }
+            OperatorNode operatorNode = (OperatorNode) node;
+            ExactResult left = evaluate(operatorNode.left);
+            if (left.status != EvaluationStatus.OK) {
+                return left;
+            }
+            ExactResult right = evaluate(operatorNode.right);
+            if (right.status != EvaluationStatus.OK) {
+                return right;
+            }
+            EvaluationStatus status = OperatorNode.checkExact(operatorNode.operator, left.value, right.value);
+            if (status != EvaluationStatus.OK) {
+                return VIOLATIONS[status.ordinal()];
+            }
+            return new ExactResult(OperatorNode.applyExact(operatorNode.operator, left.value, right.value),
+                    EvaluationStatus.OK);
+        }
     }
     
     /**
@@ -47,7 +121,9 @@ public class Expression {
      */
     @Override
     public String toString() {
-        return root.toString() + " = ";
+        StringBuilder sb = new StringBuilder(32);
+        ExpressionRenderer.appendTo(sb, this);
+        return sb.toString();
     }
     
     /**
@@ -57,23 +133,114 @@ public class Expression {
         return root.getCanonicalForm();
     }
     
+    /**
+     * 获取表达式的64位结构指纹（用于查重，与规范形式等价但不创建字符串）
+     */
+    public long getFingerprint() {
+        return root.getFingerprint();
+    }
+    
+    /**
+     * 判断两个表达式在交换加法、乘法左右操作数的意义下是否相同
+     * 与比较规范形式的结果一致，用于校验指纹冲突
+     */
+    public boolean isEquivalent(Expression other) {
+        return equivalent(root, other.root);
+    }
+    
+    /**
+     * 逐节点比较两棵表达式树的结构
+     */
+    static boolean equivalent(ExpressionNode a, ExpressionNode b) {
+        if (a instanceof OperatorNode && b instanceof OperatorNode) {
+            OperatorNode x = (OperatorNode) a;
+            OperatorNode y = (OperatorNode) b;
+            if (x.operator != y.operator) {
+                return false;
+            }
+            if (equivalent(x.left, y.left) && equivalent(x.right, y.right)) {
+                return true;
+            }
+            return x.operator.isCommutative()
+                    && equivalent(x.left, y.right) && equivalent(x.right, y.left);
+        }
+        if (a instanceof NumberNode && b instanceof NumberNode) {
+            return ((NumberNode) a).value.equals(((NumberNode) b).value);
+        }
+        return false;
+    }
+    
+    /**
+     * 64位混合函数（SplitMix64的终结步骤），使指纹的每一位都依赖输入的所有位
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
     /**
      * 表达式节点接口
      */
     public interface ExpressionNode {
         Fraction evaluate();
+        /**
+         * 计算节点的值，返回{@link FractionMath}打包形式，运算过程不分配对象
+         * 中间结果溢出时返回{@link FractionMath#OVERFLOW}，此时应改用{@link #evaluate()}
+         */
+        long evaluatePacked();
+        /**
+         * 与{@link #evaluatePacked()}相同，但违反题目约束时不抛出异常，
+         * 而是返回{@link EvaluationStatus}的标记值
+         */
+        long evaluateChecked();
         String toString();
         String getCanonicalForm();
+        /**
+         * 自底向上计算结构指纹，加法和乘法对左右子树的指纹做可交换的组合
+         */
+        long getFingerprint();
     }
     
     /**
      * 数值节点
      */
     public static class NumberNode implements ExpressionNode {
-        private Fraction value;
+        private final Fraction value;
+        private final long packed;
+        private final int id; // 在OperandTable中的编号，不在表中时为-1
+        private final String token;  // 共享节点预先渲染好的文本，其他节点为null
+        private final byte[] tokenBytes; // token的ASCII字节
         
         public NumberNode(Fraction value) {
+            this(value, -1);
+        }
+        
+        NumberNode(Fraction value, int id) {
             this.value = value;
+            this.packed = value.toPacked();
+            this.id = id;
+            // 共享节点在建表时渲染一次，之后每次输出都直接复用
+            this.token = id >= 0 ? value.toString() : null;
+            this.tokenBytes = token != null ? token.getBytes(java.nio.charset.StandardCharsets.US_ASCII) : null;
+        }
+        
+        /**
+         * 预先渲染好的文本的ASCII字节，不是共享节点时为null
+         */
+        byte[] getTokenBytes() {
+            return tokenBytes;
+        }
+        
+        /**
+         * 在{@link OperandTable}中的编号，不是共享节点时为-1
+         */
+        int getId() {
+            return id;
+        }
+        
+        public Fraction getValue() {
+            return value;
         }
         
         @Override
@@ -81,14 +248,29 @@ public class Expression {
             return value;
         }
         
+        @Override
+        public long evaluatePacked() {
+            return packed;
+        }
+        
+        @Override
+        public long evaluateChecked() {
+            return packed;
+        }
+        
         @Override
         public String toString() {
-            return value.toString();
+            return token != null ? token : value.toString();
         }
         
         @Override
         public String getCanonicalForm() {
-            return "N" + value.toString();
+            return "N" + toString();
+        }
+        
+        @Override
+        public long getFingerprint() {
+            return mix(packed ^ 0x9e3779b97f4a7c15L);
         }
     }
     
@@ -99,35 +281,111 @@ public class Expression {
         private OperatorType operator;
         private ExpressionNode left;
         private ExpressionNode right;
+        // 输出时左右子树是否需要括号，构造时确定，渲染时不再判断
+        private final boolean leftParentheses;
+        private final boolean rightParentheses;
         
         public OperatorNode(OperatorType operator, ExpressionNode left, ExpressionNode right) {
             this.operator = operator;
             this.left = left;
             this.right = right;
+            this.leftParentheses = needParentheses(left);
+            // 同级的右操作数在按左结合重新解析后结构会改变，减法以及乘除法的同级右操作数必须加括号
+            this.rightParentheses = needParentheses(right) || needRightParentheses(right);
+        }
+        
+        /**
+         * 输出时左子树是否需要加括号
+         */
+        boolean isLeftParenthesized() {
+            return leftParentheses;
+        }
+        
+        /**
+         * 输出时右子树是否需要加括号
+         */
+        boolean isRightParenthesized() {
+            return rightParentheses;
+        }
+        
+        public OperatorType getOperator() {
+            return operator;
+        }
+        
+        public ExpressionNode getLeft() {
+            return left;
+        }
+        
+        public ExpressionNode getRight() {
+            return right;
         }
         
         @Override
         public Fraction evaluate() {
-            Fraction leftValue = left.evaluate();
-            Fraction rightValue = right.evaluate();
+            long result = evaluatePacked();
+            if (!FractionMath.isOverflow(result)) {
+                return Fraction.fromPacked(result);
+            }
+            
+            // 快速路径溢出，使用Fraction的BigInteger表示重新精确计算
+            return applyExact(operator, left.evaluate(), right.evaluate());
+        }
+        
+        @Override
+        public long evaluatePacked() {
+            return apply(operator, left.evaluatePacked(), right.evaluatePacked());
+        }
+        
+        @Override
+        public long evaluateChecked() {
+            return check(operator, left.evaluateChecked(), right.evaluateChecked());
+        }
+        
+        /**
+         * 在打包形式上执行一次运算并检查题目约束，溢出标记原样传播
+         * @throws ArithmeticException 违反题目约束时
+         */
+        static long apply(OperatorType operator, long leftValue, long rightValue) {
+            long result = check(operator, leftValue, rightValue);
+            if (EvaluationStatus.isViolation(result)) {
+                throw new ArithmeticException(EvaluationStatus.of(result).getMessage());
+            }
+            return result;
+        }
+        
+        /**
+         * 在打包形式上执行一次运算并检查题目约束，不抛出异常
+         * @return 运算结果；违反约束时返回对应{@link EvaluationStatus}的标记值，
+         *         操作数中的标记原样传播（违反约束的标记优先于溢出标记）
+         */
+        static long check(OperatorType operator, long leftValue, long rightValue) {
+            if (FractionMath.isOverflow(leftValue) || FractionMath.isOverflow(rightValue)) {
+                if (EvaluationStatus.isViolation(leftValue)) {
+                    return leftValue;
+                }
+                return EvaluationStatus.isViolation(rightValue) ? rightValue : FractionMath.OVERFLOW;
+            }
             
             switch (operator) {
                 case ADD:
-                    return leftValue.add(rightValue);
+                    return FractionMath.add(leftValue, rightValue);
                 case SUBTRACT:
-                    if (leftValue.compareTo(rightValue) < 0) {
-                        throw new ArithmeticException("减法运算结果为负数");
+                    if (FractionMath.compare(leftValue, rightValue) < 0) {
+                        return EvaluationStatus.NEGATIVE_SUBTRACTION.sentinel();
                     }
-                    return leftValue.subtract(rightValue);
+                    return FractionMath.subtract(leftValue, rightValue);
                 case MULTIPLY:
-                    return leftValue.multiply(rightValue);
+                    return FractionMath.multiply(leftValue, rightValue);
                 case DIVIDE:
-                    if (rightValue.getNumerator() == 0) {
-                        throw new ArithmeticException("除数不能为0");
+                    if (FractionMath.numerator(rightValue) == 0) {
+                        return EvaluationStatus.DIVIDE_BY_ZERO.sentinel();
                     }
-                    Fraction result = leftValue.divide(rightValue);
-                    if (!result.isProperFraction() && !result.isNaturalNumber()) {
-                        throw new ArithmeticException("除法运算结果必须是真分数或自然数");
+                    long result = FractionMath.divide(leftValue, rightValue);
+                    if (FractionMath.isOverflow(result)) {
+                        return result;
+                    }
+                    if (!FractionMath.isProperFraction(result) && !FractionMath.isNaturalNumber(result)) {
+                        return EvaluationStatus.IMPROPER_QUOTIENT.sentinel();
                     }
                     return result;
                 default:
@@ -135,12 +393,68 @@ public class Expression {
             }
         }
         
+        /**
+         * 在Fraction上精确执行一次运算并检查题目约束（用于快速路径溢出后）
+         * @throws ArithmeticException 违反题目约束时
+         */
+        static Fraction applyExact(OperatorType operator, Fraction leftValue, Fraction rightValue) {
+            EvaluationStatus status = checkExact(operator, leftValue, rightValue);
+            if (status != EvaluationStatus.OK) {
+                throw new ArithmeticException(status.getMessage());
+            }
+            switch (operator) {
+                case ADD:
+                    return leftValue.add(rightValue);
+                case SUBTRACT:
+                    return leftValue.subtract(rightValue);
+                case MULTIPLY:
+                    return leftValue.multiply(rightValue);
+                case DIVIDE:
+                    return leftValue.divide(rightValue);
+                default:
+                    throw new IllegalStateException("未知的运算符: " + operator);
+            }
+        }
+        
+        /**
+         * 在Fraction上检查一次运算是否满足题目约束，不抛出异常
+         */
+        static EvaluationStatus checkExact(OperatorType operator, Fraction leftValue, Fraction rightValue) {
+            switch (operator) {
+                case SUBTRACT:
+                    return leftValue.compareTo(rightValue) < 0 ? EvaluationStatus.NEGATIVE_SUBTRACTION : EvaluationStatus.OK;
+                case DIVIDE:
+                    if (rightValue.getBigNumerator().signum() == 0) {
+                        return EvaluationStatus.DIVIDE_BY_ZERO;
+                    }
+                    Fraction quotient = leftValue.divide(rightValue);
+                    return quotient.isProperFraction() || quotient.isNaturalNumber()
+                            ? EvaluationStatus.OK : EvaluationStatus.IMPROPER_QUOTIENT;
+                default:
+                    return EvaluationStatus.OK;
+            }
+        }
+        
         @Override
         public String toString() {
-            String leftStr = needParentheses(left) ? "(" + left.toString() + ")" : left.toString();
-            String rightStr = needParentheses(right) ? "(" + right.toString() + ")" : right.toString();
-            
-            return leftStr + " " + operator.getSymbol() + " " + rightStr;
+            StringBuilder sb = new StringBuilder(32);
+            ExpressionRenderer.appendTo(sb, this);
+            return sb.toString();
+        }
+        
+        private boolean needRightParentheses(ExpressionNode node) {
+            if (!(node instanceof OperatorNode)) {
+                return false;
+            }
+            OperatorType childOperator = ((OperatorNode) node).operator;
+            if (operator == OperatorType.SUBTRACT) {
+                return childOperator == OperatorType.ADD || childOperator == OperatorType.SUBTRACT;
+            }
+            if (operator == OperatorType.MULTIPLY || operator == OperatorType.DIVIDE) {
+                // 右侧乘除链中任何位置的除法在重新结合后都可能违反除法约束
+                return childOperator == OperatorType.MULTIPLY || childOperator == OperatorType.DIVIDE;
+            }
+            return false;
         }
         
         private boolean needParentheses(ExpressionNode node) {
@@ -181,5 +495,19 @@ public class Expression {
                 return operator.getSymbol() + left.getCanonicalForm() + right.getCanonicalForm();
             }
         }
+        
+        @Override
+        public long getFingerprint() {
+            long leftPrint = left.getFingerprint();
+            long rightPrint = right.getFingerprint();
+            
+            // 对于加法和乘法，按指纹大小排列左右子树，使交换后的表达式得到相同指纹
+            if (operator.isCommutative() && leftPrint > rightPrint) {
+                long temp = leftPrint;
+                leftPrint = rightPrint;
+                rightPrint = temp;
+            }
+            return mix(mix(leftPrint + operator.ordinal() + 1) ^ rightPrint);
+        }
     }
-}
\ No newline at end of file
+}
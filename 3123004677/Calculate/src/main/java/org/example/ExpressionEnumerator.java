@@ -0,0 +1,548 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 小数值范围下的表达式枚举器
+ * 数值范围很小时不同的表达式总数有限，随机生成越到后面重复和无效的尝试越多。
+ * 枚举器按运算符个数逐层构造所有不同的合法子树：加法和乘法只取无序的操作数对，
+ * 负数减法、除数为0和非真分数的除法在构造子树时就被剪掉。
+ * 1、2个运算符的表达式直接保存为扁平数组，3个运算符的表达式只按(运算符, 左子树层, 右子树层)分块计数。
+ * 抽样按运算符个数分层：先像随机生成那样等概率选择1、2或3个运算符，再在这一层的候选中做部分Fisher-Yates洗牌，
+ * 因此不放回、不重复，耗时与抽取数量成正比，题目中各种长度的比例也与随机生成相同
+ * （3个运算符的候选远多于其余两层，对整个空间均匀抽样几乎只会得到3个运算符的题目）；某一层抽完后只在其余层中选择。
+ * 题目数量超过空间大小时立即报告确切的表达式总数。
+ */
+public class ExpressionEnumerator {
+    /** 候选空间超过此大小时不再枚举，随机生成几乎不会重复 */
+    static final int MAX_CANDIDATES = 1 << 24;
+    /** 运算结果不满足题目约束的标记 */
+    private static final long INVALID = FractionMath.OVERFLOW;
+    private static final Expression.OperatorType[] OPERATORS = Expression.OperatorType.values();
+    /** 按运算符个数（1-3个）分层抽样的层数 */
+    private static final int STRATA = 3;
+
+    private final OperandTable table;
+    private final int range;
+    private final SplittableRandom random;
+    /** 第0层为操作数，第1、2层为完整枚举的子树 */
+    private final Level[] levels = new Level[3];
+    /** 3个运算符的候选块 */
+    private final Block[] blocks;
+    /** 各块在候选空间中的起始位置 */
+    private final int[] blockStarts;
+    private final int candidateCount;
+    /** 一定合法的表达式数量（1、2个运算符的子树加上3个运算符的加法和乘法） */
+    private final long guaranteedCount;
+    private long exactCount = -1;
+
+    /** 第i层（i+1个运算符）在候选空间中占[strataStarts[i], strataStarts[i + 1]) */
+    private final int[] strataStarts = new int[STRATA + 1];
+    /** 各层部分Fisher-Yates洗牌的位置，各层的区间互不相交，共用一个交换表 */
+    private final int[] cursors = new int[STRATA];
+    private final SwapMap swaps = new SwapMap();
+    private long drawn;
+    private long rejected;
+
+    private ExpressionEnumerator(OperandTable table, SplittableRandom random, Level[] levels, Block[] blocks) {
+        this.table = table;
+        this.range = table.getRange();
+        this.random = random;
+        System.arraycopy(levels, 0, this.levels, 0, levels.length);
+        this.blocks = blocks;
+        this.blockStarts = new int[blocks.length + 1];
+        int position = levels[1].size + levels[2].size;
+        for (int i = 0; i < blocks.length; i++) {
+            blockStarts[i] = position;
+            position += (int) blocks[i].size;
+        }
+        blockStarts[blocks.length] = position;
+        this.candidateCount = position;
+        strataStarts[1] = levels[1].size;
+        strataStarts[2] = levels[1].size + levels[2].size;
+        strataStarts[3] = position;
+        System.arraycopy(strataStarts, 0, cursors, 0, STRATA);
+        // 合法子树的和与积一定合法
+        this.guaranteedCount = (long) levels[1].size + levels[2].size + commutativeSize(blocks);
+    }
+
+    /**
+     * 为数值范围创建枚举器
+     * @return 候选空间太大、不适合枚举时返回null
+     */
+    public static ExpressionEnumerator create(int range, SplittableRandom random) {
+        OperandTable table = OperandTable.forRange(range);
+        if (table == null) {
+            // 操作数多到不建共享表的范围更不可能枚举
+            return null;
+        }
+        Level[] levels = new Level[3];
+        levels[0] = operands(table);
+        int[] sizes = new int[3];
+        sizes[0] = levels[0].size;
+        for (int level = 1; level <= 2; level++) {
+            Block[] levelBlocks = blocks(sizes, level);
+            if (totalSize(levelBlocks) > MAX_CANDIDATES) {
+                return null;
+            }
+            if (level == 2) {
+                // 第2层至少包含所有加法和乘法，以此估计第3层的下界，明显太大时不必枚举第2层
+                sizes[2] = (int) commutativeSize(levelBlocks);
+                if (totalSize(blocks(sizes, 3)) > MAX_CANDIDATES) {
+                    return null;
+                }
+            }
+            levels[level] = enumerate(levels, levelBlocks);
+            sizes[level] = levels[level].size;
+        }
+        Block[] top = blocks(sizes, 3);
+        if (totalSize(top) + sizes[1] + sizes[2] > MAX_CANDIDATES) {
+            return null;
+        }
+        return new ExpressionEnumerator(table, random, levels, top);
+    }
+
+    /**
+     * 候选空间的大小（包括会被剪掉的3个运算符的减法和除法）
+     */
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * 不同的合法表达式总数（加法和乘法交换操作数视为同一题）
+     * 第一次调用时遍历3个运算符的减法和除法块计数
+     */
+    public long getExpressionCount() {
+        if (exactCount < 0) {
+            long count = guaranteedCount;
+            for (Block block : blocks) {
+                if (!block.operator.isCommutative()) {
+                    count += block.countValid(levels);
+                }
+            }
+            exactCount = count;
+        }
+        return exactCount;
+    }
+
+    /**
+     * 还有多少个表达式没有被抽取
+     */
+    public long getRemainingCount() {
+        return getExpressionCount() - drawn;
+    }
+
+    /**
+     * 剩余的表达式是否至少有count个，只有一定合法的部分不够时才精确计数
+     */
+    public boolean hasAtLeast(long count) {
+        return guaranteedCount - drawn >= count || getRemainingCount() >= count;
+    }
+
+    /**
+     * 抽取到目前为止被剪掉的候选数量
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * 检查剩余的表达式是否足够
+     * @throws RuntimeException 剩余的表达式不足count个时抛出，并给出确切数量
+     */
+    public void checkCapacity(int count) {
+        if (!hasAtLeast(count)) {
+            throw new RuntimeException("无法生成" + count + "个不重复的表达式，数值范围" + range + "内只有" +
+                    getRemainingCount() + "个不同的表达式，请尝试增加数值范围");
+        }
+    }
+
+    /**
+     * 不放回地随机抽取count个不同的表达式
+     * @throws RuntimeException 剩余的表达式不足count个时立即抛出，并给出确切数量
+     */
+    public List<Expression> sample(int count) {
+        checkCapacity(count);
+        List<Expression> expressions = new ArrayList<>(count);
+        while (expressions.size() < count) {
+            expressions.add(next());
+        }
+        return expressions;
+    }
+
+    /**
+     * 不放回地随机抽取下一个表达式
+     * 先在还有候选的层中等概率选择运算符个数，再在这一层中抽取；3个运算符的候选被剪掉时在同一层中继续抽取
+     * @return 所有表达式都已抽取时返回null
+     */
+    public Expression next() {
+        while (true) {
+            int stratum = chooseStratum();
+            if (stratum < 0) {
+                return null;
+            }
+            int end = strataStarts[stratum + 1];
+            while (cursors[stratum] < end) {
+                // 部分Fisher-Yates：把[cursor, end)中随机一个位置换到cursor
+                int cursor = cursors[stratum]++;
+                int chosen = cursor + random.nextInt(end - cursor);
+                int candidate = swaps.get(chosen);
+                int current = swaps.remove(cursor);
+                if (chosen != cursor) {
+                    swaps.put(chosen, current);
+                }
+
+                Expression.ExpressionNode root = build(candidate);
+                if (root != null) {
+                    drawn++;
+                    return new Expression(root);
+                }
+                rejected++;
+            }
+        }
+    }
+
+    /**
+     * 在还有候选的层中等概率选择一层，与{@link ExpressionGenerator}随机决定运算符个数的方式一致
+     * @return 所有层都已抽完时返回-1
+     */
+    private int chooseStratum() {
+        int available = 0;
+        for (int i = 0; i < STRATA; i++) {
+            if (cursors[i] < strataStarts[i + 1]) {
+                available++;
+            }
+        }
+        if (available == 0) {
+            return -1;
+        }
+        int choice = random.nextInt(available);
+        for (int i = 0; ; i++) {
+            if (cursors[i] < strataStarts[i + 1] && choice-- == 0) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * 构造候选空间中第candidate个表达式，不合法时返回null
+     */
+    private Expression.ExpressionNode build(int candidate) {
+        int twoOperators = levels[1].size + levels[2].size;
+        if (candidate < levels[1].size) {
+            return build(1, candidate);
+        }
+        if (candidate < twoOperators) {
+            return build(2, candidate - levels[1].size);
+        }
+        int low = 0;
+        int high = blocks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blockStarts[mid] <= candidate) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        Block block = blocks[low];
+        long pair = block.pair(candidate - blockStarts[low]);
+        int left = (int) (pair >>> 32);
+        int right = (int) pair;
+        long value = combine(block.operator, levels[block.leftLevel].values[left], levels[block.rightLevel].values[right]);
+        if (value == INVALID) {
+            return null;
+        }
+        return new Expression.OperatorNode(block.operator, build(block.leftLevel, left), build(block.rightLevel, right));
+    }
+
+    /**
+     * 构造第level层的第index个子树
+     */
+    private Expression.ExpressionNode build(int level, int index) {
+        Level entries = levels[level];
+        if (level == 0) {
+            return table.node(index);
+        }
+        int leftLevel = entries.leftLevels[index];
+        return new Expression.OperatorNode(entries.operators[index],
+                build(leftLevel, entries.lefts[index]), build(level - 1 - leftLevel, entries.rights[index]));
+    }
+
+    /**
+     * 不抛出异常地执行一次运算，规则与{@link Expression.OperatorNode}一致，不满足约束时返回INVALID
+     */
+    static long combine(Expression.OperatorType operator, long left, long right) {
+        long result = Expression.OperatorNode.check(operator, left, right);
+        // 可枚举的范围内不会溢出，溢出的结果和违反约束的结果一样剪掉
+        return FractionMath.isOverflow(result) ? INVALID : result;
+    }
+
+    /**
+     * 数值范围内所有不同的操作数，编号与{@link OperandTable}一致
+     */
+    private static Level operands(OperandTable table) {
+        Level level = new Level(table.size());
+        for (int id = 0; id < table.size(); id++) {
+            level.add(table.value(id), null, 0, 0, 0);
+        }
+        return level;
+    }
+
+    /**
+     * 第level层的候选块：每个运算符和左右子树层的组合一块，加法和乘法只取左子树层不大于右子树层的组合
+     */
+    private static Block[] blocks(int[] sizes, int level) {
+        List<Block> blocks = new ArrayList<>();
+        for (Expression.OperatorType operator : OPERATORS) {
+            for (int leftLevel = 0; leftLevel < level; leftLevel++) {
+                int rightLevel = level - 1 - leftLevel;
+                if (operator.isCommutative() && leftLevel > rightLevel) {
+                    continue;
+                }
+                blocks.add(new Block(operator, leftLevel, rightLevel, sizes[leftLevel], sizes[rightLevel]));
+            }
+        }
+        return blocks.toArray(new Block[0]);
+    }
+
+    private static long totalSize(Block[] blocks) {
+        long total = 0;
+        for (Block block : blocks) {
+            total += block.size;
+        }
+        return total;
+    }
+
+    private static long commutativeSize(Block[] blocks) {
+        long total = 0;
+        for (Block block : blocks) {
+            if (block.operator.isCommutative()) {
+                total += block.size;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 遍历所有候选块，保留合法的子树
+     */
+    private static Level enumerate(Level[] levels, Block[] blocks) {
+        Level level = new Level((int) Math.min(totalSize(blocks), 1 << 16));
+        for (Block block : blocks) {
+            long[] leftValues = levels[block.leftLevel].values;
+            long[] rightValues = levels[block.rightLevel].values;
+            for (long i = 0; i < block.size; i++) {
+                long pair = block.pair(i);
+                int left = (int) (pair >>> 32);
+                int right = (int) pair;
+                long value = combine(block.operator, leftValues[left], rightValues[right]);
+                if (value != INVALID) {
+                    level.add(value, block.operator, block.leftLevel, left, right);
+                }
+            }
+        }
+        return level;
+    }
+
+    /**
+     * 一层子树，以扁平数组保存值和构造方式
+     */
+    private static final class Level {
+        long[] values;
+        Expression.OperatorType[] operators;
+        byte[] leftLevels;
+        int[] lefts;
+        int[] rights;
+        int size;
+
+        Level(int capacity) {
+            values = new long[capacity];
+            operators = new Expression.OperatorType[capacity];
+            leftLevels = new byte[capacity];
+            lefts = new int[capacity];
+            rights = new int[capacity];
+        }
+
+        void add(long value, Expression.OperatorType operator, int leftLevel, int left, int right) {
+            if (size == values.length) {
+                int capacity = Math.max(16, size * 2);
+                values = Arrays.copyOf(values, capacity);
+                operators = Arrays.copyOf(operators, capacity);
+                leftLevels = Arrays.copyOf(leftLevels, capacity);
+                lefts = Arrays.copyOf(lefts, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+            }
+            values[size] = value;
+            operators[size] = operator;
+            leftLevels[size] = (byte) leftLevel;
+            lefts[size] = left;
+            rights[size] = right;
+            size++;
+        }
+    }
+
+    /**
+     * 一个候选块：运算符固定，左右子树分别取自两层
+     * 交换律运算且左右同层时只取i <= j的无序对
+     */
+    private static final class Block {
+        final Expression.OperatorType operator;
+        final int leftLevel;
+        final int rightLevel;
+        final int rightSize;
+        final boolean unordered;
+        final long size;
+
+        Block(Expression.OperatorType operator, int leftLevel, int rightLevel, int leftSize, int rightSize) {
+            this.operator = operator;
+            this.leftLevel = leftLevel;
+            this.rightLevel = rightLevel;
+            this.rightSize = rightSize;
+            this.unordered = operator.isCommutative() && leftLevel == rightLevel;
+            this.size = unordered ? (long) leftSize * (leftSize + 1) / 2 : (long) leftSize * rightSize;
+        }
+
+        /**
+         * 块内第index个候选的左右子树下标，打包为(left << 32 | right)
+         */
+        long pair(long index) {
+            int left;
+            int right;
+            if (unordered) {
+                // 按right分行，第right行有right+1个无序对(0..right, right)
+                right = (int) ((Math.sqrt(8.0 * index + 1) - 1) / 2);
+                while ((long) right * (right + 1) / 2 > index) {
+                    right--;
+                }
+                while ((long) (right + 1) * (right + 2) / 2 <= index) {
+                    right++;
+                }
+                left = (int) (index - (long) right * (right + 1) / 2);
+            } else {
+                left = (int) (index / rightSize);
+                right = (int) (index % rightSize);
+            }
+            return (long) left << 32 | right;
+        }
+
+        int countValid(Level[] levels) {
+            long[] leftValues = levels[leftLevel].values;
+            long[] rightValues = levels[rightLevel].values;
+            int count = 0;
+            for (long i = 0; i < size; i++) {
+                long pair = pair(i);
+                if (combine(operator, leftValues[(int) (pair >>> 32)], rightValues[(int) pair]) != INVALID) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 部分Fisher-Yates洗牌中被交换过的位置，未出现的位置保持原值
+     * 开放寻址的int到int映射，占用与已抽取数量成正比而与候选空间大小无关
+     */
+    private static final class SwapMap {
+        private static final long EMPTY = 0L;
+        private long[] table = new long[64];
+        private int mask = 63;
+        private int size;
+
+        int get(int key) {
+            for (int index = slot(key); ; index = (index + 1) & mask) {
+                long entry = table[index];
+                if (entry == EMPTY) {
+                    return key;
+                }
+                if (keyOf(entry) == key) {
+                    return (int) entry;
+                }
+            }
+        }
+
+        /**
+         * 删除key并返回它的值（不存在时返回key本身）
+         * 线性探测删除后把后续的元素重新放置，保持探测链完整
+         */
+        int remove(int key) {
+            int index = slot(key);
+            while (true) {
+                long entry = table[index];
+                if (entry == EMPTY) {
+                    return key;
+                }
+                if (keyOf(entry) == key) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            int value = (int) table[index];
+            table[index] = EMPTY;
+            size--;
+            for (int next = (index + 1) & mask; table[next] != EMPTY; next = (next + 1) & mask) {
+                long entry = table[next];
+                table[next] = EMPTY;
+                size--;
+                insert(entry);
+            }
+            return value;
+        }
+
+        void put(int key, int value) {
+            if (key == value) {
+                remove(key);
+                return;
+            }
+            if (size * 2 >= table.length) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                mask = table.length - 1;
+                size = 0;
+                for (long entry : old) {
+                    if (entry != EMPTY) {
+                        insert(entry);
+                    }
+                }
+            }
+            int index = slot(key);
+            while (table[index] != EMPTY) {
+                if (keyOf(table[index]) == key) {
+                    table[index] = entry(key, value);
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            table[index] = entry(key, value);
+            size++;
+        }
+
+        private void insert(long entry) {
+            int index = slot(keyOf(entry));
+            while (table[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            table[index] = entry;
+            size++;
+        }
+
+        private int slot(int key) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ hash >>> 16) & mask;
+        }
+
+        /** 键加1后存放在高32位，保证有效条目不等于EMPTY */
+        private static long entry(int key, int value) {
+            return (long) (key + 1) << 32 | (value & 0xFFFFFFFFL);
+        }
+
+        private static int keyOf(long entry) {
+            return (int) (entry >>> 32) - 1;
+        }
+    }
+}
@@ -6,36 +6,102 @@ import java.util.*;
  * 表达式生成器，用于生成四则运算题目
  */
 public class ExpressionGenerator {
+    private static final Expression.OperatorType[] OPERATORS = Expression.OperatorType.values();
+    
     private final int range;
-    private final Random random;
-    private final Set<String> generatedExpressions;
+    private SplittableRandom random;
+    private final LongHashSet generatedExpressions; // 已生成表达式的结构指纹
+    private Map<Long, List<Expression>> verifiedExpressions; // 冲突校验模式下按指纹保存的表达式
+    private int collisionCount;
+    private ExpressionEnumerator enumerator; // 小数值范围下的枚举器，首次使用时创建
+    private boolean enumeratorChecked;
+    private long subtreeValue; // 最近构造的子树的值
+    private boolean adjusted; // 最近生成的表达式是否有运算按约束调整过
+    private final OperandTable operands; // 共享的操作数节点，范围太大时为null
+    private OperandTable.SubtreeCache subtreeCache; // 可选的单运算结果缓存
     
     public ExpressionGenerator(int range) {
+        this(range, new SplittableRandom());
+    }
+    
+    /**
+     * 使用指定的随机数流创建生成器，相同种子的流生成相同的表达式序列
+     */
+    public ExpressionGenerator(int range, SplittableRandom random) {
         this.range = range;
-        this.random = new Random();
-        this.generatedExpressions = new HashSet<>();
+        this.random = random;
+        this.generatedExpressions = new LongHashSet();
+        this.operands = OperandTable.forRange(range);
+    }
+    
+    /**
+     * 设置是否缓存两个操作数之间单个运算的结果
+     * 启用后同一(运算符, 左操作数, 右操作数)组合只计算一次；数值范围太大、缓存放不下时不启用
+     * 只有两个操作数都是共享操作数的单运算子树会命中缓存，含两个及以上运算符的子树仍逐层检查
+     */
+    public void setSubtreeCache(boolean enabled) {
+        this.subtreeCache = enabled && operands != null ? operands.newSubtreeCache() : null;
+    }
+    
+    /**
+     * 换用新的随机数流，共享的操作数表和单运算结果缓存保持不变
+     * 并行生成时同一个生成器依次生成由不同种子确定的批次
+     */
+    void reseed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+    
+    /**
+     * 单运算结果缓存，未启用时为null
+     */
+    OperandTable.SubtreeCache getSubtreeCache() {
+        return subtreeCache;
+    }
+    
+    /**
+     * 设置是否启用指纹冲突校验
+     * 启用后指纹相同的表达式会再做一次完整的结构比较，只有真正重复才会被丢弃
+     */
+    public void setVerifyCollisions(boolean verifyCollisions) {
+        this.verifiedExpressions = verifyCollisions ? new HashMap<>() : null;
+    }
+    
+    /**
+     * 冲突校验模式下发现的指纹冲突次数（指纹相同但结构不同）
+     */
+    public int getCollisionCount() {
+        return collisionCount;
+    }
+    
+    /**
+     * 小数值范围下的表达式枚举器，表达式空间太大、不适合枚举时返回null
+     */
+    ExpressionEnumerator getEnumerator() {
+        if (!enumeratorChecked) {
+            enumerator = ExpressionEnumerator.create(range, random);
+            enumeratorChecked = true;
+        }
+        return enumerator;
     }
     
     /**
      * 生成指定数量的不重复表达式
+     * 数值范围很小时改为枚举所有不同的表达式并不放回地抽样，空间不够时立即报告确切数量
      */
     public List<Expression> generateExpressions(int count) {
+        if (getEnumerator() != null) {
+            return sampleExpressions(count);
+        }
+        
         List<Expression> expressions = new ArrayList<>();
         int attempts = 0;
         int maxAttempts = count * 100; // 设置最大尝试次数，避免无限循环
         
         while (expressions.size() < count && attempts < maxAttempts) {
-            try {
-                Expression expr = generateSingleExpression();
-                String canonicalForm = expr.getCanonicalForm();
-                
-                // 检查是否重复
-                if (!generatedExpressions.contains(canonicalForm)) {
-                    expressions.add(expr);
-                    generatedExpressions.add(canonicalForm);
-                }
-            } catch (ArithmeticException e) {
-                // 忽略无效表达式（如除以零、负数结果等）
+            // 构造出的表达式总是合法的，只需检查是否重复
+            Expression expr = generateSingleExpression();
+            if (isNewExpression(expr)) {
+                expressions.add(expr);
             }
             
             attempts++;
@@ -48,47 +114,169 @@ public class ExpressionGenerator {
         return expressions;
     }
     
+    /**
+     * 从枚举器中不放回地抽取表达式
+     */
+    private List<Expression> sampleExpressions(int count) {
+        // 抽样前就知道空间是否足够，不够时不做任何无用的尝试
+        enumerator.checkCapacity(count);
+        List<Expression> expressions = new ArrayList<>(count);
+        while (expressions.size() < count) {
+            Expression expr = enumerator.next();
+            if (expr == null) {
+                throw new RuntimeException("无法生成" + count + "个不重复的表达式，数值范围" + range +
+                        "内的表达式已全部生成，请尝试增加数值范围");
+            }
+            // 枚举结果互不重复，这里只是与随机生成的表达式一起登记
+            if (isNewExpression(expr)) {
+                expressions.add(expr);
+            }
+        }
+        return expressions;
+    }
+    
+    /**
+     * 登记表达式，如果与已生成的表达式重复则返回false
+     */
+    private boolean isNewExpression(Expression expr) {
+        long fingerprint = expr.getFingerprint();
+        boolean added = generatedExpressions.add(fingerprint);
+        if (verifiedExpressions == null) {
+            return added;
+        }
+        
+        List<Expression> candidates = verifiedExpressions.computeIfAbsent(fingerprint, k -> new ArrayList<>(1));
+        for (Expression existing : candidates) {
+            if (existing.isEquivalent(expr)) {
+                return false;
+            }
+        }
+        if (!added) {
+            // 指纹相同但结构不同，属于真正的哈希冲突
+            collisionCount++;
+        }
+        candidates.add(expr);
+        return true;
+    }
+    
     /**
      * 生成单个表达式
+     * 表达式树自底向上构造，每个运算都按{@link EvaluationStatus}调整，构造出的表达式总是合法的，不会抛出异常
      */
     Expression generateSingleExpression() {
         // 随机决定运算符的数量（1-3个）
         int operatorCount = random.nextInt(3) + 1;
+        adjusted = false;
         
-        // 生成表达式树
-        Expression.ExpressionNode root = generateExpressionTree(operatorCount);
-        
-        // 验证表达式是否有效（计算一次，如果有问题会抛出异常）
-        root.evaluate();
-        
-        return new Expression(root);
+        return new Expression(generateExpressionTree(operatorCount));
+    }
+    
+    /**
+     * 最近生成的表达式在构造时是否违反过约束：某个运算交换了操作数或更换了运算符才变得合法
+     * 按原样随机抽取时这样的候选会被丢弃，并行生成把它们记为无效尝试
+     */
+    boolean wasAdjusted() {
+        return adjusted;
     }
     
     /**
-     * 生成表达式树
+     * 自底向上生成合法的表达式树，树的值（打包形式，溢出时为OVERFLOW）留在subtreeValue中
      */
     private Expression.ExpressionNode generateExpressionTree(int operatorCount) {
         if (operatorCount == 0) {
-            return generateNumberNode();
+            Expression.NumberNode number = generateNumberNode();
+            subtreeValue = number.evaluatePacked();
+            return number;
         }
         
         // 随机决定左子树的运算符数量
         int leftOperatorCount = random.nextInt(operatorCount);
         int rightOperatorCount = operatorCount - 1 - leftOperatorCount;
         
-        Expression.ExpressionNode left = leftOperatorCount > 0 ? 
-                generateExpressionTree(leftOperatorCount) : generateNumberNode();
-        Expression.ExpressionNode right = rightOperatorCount > 0 ? 
-                generateExpressionTree(rightOperatorCount) : generateNumberNode();
+        Expression.ExpressionNode left = generateExpressionTree(leftOperatorCount);
+        long leftValue = subtreeValue;
+        Expression.ExpressionNode right = generateExpressionTree(rightOperatorCount);
+        long rightValue = subtreeValue;
         
-        // 随机选择运算符
+        // 随机选择运算符，按求值状态调整而不是丢弃整棵树
         Expression.OperatorType operator = getRandomOperator();
-        
+        long value = check(operator, left, leftValue, right, rightValue);
+        switch (EvaluationStatus.of(value)) {
+            case NEGATIVE_SUBTRACTION:
+            case IMPROPER_QUOTIENT:
+                // 被减数较小或被除数较大，交换操作数后一定合法
+                adjusted = true;
+                return operatorNode(operator, right, rightValue, left, leftValue);
+            case DIVIDE_BY_ZERO:
+                adjusted = true;
+                if (FractionMath.numerator(leftValue) == 0) {
+                    // 0 ÷ 0 无论怎样都不合法，改用其他运算符
+                    return operatorNode(getRandomNonDivideOperator(), left, leftValue, right, rightValue);
+                }
+                return operatorNode(operator, right, rightValue, left, leftValue);
+            case OVERFLOW:
+                return combineExact(operator, left, right);
+            default:
+                subtreeValue = value;
+                return new Expression.OperatorNode(operator, left, right);
+        }
+    }
+    
+    /**
+     * 以已经确定合法的运算符和操作数创建节点，结果可能是溢出标记但不会违反约束
+     */
+    private Expression.ExpressionNode operatorNode(Expression.OperatorType operator,
+                                                   Expression.ExpressionNode left, long leftValue,
+                                                   Expression.ExpressionNode right, long rightValue) {
+        subtreeValue = check(operator, left, leftValue, right, rightValue);
+        return new Expression.OperatorNode(operator, left, right);
+    }
+    
+    /**
+     * 检查一次运算，两个操作数都是共享节点且启用了缓存时从缓存中读取
+     * 操作数本身是运算子树时没有编号，不查缓存
+     */
+    private long check(Expression.OperatorType operator, Expression.ExpressionNode left, long leftValue,
+                       Expression.ExpressionNode right, long rightValue) {
+        if (subtreeCache != null && left instanceof Expression.NumberNode && right instanceof Expression.NumberNode) {
+            return subtreeCache.check(operator,
+                    ((Expression.NumberNode) left).getId(), ((Expression.NumberNode) right).getId());
+        }
+        return Expression.OperatorNode.check(operator, leftValue, rightValue);
+    }
+    
+    /**
+     * 子树的值超出快速路径时，在Fraction上按同样的规则调整
+     */
+    private Expression.ExpressionNode combineExact(Expression.OperatorType operator,
+                                                   Expression.ExpressionNode left, Expression.ExpressionNode right) {
+        Fraction leftValue = left.evaluate();
+        Fraction rightValue = right.evaluate();
+        switch (Expression.OperatorNode.checkExact(operator, leftValue, rightValue)) {
+            case NEGATIVE_SUBTRACTION:
+            case IMPROPER_QUOTIENT:
+                adjusted = true;
+                return exactOperatorNode(operator, right, rightValue, left, leftValue);
+            case DIVIDE_BY_ZERO:
+                adjusted = true;
+                if (leftValue.getBigNumerator().signum() == 0) {
+                    return exactOperatorNode(getRandomNonDivideOperator(), left, leftValue, right, rightValue);
+                }
+                return exactOperatorNode(operator, right, rightValue, left, leftValue);
+            default:
+                return exactOperatorNode(operator, left, leftValue, right, rightValue);
+        }
+    }
+    
+    private Expression.ExpressionNode exactOperatorNode(Expression.OperatorType operator,
+                                                        Expression.ExpressionNode left, Fraction leftValue,
+                                                        Expression.ExpressionNode right, Fraction rightValue) {
+        subtreeValue = Expression.OperatorNode.applyExact(operator, leftValue, rightValue).toPacked();
         return new Expression.OperatorNode(operator, left, right);
     }
     
     /**
-     * 生成数值节点
+     * 生成数值节点，数值范围不太大时直接取共享的节点
      */
     private Expression.NumberNode generateNumberNode() {
         // 随机决定是生成自然数还是真分数
@@ -100,11 +288,12 @@ public class ExpressionGenerator {
             int numerator = random.nextInt(denominator); // 分子范围 [0, denominator)
             if (numerator == 0) numerator = 1; // 确保分子不为0
             
-            return new Expression.NumberNode(new Fraction(numerator, denominator));
+            return operands != null ? operands.fraction(numerator, denominator)
+                    : new Expression.NumberNode(new Fraction(numerator, denominator));
         } else {
             // 生成自然数
             int value = random.nextInt(range); // 范围 [0, range)
-            return new Expression.NumberNode(new Fraction(value));
+            return operands != null ? operands.natural(value) : new Expression.NumberNode(new Fraction(value));
         }
     }
     
@@ -112,7 +301,13 @@ public class ExpressionGenerator {
      * 随机获取一个运算符
      */
     private Expression.OperatorType getRandomOperator() {
-        Expression.OperatorType[] operators = Expression.OperatorType.values();
-        return operators[random.nextInt(operators.length)];
+        return OPERATORS[random.nextInt(OPERATORS.length)];
+    }
+    
+    /**
+     * 随机获取加、减、乘中的一个运算符（0 ÷ 0时使用）
+     */
+    private Expression.OperatorType getRandomNonDivideOperator() {
+        return OPERATORS[random.nextInt(OPERATORS.length - 1)];
     }
 }
\ No newline at end of file
@@ -1,229 +1,338 @@
 package org.example;
 
-import java.util.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * 表达式解析器，用于将字符串形式的表达式解析为表达式对象
+ * 直接在CharSequence或UTF-8字节窗口[offset, offset + length)上按位置扫描，
+ * 数字按位累加，不创建子串；末尾的“=”会被忽略，因此可以直接解析题目文件中的行
+ * 解析结果既可以构造为表达式树，也可以直接以后缀形式写入{@link CompiledExpressions}
  */
 public class ExpressionParser {
-    private String expression;
+    /** 输入结束 */
+    private static final int END = -1;
+    /** 无法识别的非ASCII字节 */
+    private static final int UNKNOWN = 0xFFFF;
+
+    private CharSequence chars;       // 字符输入
+    private ByteBuffer bytes;         // UTF-8字节输入
     private int position;
-    
+    private int end;
+    private int width;                // 当前符号占用的字节数
+
+    private CompiledExpressions target;               // 不为null时直接输出后缀指令
+    private Expression.ExpressionNode[] nodes = new Expression.ExpressionNode[16];
+    private int nodeCount;
+
     /**
      * 解析表达式字符串
      */
-    public Expression parse(String expressionStr) {
-        if (expressionStr == null || expressionStr.trim().isEmpty()) {
+    public Expression parse(CharSequence expressionStr) {
+        if (expressionStr == null) {
+            throw new IllegalArgumentException("表达式不能为空");
+        }
+        return parse(expressionStr, 0, expressionStr.length());
+    }
+
+    /**
+     * 解析字符序列中[offset, offset + length)范围内的表达式
+     */
+    public Expression parse(CharSequence expressionStr, int offset, int length) {
+        setInput(expressionStr, null, offset, length);
+        return parseTree();
+    }
+
+    /**
+     * 解析UTF-8字节缓冲区中[offset, offset + length)范围内的表达式
+     */
+    public Expression parse(ByteBuffer buffer, int offset, int length) {
+        setInput(null, buffer, offset, length);
+        return parseTree();
+    }
+
+    /**
+     * 解析表达式并直接编译追加到compiled中，不创建任何节点对象
+     * 解析失败时compiled保持不变
+     */
+    public void parseInto(CharSequence expressionStr, int offset, int length, CompiledExpressions compiled) {
+        setInput(expressionStr, null, offset, length);
+        parseCompiled(compiled);
+    }
+
+    /**
+     * 解析UTF-8字节缓冲区中的表达式并直接编译追加到compiled中
+     * 解析失败时compiled保持不变
+     */
+    public void parseInto(ByteBuffer buffer, int offset, int length, CompiledExpressions compiled) {
+        setInput(null, buffer, offset, length);
+        parseCompiled(compiled);
+    }
+
+    private void setInput(CharSequence chars, ByteBuffer bytes, int offset, int length) {
+        this.chars = chars;
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    private Expression parseTree() {
+        target = null;
+        nodeCount = 0;
+        try {
+            parseAll();
+            return new Expression(nodes[0]);
+        } finally {
+            // 释放对输入和节点的引用
+            chars = null;
+            bytes = null;
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i] = null;
+            }
+        }
+    }
+
+    private void parseCompiled(CompiledExpressions compiled) {
+        target = compiled;
+        try {
+            parseAll();
+            compiled.endExpression();
+        } catch (RuntimeException e) {
+            compiled.discardExpression();
+            throw e;
+        } finally {
+            target = null;
+            chars = null;
+            bytes = null;
+        }
+    }
+
+    /**
+     * 解析整个输入：表达式，可选的“=”，然后必须到达末尾
+     */
+    private void parseAll() {
+        skipWhitespace();
+        int c = peek();
+        if (c == END || c == '=') {
             throw new IllegalArgumentException("表达式不能为空");
         }
-        
-        this.expression = expressionStr.trim();
-        this.position = 0;
-        
-        Expression.ExpressionNode root = parseExpression();
-        
-        // 允许表达式末尾有空格
+
+        parseExpression();
+
+        // 允许表达式末尾有空格和等号
         skipWhitespace();
-        
-        if (position < expression.length()) {
-            throw new IllegalArgumentException("表达式解析失败：未处理的字符: " + 
-                    expression.substring(position));
+        if (peek() == '=') {
+            position += width;
+            skipWhitespace();
+        }
+
+        if (position < end) {
+            throw new IllegalArgumentException("表达式解析失败：未处理的字符: " + remaining());
         }
-        
-        return new Expression(root);
     }
-    
+
     /**
      * 解析表达式
      */
-    private Expression.ExpressionNode parseExpression() {
-        Expression.ExpressionNode left = parseTerm();
-        
-        while (position < expression.length()) {
+    private void parseExpression() {
+        parseTerm();
+
+        while (true) {
             skipWhitespace(); // 先跳过空格，再检查运算符
-            
-            if (position >= expression.length()) {
-                break;
-            }
-            
-            char c = expression.charAt(position);
-            
-            if (c == '+' || c == '-') {
-                position++; // 跳过运算符
-                
-                // 跳过空格
-                skipWhitespace();
-                
-                Expression.ExpressionNode right = parseTerm();
-                Expression.OperatorType operator = c == '+' ? 
-                        Expression.OperatorType.ADD : Expression.OperatorType.SUBTRACT;
-                
-                left = new Expression.OperatorNode(operator, left, right);
-            } else {
+            int c = peek();
+            if (c != '+' && c != '-') {
                 break;
             }
+            position += width; // 跳过运算符
+            parseTerm();
+            emitOperator(c == '+' ? Expression.OperatorType.ADD : Expression.OperatorType.SUBTRACT);
         }
-        
-        return left;
     }
-    
+
     /**
      * 解析项（乘除法优先级）
      */
-    private Expression.ExpressionNode parseTerm() {
-        Expression.ExpressionNode left = parseFactor();
-        
-        while (position < expression.length()) {
+    private void parseTerm() {
+        parseFactor();
+
+        while (true) {
             skipWhitespace(); // 先跳过空格，再检查运算符
-            
-            if (position >= expression.length()) {
-                break;
-            }
-            
-            char c = expression.charAt(position);
-            
-            if (c == '×' || c == '÷') {
-                position++; // 跳过运算符
-                
-                // 跳过空格
-                skipWhitespace();
-                
-                Expression.ExpressionNode right = parseFactor();
-                Expression.OperatorType operator = c == '×' ? 
-                        Expression.OperatorType.MULTIPLY : Expression.OperatorType.DIVIDE;
-                
-                left = new Expression.OperatorNode(operator, left, right);
-            } else {
+            int c = peek();
+            if (c != '×' && c != '÷') {
                 break;
             }
+            position += width; // 跳过运算符
+            parseFactor();
+            emitOperator(c == '×' ? Expression.OperatorType.MULTIPLY : Expression.OperatorType.DIVIDE);
         }
-        
-        return left;
     }
-    
+
     /**
      * 解析因子（括号、数值）
      */
-    private Expression.ExpressionNode parseFactor() {
+    private void parseFactor() {
         skipWhitespace();
-        
-        char c = expression.charAt(position);
-        
-        if (c == '(') {
-            position++; // 跳过左括号
-            skipWhitespace();
-            
-            Expression.ExpressionNode node = parseExpression();
-            
+
+        if (peek() == '(') {
+            position += width; // 跳过左括号
+            parseExpression();
+
             skipWhitespace();
-            if (position >= expression.length() || expression.charAt(position) != ')') {
+            if (peek() != ')') {
                 throw new IllegalArgumentException("缺少右括号");
             }
-            position++; // 跳过右括号
-            
-            return node;
+            position += width; // 跳过右括号
         } else {
-            return parseNumber();
+            parseNumber();
         }
     }
-    
+
     /**
-     * 解析数值（自然数或真分数）
+     * 解析数值（自然数、真分数或带分数）
      */
-    private Expression.NumberNode parseNumber() {
-        skipWhitespace();
-        
-        StringBuilder sb = new StringBuilder();
-        boolean hasFraction = false;
-        boolean hasInteger = false;
-        
-        // 解析整数部分
-        while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
-            sb.append(expression.charAt(position));
-            position++;
-            hasInteger = true;
-        }
-        
-        // 检查是否是带分数
-        if (position < expression.length() && expression.charAt(position) == '\'' && hasInteger) {
-            int integerPart = Integer.parseInt(sb.toString());
-            position++; // 跳过单引号
-            
-            // 解析分数部分
-            int numerator = parseNumerator();
-            int denominator = parseDenominator();
-            
-            // 计算真分数值
-            int totalNumerator = integerPart * denominator + numerator;
-            return new Expression.NumberNode(new Fraction(totalNumerator, denominator));
-        }
-        
-        // 检查是否是真分数
-        if (position < expression.length() && expression.charAt(position) == '/' && hasInteger) {
-            int numerator = Integer.parseInt(sb.toString());
-            position++; // 跳过斜杠
-            
-            int denominator = parseDenominator();
-            return new Expression.NumberNode(new Fraction(numerator, denominator));
-        }
-        
-        // 是自然数
-        if (hasInteger) {
-            int value = Integer.parseInt(sb.toString());
-            return new Expression.NumberNode(new Fraction(value));
-        }
-        
-        throw new IllegalArgumentException("无效的数值表达式");
-    }
-    
-    /**
-     * 解析分子
-     */
-    private int parseNumerator() {
-        StringBuilder sb = new StringBuilder();
-        
-        while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
-            sb.append(expression.charAt(position));
-            position++;
-        }
-        
-        if (sb.length() == 0) {
-            throw new IllegalArgumentException("缺少分子");
-        }
-        
-        return Integer.parseInt(sb.toString());
-    }
-    
+    private void parseNumber() {
+        if (!isDigit(peek())) {
+            throw new IllegalArgumentException("无效的数值表达式");
+        }
+        long integerPart = parseDigits();
+
+        int c = peek();
+        if (c == '\'') {
+            // 带分数
+            position += width; // 跳过单引号
+            if (!isDigit(peek())) {
+                throw new IllegalArgumentException("缺少分子");
+            }
+            long numerator = parseDigits();
+            long denominator = parseDenominator();
+            emitOperand(integerPart * denominator + numerator, denominator);
+        } else if (c == '/') {
+            // 真分数
+            emitOperand(integerPart, parseDenominator());
+        } else {
+            // 自然数
+            emitOperand(integerPart, 1);
+        }
+    }
+
     /**
      * 解析分母
      */
-    private int parseDenominator() {
-        if (position >= expression.length() || expression.charAt(position) != '/') {
+    private long parseDenominator() {
+        if (peek() != '/') {
             throw new IllegalArgumentException("缺少分数符号");
         }
-        position++; // 跳过斜杠
-        
-        StringBuilder sb = new StringBuilder();
-        
-        while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
-            sb.append(expression.charAt(position));
-            position++;
-        }
-        
-        if (sb.length() == 0) {
+        position += width; // 跳过斜杠
+        if (!isDigit(peek())) {
             throw new IllegalArgumentException("缺少分母");
         }
-        
-        return Integer.parseInt(sb.toString());
+        return parseDigits();
     }
-    
+
+    /**
+     * 按位累加连续的数字
+     */
+    private long parseDigits() {
+        long value = 0;
+        int c;
+        while (isDigit(c = peek())) {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("数值超出范围");
+            }
+            position += width;
+        }
+        return value;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 输出一个操作数
+     */
+    private void emitOperand(long numerator, long denominator) {
+        if (numerator > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("数值超出范围");
+        }
+        long value = FractionMath.of((int) numerator, (int) denominator);
+        if (target != null) {
+            target.pushOperand(value);
+            return;
+        }
+        if (nodeCount == nodes.length) {
+            Expression.ExpressionNode[] grown = new Expression.ExpressionNode[nodes.length * 2];
+            System.arraycopy(nodes, 0, grown, 0, nodeCount);
+            nodes = grown;
+        }
+        nodes[nodeCount++] = new Expression.NumberNode(Fraction.fromPacked(value));
+    }
+
+    /**
+     * 输出一个运算符（两个操作数已经输出）
+     */
+    private void emitOperator(Expression.OperatorType operator) {
+        if (target != null) {
+            target.pushOperator(operator);
+            return;
+        }
+        Expression.ExpressionNode right = nodes[--nodeCount];
+        Expression.ExpressionNode left = nodes[nodeCount - 1];
+        nodes[nodeCount - 1] = new Expression.OperatorNode(operator, left, right);
+    }
+
+    /**
+     * 查看当前位置的符号并记录它的宽度，输入结束时返回{@link #END}
+     * 字节输入中×（C3 97）和÷（C3 B7）按一个符号处理
+     */
+    private int peek() {
+        if (position >= end) {
+            return END;
+        }
+        width = 1;
+        if (chars != null) {
+            return chars.charAt(position);
+        }
+        int b = bytes.get(position) & 0xFF;
+        if (b < 0x80) {
+            return b;
+        }
+        if (b == 0xC3 && position + 1 < end) {
+            int next = bytes.get(position + 1) & 0xFF;
+            if (next == 0x97) {
+                width = 2;
+                return '×';
+            }
+            if (next == 0xB7) {
+                width = 2;
+                return '÷';
+            }
+        }
+        return UNKNOWN;
+    }
+
     /**
      * 跳过空白字符
      */
     private void skipWhitespace() {
-        while (position < expression.length() && 
-               Character.isWhitespace(expression.charAt(position))) {
-            position++;
+        int c;
+        while ((c = peek()) != END && (c <= ' ' || (chars != null && Character.isWhitespace(c)))) {
+            position += width;
+        }
+    }
+
+    /**
+     * 剩余未解析的内容（只在出错时使用）
+     */
+    private String remaining() {
+        if (chars != null) {
+            return chars.subSequence(position, end).toString();
+        }
+        byte[] rest = new byte[end - position];
+        for (int i = 0; i < rest.length; i++) {
+            rest[i] = bytes.get(position + i);
         }
+        return new String(rest, StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
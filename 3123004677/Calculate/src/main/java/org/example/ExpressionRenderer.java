@@ -0,0 +1,173 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 表达式渲染器
+ * 一遍遍历表达式树，把题目文本直接写入StringBuilder或可重用的UTF-8字节缓冲区，不创建中间字符串。
+ * 括号在构造{@link Expression.OperatorNode}时已经确定；共享操作数（{@link OperandTable}中的节点）
+ * 的文本在建表时渲染一次，输出时只是复制字节，其余操作数按位写出数字
+ * 渲染器的缓冲区不是线程安全的，每个线程使用自己的渲染器
+ */
+public final class ExpressionRenderer {
+    private static final Expression.OperatorType[] OPERATORS = Expression.OperatorType.values();
+    /** 两侧带空格的运算符（UTF-8），按ordinal排列 */
+    private static final byte[][] OPERATOR_BYTES = new byte[OPERATORS.length][];
+    private static final String[] OPERATOR_TEXT = new String[OPERATORS.length];
+    private static final byte[] EQUALS_BYTES = {' ', '=', ' '};
+
+    static {
+        for (Expression.OperatorType operator : OPERATORS) {
+            OPERATOR_TEXT[operator.ordinal()] = " " + operator.getSymbol() + " ";
+            OPERATOR_BYTES[operator.ordinal()] = OPERATOR_TEXT[operator.ordinal()].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] buffer = new byte[128];
+    private int length;
+
+    /**
+     * 把表达式（包括末尾的" = "）追加到StringBuilder
+     */
+    public static void appendTo(StringBuilder sb, Expression expression) {
+        appendTo(sb, expression.getRoot());
+        sb.append(" = ");
+    }
+
+    /**
+     * 把子树追加到StringBuilder
+     */
+    public static void appendTo(StringBuilder sb, Expression.ExpressionNode node) {
+        if (node instanceof Expression.OperatorNode) {
+            Expression.OperatorNode operatorNode = (Expression.OperatorNode) node;
+            appendChild(sb, operatorNode.getLeft(), operatorNode.isLeftParenthesized());
+            sb.append(OPERATOR_TEXT[operatorNode.getOperator().ordinal()]);
+            appendChild(sb, operatorNode.getRight(), operatorNode.isRightParenthesized());
+        } else if (node instanceof Expression.NumberNode) {
+            long value = node.evaluatePacked();
+            if (((Expression.NumberNode) node).getTokenBytes() != null || FractionMath.isOverflow(value)) {
+                sb.append(node.toString());
+            } else {
+                FractionMath.appendTo(sb, value);
+            }
+        } else {
+            sb.append(node.toString());
+        }
+    }
+
+    private static void appendChild(StringBuilder sb, Expression.ExpressionNode child, boolean parenthesized) {
+        if (parenthesized) {
+            sb.append('(');
+            appendTo(sb, child);
+            sb.append(')');
+        } else {
+            appendTo(sb, child);
+        }
+    }
+
+    /**
+     * 把表达式（包括末尾的" = "）渲染为UTF-8字节
+     * @return 渲染器内部的缓冲区，有效长度为{@link #getLength()}，下一次渲染时会被覆盖
+     */
+    public byte[] render(Expression expression) {
+        length = 0;
+        writeNode(expression.getRoot());
+        write(EQUALS_BYTES);
+        return buffer;
+    }
+
+    /**
+     * 上一次渲染的字节数
+     */
+    public int getLength() {
+        return length;
+    }
+
+    private void writeNode(Expression.ExpressionNode node) {
+        if (node instanceof Expression.OperatorNode) {
+            Expression.OperatorNode operatorNode = (Expression.OperatorNode) node;
+            writeChild(operatorNode.getLeft(), operatorNode.isLeftParenthesized());
+            write(OPERATOR_BYTES[operatorNode.getOperator().ordinal()]);
+            writeChild(operatorNode.getRight(), operatorNode.isRightParenthesized());
+            return;
+        }
+        byte[] token = node instanceof Expression.NumberNode ? ((Expression.NumberNode) node).getTokenBytes() : null;
+        if (token != null) {
+            write(token);
+            return;
+        }
+        long value = node.evaluatePacked();
+        if (FractionMath.isOverflow(value) || !(node instanceof Expression.NumberNode)) {
+            write(node.toString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            writeFraction(value);
+        }
+    }
+
+    private void writeChild(Expression.ExpressionNode child, boolean parenthesized) {
+        if (parenthesized) {
+            writeByte('(');
+            writeNode(child);
+            writeByte(')');
+        } else {
+            writeNode(child);
+        }
+    }
+
+    /**
+     * 按{@link FractionMath#appendTo}的格式写出自然数、真分数或带分数
+     */
+    private void writeFraction(long fraction) {
+        int numerator = FractionMath.numerator(fraction);
+        int denominator = FractionMath.denominator(fraction);
+        if (denominator == 1) {
+            writeInt(numerator);
+        } else if (Math.abs(numerator) > denominator) {
+            writeInt(numerator / denominator);
+            writeByte('\'');
+            writeInt(Math.abs(numerator) % denominator);
+            writeByte('/');
+            writeInt(denominator);
+        } else {
+            writeInt(numerator);
+            writeByte('/');
+            writeInt(denominator);
+        }
+    }
+
+    private void writeInt(int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                write("-2147483648".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            writeByte('-');
+            value = -value;
+        }
+        int digits = Utf8ChannelWriter.digitCount(value);
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.example;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -10,6 +11,9 @@ public class FileHandler {
     private String EXERCISES_FILE = "Exercises.txt";
     private String ANSWERS_FILE = "Answers.txt";
     private String GRADE_FILE = "Grade.txt";
+    private boolean writeAnswerKey;
+    private boolean binaryFormat;
+    private Compression compression = Compression.NONE;
     
     public FileHandler() {
         // 默认构造函数
@@ -19,11 +23,11 @@ public class FileHandler {
      * 写入表达式到文件
      */
     public void writeExpressions(List<Expression> expressions) throws IOException {
-        File file = new File(EXERCISES_FILE);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+        ExpressionRenderer renderer = new ExpressionRenderer();
+        try (Utf8ChannelWriter writer = openWriter(EXERCISES_FILE)) {
             for (int i = 0; i < expressions.size(); i++) {
-                writer.write((i + 1) + ". " + expressions.get(i).toString());
-                writer.newLine();
+                byte[] exercise = renderer.render(expressions.get(i));
+                writer.writeNumberedLine(i + 1, exercise, 0, renderer.getLength());
             }
         }
     }
@@ -32,31 +36,135 @@ public class FileHandler {
      * 写入答案到文件
      */
     public void writeAnswers(List<String> answers) throws IOException {
-        File file = new File(ANSWERS_FILE);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+        try (Utf8ChannelWriter writer = openWriter(ANSWERS_FILE)) {
             for (int i = 0; i < answers.size(); i++) {
-                writer.write((i + 1) + ". " + answers.get(i));
-                writer.newLine();
+                writer.writeNumberedLine(i + 1, answers.get(i));
             }
         }
     }
     
+    /**
+     * 在同一遍中写入题目和答案文件
+     */
+    public void writeExercisesAndAnswers(List<Expression> expressions, List<String> answers) throws IOException {
+        try (ExerciseOutput output = openExerciseOutput()) {
+            for (int i = 0; i < expressions.size(); i++) {
+                output.write(expressions.get(i), answers.get(i));
+            }
+        }
+    }
+    
+    /**
+     * 打开题目和答案的流式写入器，用于边生成边写入
+     * 不压缩时两个文件旁同时写出行索引，之后可以用{@link #readExercises(String, int, int)}直接读取任意一段
+     */
+    public ExerciseWriter openExerciseWriter() throws IOException {
+        String exercisesFile = getExercisesFile();
+        boolean uncompressed = compressionFor(EXERCISES_FILE) == Compression.NONE
+                && compressionFor(ANSWERS_FILE) == Compression.NONE;
+        return new ExerciseWriter(exercisesFile, getAnswersFile(),
+                writeAnswerKey ? AnswerKey.sidecarPath(exercisesFile) : null, uncompressed, compression);
+    }
+    
+    /**
+     * 设置写出的文本文件（题目、答案和评分结果）的压缩方式，压缩时文件名加上.gz
+     * 不设置时按文件名选择：以.gz结尾的文件使用gzip压缩
+     */
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+    
+    /**
+     * 实际写出的题目文件路径（压缩时带.gz）
+     */
+    public String getExercisesFile() {
+        return compression.apply(EXERCISES_FILE);
+    }
+    
+    /**
+     * 实际写出的答案文件路径（压缩时带.gz）
+     */
+    public String getAnswersFile() {
+        return compression.apply(ANSWERS_FILE);
+    }
+    
+    /**
+     * 实际写出的评分结果文件路径（压缩时带.gz）
+     */
+    public String getGradeFile() {
+        return compression.apply(GRADE_FILE);
+    }
+    
+    private Compression compressionFor(String filePath) {
+        return compression != Compression.NONE ? compression : Compression.forPath(filePath);
+    }
+    
+    /**
+     * 按当前的压缩方式打开文本文件的写入器
+     */
+    private Utf8ChannelWriter openWriter(String filePath) throws IOException {
+        return new Utf8ChannelWriter(compression.apply(filePath), compressionFor(filePath));
+    }
+    
+    /**
+     * 以UTF-8打开文本文件的读取器（与写入时的编码一致），压缩文件自动解压
+     */
+    private static BufferedReader openReader(String filePath) throws IOException {
+        return new BufferedReader(new InputStreamReader(Compression.openInput(filePath), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 按当前格式打开题目和答案的输出：文本格式写出题目和答案两个文本文件，
+     * 二进制格式把题目和答案一起写入题目文件旁的.bin文件
+     */
+    public ExerciseOutput openExerciseOutput() throws IOException {
+        return binaryFormat ? new BinaryExerciseFile.Writer(getBinaryFile()) : openExerciseWriter();
+    }
+    
+    /**
+     * 设置写入题目时是否使用二进制格式
+     */
+    public void setBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+    
+    /**
+     * 二进制格式时题目和答案写入的文件
+     */
+    public String getBinaryFile() {
+        return BinaryExerciseFile.pathFor(EXERCISES_FILE);
+    }
+    
+    /**
+     * 把二进制题目文件转换为文本格式的题目文件和答案文件
+     * @return 转换的题目数量
+     */
+    public int exportText(String binaryFile) throws IOException {
+        BinaryExerciseFile file = BinaryExerciseFile.open(binaryFile);
+        try (ExerciseWriter writer = openExerciseWriter()) {
+            file.copyTo(writer);
+            return writer.getCount();
+        }
+    }
+    
+    /**
+     * 设置写入题目时是否同时写出答案表缓存文件
+     */
+    public void setWriteAnswerKey(boolean writeAnswerKey) {
+        this.writeAnswerKey = writeAnswerKey;
+    }
+    
     /**
      * 读取题目文件
      */
     public List<String> readExercises(String filePath) throws IOException {
         List<String> exercises = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openReader(filePath)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (!line.trim().isEmpty()) {
                     // 去掉题号，只保留表达式
-                    int dotIndex = line.indexOf('.');
-                    if (dotIndex != -1 && dotIndex + 1 < line.length()) {
-                        exercises.add(line.substring(dotIndex + 1).trim());
-                    } else {
-                        exercises.add(line.trim());
-                    }
+                    exercises.add(stripNumber(line));
                 }
             }
         }
@@ -75,17 +183,12 @@ public class FileHandler {
      */
     public List<String> readAnswers(String filePath) throws IOException {
         List<String> answers = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openReader(filePath)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (!line.trim().isEmpty()) {
                     // 去掉题号，只保留答案
-                    int dotIndex = line.indexOf('.');
-                    if (dotIndex != -1 && dotIndex + 1 < line.length()) {
-                        answers.add(line.substring(dotIndex + 1).trim());
-                    } else {
-                        answers.add(line.trim());
-                    }
+                    answers.add(stripNumber(line));
                 }
             }
         }
@@ -100,39 +203,226 @@ public class FileHandler {
     }
     
     /**
-     * 写入评分结果
+     * 去掉行首的题号和首尾空白
      */
-    public void writeGrade(List<Integer> correctIndices, List<Integer> wrongIndices) throws IOException {
-        File file = new File(GRADE_FILE);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            // 写入正确题目
-            writer.write("Correct: " + correctIndices.size());
-            if (!correctIndices.isEmpty()) {
-                writer.write(" (" + formatIndices(correctIndices) + ")");
+    private static String stripNumber(String line) {
+        int dotIndex = line.indexOf('.');
+        if (dotIndex != -1 && dotIndex + 1 < line.length()) {
+            return line.substring(dotIndex + 1).trim();
+        }
+        return line.trim();
+    }
+    
+    /**
+     * 读取第fromIndex到toIndex题（从0开始，不含toIndex）的题目，结果与readExercises(filePath).subList(fromIndex, toIndex)相同
+     * 通过行索引直接定位，耗时只与读取的题目数量有关；二进制题目文件按块索引读取
+     */
+    public List<String> readExercises(String filePath, int fromIndex, int toIndex) throws IOException {
+        if (BinaryExerciseFile.isBinary(filePath)) {
+            BinaryExerciseFile file = BinaryExerciseFile.open(filePath);
+            checkRange(fromIndex, toIndex, file.size());
+            List<String> exercises = new ArrayList<>(toIndex - fromIndex);
+            for (int i = fromIndex; i < toIndex; i++) {
+                exercises.add(file.getExpression(i).toString().trim());
             }
-            writer.newLine();
-            
-            // 写入错误题目
-            writer.write("Wrong: " + wrongIndices.size());
-            if (!wrongIndices.isEmpty()) {
-                writer.write(" (" + formatIndices(wrongIndices) + ")");
+            return exercises;
+        }
+        return readLines(filePath, fromIndex, toIndex);
+    }
+    
+    /**
+     * 读取第fromIndex到toIndex题（从0开始，不含toIndex）的答案，结果与readAnswers(filePath).subList(fromIndex, toIndex)相同
+     * 也可以从二进制题目文件中读取答案
+     */
+    public List<String> readAnswers(String filePath, int fromIndex, int toIndex) throws IOException {
+        if (BinaryExerciseFile.isBinary(filePath)) {
+            BinaryExerciseFile file = BinaryExerciseFile.open(filePath);
+            checkRange(fromIndex, toIndex, file.size());
+            List<String> answers = new ArrayList<>(toIndex - fromIndex);
+            for (int i = fromIndex; i < toIndex; i++) {
+                answers.add(file.getAnswer(i));
+            }
+            return answers;
+        }
+        return readLines(filePath, fromIndex, toIndex);
+    }
+    
+    /**
+     * 题目或答案文件中的题目数量（读取行索引或二进制文件头部，不扫描文件；压缩文件需要完整解压一遍）
+     */
+    public int getExerciseCount(String filePath) throws IOException {
+        if (BinaryExerciseFile.isBinary(filePath)) {
+            return BinaryExerciseFile.open(filePath).size();
+        }
+        if (Compression.isCompressed(filePath)) {
+            return readCompressedLines(filePath, Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+        }
+        try (LineIndex index = openLineIndex(filePath)) {
+            if (index == null) {
+                return readCompressedLines(filePath, Integer.MAX_VALUE, Integer.MAX_VALUE, null);
             }
-            writer.newLine();
+            return index.size();
         }
     }
     
     /**
-     * 格式化索引列表为字符串
+     * 打开文件旁的行索引，没有索引或索引失效时扫描文件重新建立
+     * @return 索引无法写入（例如目录只读）时返回null，调用方改为从头扫描文件
      */
-    private String formatIndices(List<Integer> indices) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < indices.size(); i++) {
-            sb.append(indices.get(i));
-            if (i < indices.size() - 1) {
-                sb.append(", ");
+    private static LineIndex openLineIndex(String filePath) throws IOException {
+        LineIndex index = LineIndex.readFor(filePath);
+        if (index != null) {
+            return index;
+        }
+        try {
+            return LineIndex.build(filePath);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 按行索引定位后一次读出[fromIndex, toIndex)这几行，逐行去掉题号
+     */
+    private List<String> readLines(String filePath, int fromIndex, int toIndex) throws IOException {
+        if (Compression.isCompressed(filePath)) {
+            // 压缩文件无法按偏移定位，只能从头解压到所需的范围
+            List<String> lines = new ArrayList<>();
+            int size = readCompressedLines(filePath, fromIndex, toIndex, lines);
+            checkRange(fromIndex, toIndex, size);
+            return lines;
+        }
+        long start;
+        long end;
+        try (LineIndex index = openLineIndex(filePath)) {
+            if (index == null) {
+                List<String> lines = new ArrayList<>();
+                int size = readCompressedLines(filePath, fromIndex, toIndex, lines);
+                checkRange(fromIndex, toIndex, size);
+                return lines;
             }
+            checkRange(fromIndex, toIndex, index.size());
+            start = index.offset(fromIndex);
+            end = index.offset(toIndex);
+        }
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("一次读取的内容超过2GB: " + (toIndex - fromIndex) + "行");
+        }
+        byte[] bytes = new byte[(int) (end - start)];
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            file.seek(start);
+            file.readFully(bytes);
+        }
+        List<String> lines = new ArrayList<>(toIndex - fromIndex);
+        int lineStart = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i == bytes.length || bytes[i] == '\n') {
+                // 行索引只记录非空行，两行之间可能夹着空行
+                String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                if (!line.trim().isEmpty()) {
+                    lines.add(stripNumber(line));
+                }
+                lineStart = i + 1;
+            }
+        }
+        return lines;
+    }
+    
+    /**
+     * 从头读取文件（压缩文件边读边解压），把第fromIndex到toIndex个非空行去掉题号后放入lines，读到toIndex为止
+     * @return 读到的非空行数（读到toIndex时即为toIndex，否则为文件的总行数）
+     */
+    private static int readCompressedLines(String filePath, int fromIndex, int toIndex, List<String> lines)
+            throws IOException {
+        int index = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Compression.openInput(filePath), StandardCharsets.UTF_8))) {
+            String line;
+            while (index < toIndex && (line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    if (index >= fromIndex && lines != null) {
+                        lines.add(stripNumber(line));
+                    }
+                    index++;
+                }
+            }
+        }
+        return index;
+    }
+    
+    private static void checkRange(int fromIndex, int toIndex, int size) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("题号范围[" + fromIndex + ", " + toIndex + ")超出0到" + size);
+        }
+    }
+    
+    /**
+     * 通过内存映射逐行访问题目文件（判定大文件时使用）
+     * 每行去掉题号后以UTF-8字节切片的形式交给visitor，不为每行创建String
+     * @return 题目数量
+     */
+    public int visitExercises(String filePath, MappedTextFile.LineVisitor visitor) throws IOException {
+        try (MappedTextFile file = MappedTextFile.open(filePath)) {
+            return file.forEachLine(visitor);
+        }
+    }
+    
+    /**
+     * 通过内存映射逐行访问答案文件
+     * @return 答案数量
+     */
+    public int visitAnswers(String filePath, MappedTextFile.TextVisitor visitor) throws IOException {
+        try (MappedTextFile file = MappedTextFile.open(filePath)) {
+            return file.forEachText(visitor);
+        }
+    }
+    
+    /**
+     * 写入评分结果
+     */
+    public void writeGrade(List<Integer> correctIndices, List<Integer> wrongIndices) throws IOException {
+        writeGrade(toArray(correctIndices), toArray(wrongIndices));
+    }
+    
+    /**
+     * 写入评分结果（题号数组版本，用于大批量判定，输出与列表版本完全相同）
+     */
+    public void writeGrade(int[] correctIndices, int[] wrongIndices) throws IOException {
+        writeGrade(GRADE_FILE, correctIndices, wrongIndices);
+    }
+    
+    /**
+     * 把评分结果写入指定文件（批量判定时每个学生一个文件），压缩时文件名加上.gz
+     */
+    public void writeGrade(String filePath, int[] correctIndices, int[] wrongIndices) throws IOException {
+        try (Utf8ChannelWriter writer = openWriter(filePath)) {
+            writeIndices(writer, "Correct: ", correctIndices);
+            writeIndices(writer, "Wrong: ", wrongIndices);
+        }
+    }
+    
+    private void writeIndices(Utf8ChannelWriter writer, String label, int[] indices) throws IOException {
+        writer.write(label);
+        writer.writeInt(indices.length);
+        if (indices.length > 0) {
+            writer.write(" (");
+            for (int i = 0; i < indices.length; i++) {
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                writer.writeInt(indices[i]);
+            }
+            writer.writeAscii(')');
+        }
+        writer.newLine();
+    }
+    
+    private static int[] toArray(List<Integer> indices) {
+        int[] array = new int[indices.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indices.get(i);
         }
-        return sb.toString();
+        return array;
     }
     
     /**
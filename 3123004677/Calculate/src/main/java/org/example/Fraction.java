@@ -1,93 +1,163 @@
 package org.example;
 
-import java.util.Objects;
+import java.math.BigInteger;
 
 /**
  * 表示一个分数，可以是自然数或真分数
+ * 实际运算委托给{@link FractionMath}内核，本类只是其对象形式的外观；
+ * 当内核检测到int溢出时，自动切换为BigInteger精确表示
  */
 public class Fraction {
-    private int numerator;   // 分子
-    private int denominator; // 分母
+    private final long value;             // 打包后的分子和分母
+    private final BigInteger bigNumerator;   // 溢出时使用的分子，未溢出时为null
+    private final BigInteger bigDenominator; // 溢出时使用的分母，未溢出时为null
 
     /**
      * 创建一个自然数
      */
     public Fraction(int value) {
-        this.numerator = value;
-        this.denominator = 1;
+        this(FractionMath.valueOf(value));
     }
 
     /**
      * 创建一个分数
      */
     public Fraction(int numerator, int denominator) {
-        if (denominator == 0) {
+        long packed = FractionMath.of(numerator, denominator);
+        if (FractionMath.isOverflow(packed)) {
+            // 只有Integer.MIN_VALUE取反时才会发生
+            Fraction big = ofBig(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+            this.value = big.value;
+            this.bigNumerator = big.bigNumerator;
+            this.bigDenominator = big.bigDenominator;
+        } else {
+            this.value = packed;
+            this.bigNumerator = null;
+            this.bigDenominator = null;
+        }
+    }
+
+    /**
+     * 由打包值创建分数
+     */
+    private Fraction(long value) {
+        this.value = value;
+        this.bigNumerator = null;
+        this.bigDenominator = null;
+    }
+
+    /**
+     * 由已约分的BigInteger创建分数
+     */
+    private Fraction(BigInteger numerator, BigInteger denominator) {
+        this.value = FractionMath.OVERFLOW;
+        this.bigNumerator = numerator;
+        this.bigDenominator = denominator;
+    }
+
+    /**
+     * 由内核的打包值创建分数
+     */
+    public static Fraction fromPacked(long value) {
+        if (FractionMath.isOverflow(value)) {
+            throw new IllegalArgumentException("溢出标记不能转换为分数");
+        }
+        return new Fraction(value);
+    }
+
+    /**
+     * 由任意精度的分子分母创建分数，能放进int时回到快速表示
+     */
+    private static Fraction ofBig(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
             throw new ArithmeticException("分母不能为0");
         }
-        
-        // 处理负数情况
-        if (denominator < 0) {
-            numerator = -numerator;
-            denominator = -denominator;
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        numerator = numerator.divide(gcd);
+        denominator = denominator.divide(gcd);
+        if (numerator.bitLength() < 32 && denominator.bitLength() < 32) {
+            return new Fraction(FractionMath.pack(numerator.intValue(), denominator.intValue()));
         }
-        
-        // 约分
-        int gcd = gcd(Math.abs(numerator), denominator);
-        this.numerator = numerator / gcd;
-        this.denominator = denominator / gcd;
+        return new Fraction(numerator, denominator);
     }
 
     /**
-     * 计算最大公约数
+     * 获取内核使用的打包值，BigInteger表示时返回{@link FractionMath#OVERFLOW}
      */
-    private int gcd(int a, int b) {
-        return b == 0 ? a : gcd(b, a % b);
+    public long toPacked() {
+        return value;
     }
 
     /**
-     * 计算最小公倍数
+     * 是否使用BigInteger表示（即超出了int快速路径）
      */
-    private int lcm(int a, int b) {
-        return a / gcd(a, b) * b;
+    public boolean isBig() {
+        return bigNumerator != null;
     }
 
     /**
      * 加法
      */
     public Fraction add(Fraction other) {
-        int lcm = lcm(this.denominator, other.denominator);
-        int newNumerator = this.numerator * (lcm / this.denominator) + 
-                          other.numerator * (lcm / other.denominator);
-        return new Fraction(newNumerator, lcm);
+        if (!isBig() && !other.isBig()) {
+            long result = FractionMath.add(value, other.value);
+            if (!FractionMath.isOverflow(result)) {
+                return new Fraction(result);
+            }
+        }
+        return ofBig(getBigNumerator().multiply(other.getBigDenominator())
+                        .add(other.getBigNumerator().multiply(getBigDenominator())),
+                getBigDenominator().multiply(other.getBigDenominator()));
     }
 
     /**
      * 减法
      */
     public Fraction subtract(Fraction other) {
-        int lcm = lcm(this.denominator, other.denominator);
-        int newNumerator = this.numerator * (lcm / this.denominator) - 
-                          other.numerator * (lcm / other.denominator);
-        return new Fraction(newNumerator, lcm);
+        if (!isBig() && !other.isBig()) {
+            long result = FractionMath.subtract(value, other.value);
+            if (!FractionMath.isOverflow(result)) {
+                return new Fraction(result);
+            }
+        }
+        return ofBig(getBigNumerator().multiply(other.getBigDenominator())
+                        .subtract(other.getBigNumerator().multiply(getBigDenominator())),
+                getBigDenominator().multiply(other.getBigDenominator()));
     }
 
     /**
      * 乘法
      */
     public Fraction multiply(Fraction other) {
-        return new Fraction(this.numerator * other.numerator, 
-                           this.denominator * other.denominator);
+        if (!isBig() && !other.isBig()) {
+            long result = FractionMath.multiply(value, other.value);
+            if (!FractionMath.isOverflow(result)) {
+                return new Fraction(result);
+            }
+        }
+        return ofBig(getBigNumerator().multiply(other.getBigNumerator()),
+                getBigDenominator().multiply(other.getBigDenominator()));
     }
 
     /**
      * 除法
      */
     public Fraction divide(Fraction other) {
-        if (other.numerator == 0) {
+        if (!isBig() && !other.isBig()) {
+            long result = FractionMath.divide(value, other.value);
+            if (!FractionMath.isOverflow(result)) {
+                return new Fraction(result);
+            }
+        }
+        if (other.getBigNumerator().signum() == 0) {
             throw new ArithmeticException("除数不能为0");
         }
-        return new Fraction(this.numerator * other.denominator, 
-                           this.denominator * other.numerator);
+        return ofBig(getBigNumerator().multiply(other.getBigDenominator()),
+                getBigDenominator().multiply(other.getBigNumerator()));
     }
 
     /**
@@ -95,37 +165,67 @@ public class Fraction {
      * @return 如果this > other返回正数，相等返回0，小于返回负数
      */
     public int compareTo(Fraction other) {
-        int thisNumerator = this.numerator * other.denominator;
-        int otherNumerator = other.numerator * this.denominator;
-        return Integer.compare(thisNumerator, otherNumerator);
+        if (!isBig() && !other.isBig()) {
+            return FractionMath.compare(value, other.value);
+        }
+        return getBigNumerator().multiply(other.getBigDenominator())
+                .compareTo(other.getBigNumerator().multiply(getBigDenominator()));
     }
 
     /**
      * 判断是否为真分数
      */
     public boolean isProperFraction() {
-        return Math.abs(numerator) < denominator;
+        if (!isBig()) {
+            return FractionMath.isProperFraction(value);
+        }
+        return bigNumerator.abs().compareTo(bigDenominator) < 0;
     }
 
     /**
      * 判断是否为自然数
      */
     public boolean isNaturalNumber() {
-        return denominator == 1 && numerator >= 0;
+        if (!isBig()) {
+            return FractionMath.isNaturalNumber(value);
+        }
+        return bigDenominator.equals(BigInteger.ONE) && bigNumerator.signum() >= 0;
     }
 
     /**
      * 获取分子
+     * @throws ArithmeticException 分子超出int范围时
      */
     public int getNumerator() {
-        return numerator;
+        if (isBig()) {
+            return bigNumerator.intValueExact();
+        }
+        return FractionMath.numerator(value);
     }
 
     /**
      * 获取分母
+     * @throws ArithmeticException 分母超出int范围时
      */
     public int getDenominator() {
-        return denominator;
+        if (isBig()) {
+            return bigDenominator.intValueExact();
+        }
+        return FractionMath.denominator(value);
+    }
+
+    /**
+     * 获取任意精度的分子
+     */
+    public BigInteger getBigNumerator() {
+        return isBig() ? bigNumerator : BigInteger.valueOf(FractionMath.numerator(value));
+    }
+
+    /**
+     * 获取任意精度的分母
+     */
+    public BigInteger getBigDenominator() {
+        return isBig() ? bigDenominator : BigInteger.valueOf(FractionMath.denominator(value));
     }
 
     /**
@@ -133,21 +233,20 @@ public class Fraction {
      */
     @Override
     public String toString() {
-        if (denominator == 1) {
+        if (!isBig()) {
+            return FractionMath.toString(value);
+        }
+        if (bigDenominator.equals(BigInteger.ONE)) {
             // 整数
-            return String.valueOf(numerator);
-        } else if (Math.abs(numerator) > denominator) {
+            return bigNumerator.toString();
+        } else if (bigNumerator.abs().compareTo(bigDenominator) > 0) {
             // 假分数转换为带分数
-            int integerPart = numerator / denominator;
-            int remainder = Math.abs(numerator) % denominator;
-            if (remainder == 0) {
-                return String.valueOf(integerPart);
-            } else {
-                return integerPart + "'" + remainder + "/" + denominator;
-            }
+            BigInteger[] parts = bigNumerator.abs().divideAndRemainder(bigDenominator);
+            BigInteger integerPart = bigNumerator.signum() < 0 ? parts[0].negate() : parts[0];
+            return integerPart + "'" + parts[1] + "/" + bigDenominator;
         } else {
             // 真分数
-            return numerator + "/" + denominator;
+            return bigNumerator + "/" + bigDenominator;
         }
     }
 
@@ -159,11 +258,18 @@ public class Fraction {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Fraction fraction = (Fraction) obj;
-        return numerator == fraction.numerator && denominator == fraction.denominator;
+        if (!isBig() && !fraction.isBig()) {
+            return value == fraction.value;
+        }
+        return getBigNumerator().equals(fraction.getBigNumerator())
+                && getBigDenominator().equals(fraction.getBigDenominator());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(numerator, denominator);
+        if (!isBig()) {
+            return Long.hashCode(value);
+        }
+        return 31 * bigNumerator.hashCode() + bigDenominator.hashCode();
     }
-}
\ No newline at end of file
+}
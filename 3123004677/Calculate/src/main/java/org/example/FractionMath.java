@@ -0,0 +1,201 @@
+package org.example;
+
+/**
+ * 分数运算内核
+ * 将分子和分母打包进一个long（高32位为分子，低32位为分母），
+ * 所有运算都在基本类型上完成，每次运算不产生任何堆分配
+ * 中间结果在long中计算，约分后若无法放回int则返回{@link #OVERFLOW}，
+ * 由调用方切换到{@link Fraction}的BigInteger精确表示
+ */
+public final class FractionMath {
+
+    /**
+     * 溢出标记：合法分数的分母永远不为0，因此分母为0的值可作为标记
+     */
+    public static final long OVERFLOW = pack(1, 0);
+
+    private FractionMath() {
+        // 工具类，不允许实例化
+    }
+
+    /**
+     * 打包分子和分母（调用方保证已约分且分母为正）
+     */
+    public static long pack(int numerator, int denominator) {
+        return ((long) numerator << 32) | (denominator & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 获取分子
+     */
+    public static int numerator(long fraction) {
+        return (int) (fraction >> 32);
+    }
+
+    /**
+     * 获取分母
+     */
+    public static int denominator(long fraction) {
+        return (int) fraction;
+    }
+
+    /**
+     * 判断是否为溢出标记（分母为0的值都不是合法分数）
+     */
+    public static boolean isOverflow(long fraction) {
+        return denominator(fraction) == 0;
+    }
+
+    /**
+     * 创建一个自然数
+     */
+    public static long valueOf(int value) {
+        return pack(value, 1);
+    }
+
+    /**
+     * 创建一个分数（自动处理符号并约分）
+     */
+    public static long of(int numerator, int denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("分母不能为0");
+        }
+        return reduce(numerator, denominator);
+    }
+
+    /**
+     * 加法
+     */
+    public static long add(long a, long b) {
+        int ad = denominator(a);
+        int bd = denominator(b);
+        if (ad == 1 && bd == 1) {
+            return narrow((long) numerator(a) + numerator(b));
+        }
+        return reduce((long) numerator(a) * bd + (long) numerator(b) * ad, (long) ad * bd);
+    }
+
+    /**
+     * 减法
+     */
+    public static long subtract(long a, long b) {
+        int ad = denominator(a);
+        int bd = denominator(b);
+        if (ad == 1 && bd == 1) {
+            return narrow((long) numerator(a) - numerator(b));
+        }
+        return reduce((long) numerator(a) * bd - (long) numerator(b) * ad, (long) ad * bd);
+    }
+
+    /**
+     * 乘法
+     */
+    public static long multiply(long a, long b) {
+        return reduce((long) numerator(a) * numerator(b), (long) denominator(a) * denominator(b));
+    }
+
+    /**
+     * 除法
+     */
+    public static long divide(long a, long b) {
+        if (isOverflow(b)) {
+            return b;
+        }
+        int bn = numerator(b);
+        if (bn == 0) {
+            throw new ArithmeticException("除数不能为0");
+        }
+        return reduce((long) numerator(a) * denominator(b), (long) denominator(a) * bn);
+    }
+
+    /**
+     * 比较两个分数的大小（交叉相乘在long中进行，不会溢出）
+     * @return 如果a > b返回正数，相等返回0，小于返回负数
+     */
+    public static int compare(long a, long b) {
+        return Long.compare((long) numerator(a) * denominator(b), (long) numerator(b) * denominator(a));
+    }
+
+    /**
+     * 判断是否为真分数
+     */
+    public static boolean isProperFraction(long fraction) {
+        return Math.abs(numerator(fraction)) < denominator(fraction);
+    }
+
+    /**
+     * 判断是否为自然数
+     */
+    public static boolean isNaturalNumber(long fraction) {
+        return denominator(fraction) == 1 && numerator(fraction) >= 0;
+    }
+
+    /**
+     * 转换为字符串表示（自然数、真分数或带分数）
+     */
+    public static String toString(long fraction) {
+        StringBuilder sb = new StringBuilder(12);
+        appendTo(sb, fraction);
+        return sb.toString();
+    }
+
+    /**
+     * 将字符串表示追加到指定的StringBuilder中
+     */
+    public static void appendTo(StringBuilder sb, long fraction) {
+        int numerator = numerator(fraction);
+        int denominator = denominator(fraction);
+        if (denominator == 1) {
+            // 整数
+            sb.append(numerator);
+        } else if (Math.abs(numerator) > denominator) {
+            // 假分数转换为带分数
+            sb.append(numerator / denominator).append('\'')
+              .append(Math.abs(numerator) % denominator).append('/').append(denominator);
+        } else {
+            // 真分数
+            sb.append(numerator).append('/').append(denominator);
+        }
+    }
+
+    /**
+     * 约分并打包，分母统一为正数
+     * 两个int的乘积及其和都不会超出long，因此只需在约分后检查能否放回int；
+     * 分母为0说明输入中含有溢出标记，直接传播
+     */
+    private static long reduce(long numerator, long denominator) {
+        if (denominator == 0) {
+            return OVERFLOW;
+        }
+        if (denominator < 0) {
+            numerator = -numerator;
+            denominator = -denominator;
+        }
+        long gcd = gcd(Math.abs(numerator), denominator);
+        long n = numerator / gcd;
+        long d = denominator / gcd;
+        if ((int) n != n || (int) d != d) {
+            return OVERFLOW;
+        }
+        return pack((int) n, (int) d);
+    }
+
+    /**
+     * 将整数结果放回int，放不下时返回溢出标记
+     */
+    private static long narrow(long value) {
+        return (int) value == value ? valueOf((int) value) : OVERFLOW;
+    }
+
+    /**
+     * 计算最大公约数（迭代实现，避免递归调用开销）
+     */
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 并行生成的结果，包含生成的表达式、缺口数量以及每个工作线程的统计信息
+ */
+public class GenerationResult {
+    private final List<Expression> expressions;
+    private final int generatedCount;
+    private final int requestedCount;
+    private final List<WorkerStats> workerStats;
+
+    public GenerationResult(List<Expression> expressions, int requestedCount, List<WorkerStats> workerStats) {
+        this(expressions, expressions.size(), requestedCount, workerStats);
+    }
+
+    /**
+     * 流式生成的结果：题目已直接写入文件，不在内存中保留
+     */
+    public GenerationResult(int generatedCount, int requestedCount, List<WorkerStats> workerStats) {
+        this(Collections.emptyList(), generatedCount, requestedCount, workerStats);
+    }
+
+    private GenerationResult(List<Expression> expressions, int generatedCount, int requestedCount,
+                             List<WorkerStats> workerStats) {
+        this.expressions = expressions;
+        this.generatedCount = generatedCount;
+        this.requestedCount = requestedCount;
+        this.workerStats = Collections.unmodifiableList(workerStats);
+    }
+
+    /**
+     * 生成的表达式，流式生成时为空列表
+     */
+    public List<Expression> getExpressions() {
+        return expressions;
+    }
+
+    /**
+     * 实际生成的题目数量
+     */
+    public int getGeneratedCount() {
+        return generatedCount;
+    }
+
+    public int getRequestedCount() {
+        return requestedCount;
+    }
+
+    /**
+     * 实际生成数量与目标数量的差距，为0表示已达成目标
+     */
+    public int getShortfall() {
+        return requestedCount - generatedCount;
+    }
+
+    public List<WorkerStats> getWorkerStats() {
+        return workerStats;
+    }
+
+    /**
+     * 所有线程的尝试次数之和
+     */
+    public long getTotalAttempts() {
+        long total = 0;
+        for (WorkerStats stats : workerStats) {
+            total += stats.getAttempts();
+        }
+        return total;
+    }
+
+    /**
+     * 单个工作线程的统计信息，只由所属线程写入
+     */
+    public static class WorkerStats {
+        private long attempts;   // 尝试生成的次数
+        private long rejects;    // 违反约束的候选数：枚举时被剪掉，随机构造时交换了操作数或更换了运算符后才合法
+        private long duplicates; // 与已有题目重复被丢弃的次数
+        private long accepted;   // 被采用的题目数量
+
+        void recordAttempt() {
+            attempts++;
+        }
+
+        void recordReject() {
+            rejects++;
+        }
+
+        void recordDuplicate() {
+            duplicates++;
+        }
+
+        void recordAccepted() {
+            accepted++;
+        }
+
+        public long getAttempts() {
+            return attempts;
+        }
+
+        public long getRejects() {
+            return rejects;
+        }
+
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        @Override
+        public String toString() {
+            return "尝试" + attempts + "次，无效" + rejects + "次，重复" + duplicates + "次，采用" + accepted + "道";
+        }
+    }
+}
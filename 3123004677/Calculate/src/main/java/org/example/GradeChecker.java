@@ -1,6 +1,7 @@
 package org.example;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -26,10 +27,7 @@ public class GradeChecker {
         int minSize = Math.min(correctAnswers.size(), userAnswers.size());
         
         for (int i = 0; i < minSize; i++) {
-            String correctAnswer = normalizeAnswer(correctAnswers.get(i));
-            String userAnswer = normalizeAnswer(userAnswers.get(i));
-            
-            if (correctAnswer.equals(userAnswer)) {
+            if (isCorrect(correctAnswers.get(i), userAnswers.get(i))) {
                 correctIndices.add(i + 1); // 题号从1开始
             } else {
                 wrongIndices.add(i + 1); // 题号从1开始
@@ -45,47 +43,149 @@ public class GradeChecker {
         fileHandler.writeGrade(correctIndices, wrongIndices);
     }
     
+    /**
+     * 无法解析为数值的答案的标记（分母为0，不会与合法分数混淆）
+     */
+    public static final long UNPARSED = FractionMath.OVERFLOW;
+    
+    /**
+     * 判断用户答案是否与正确答案一致
+     * 两个答案都能解析为数值时按约分后的分子分母比较；都不能解析时比较去掉空白后的字符串
+     */
+    public boolean isCorrect(String correctAnswer, String userAnswer) {
+        long correct = parseAnswer(correctAnswer);
+        long user = parseAnswer(userAnswer);
+        if (correct != UNPARSED && user != UNPARSED) {
+            return correct == user;
+        }
+        if (correct == UNPARSED && user == UNPARSED) {
+            return removeWhitespace(correctAnswer).equals(removeWhitespace(userAnswer));
+        }
+        return false;
+    }
+    
     /**
      * 标准化答案格式，去除空格和前导零等
      */
     public String normalizeAnswer(String answer) {
-        // 去除所有空格
-        String normalized = answer.replaceAll("\\s+", "");
-        
-        // 尝试解析为分数
-        try {
-            if (normalized.contains("/")) {
-                // 处理带分数
-                if (normalized.contains("'")) {
-                    String[] parts = normalized.split("'");
-                    int integerPart = Integer.parseInt(parts[0]);
-                    String[] fractionParts = parts[1].split("/");
-                    int numerator = Integer.parseInt(fractionParts[0]);
-                    int denominator = Integer.parseInt(fractionParts[1]);
-                    
-                    // 转换为假分数
-                    numerator = integerPart * denominator + numerator;
-                    
-                    // 约分
-                    Fraction fraction = new Fraction(numerator, denominator);
-                    return fraction.toString();
-                } else {
-                    // 处理普通分数
-                    String[] parts = normalized.split("/");
-                    int numerator = Integer.parseInt(parts[0]);
-                    int denominator = Integer.parseInt(parts[1]);
-                    
-                    // 约分
-                    Fraction fraction = new Fraction(numerator, denominator);
-                    return fraction.toString();
+        long value = parseAnswer(answer);
+        return value != UNPARSED ? FractionMath.toString(value) : removeWhitespace(answer);
+    }
+    
+    /**
+     * 把答案解析为约分后的分数（FractionMath打包形式）
+     * 一次扫描识别自然数、分数和带分数，忽略所有空白字符，不产生任何堆分配
+     * @return 解析后的分数，格式不正确、分母为0或超出int范围时返回{@link #UNPARSED}
+     */
+    public static long parseAnswer(CharSequence answer) {
+        return parse(answer, null, 0, answer.length());
+    }
+    
+    /**
+     * 解析字节缓冲区中[offset, offset + length)范围内的答案（ASCII）
+     */
+    public static long parseAnswer(ByteBuffer buffer, int offset, int length) {
+        return parse(null, buffer, offset, offset + length);
+    }
+    
+    /**
+     * 答案的格式为：整数 | 整数/整数 | 整数'整数/整数，每个整数可以带符号
+     */
+    private static long parse(CharSequence chars, ByteBuffer bytes, int start, int end) {
+        long whole = 0;
+        long numerator = 0;
+        long denominator = 1;
+        int state = 0;      // 0: 第一个整数  1: 分子或分母  2: 带分数的分子  3: 带分数的分母
+        long value = 0;
+        int digits = 0;
+        boolean negative = false;
+        boolean signAllowed = true;
+        for (int i = start; i < end; i++) {
+            char c = chars != null ? chars.charAt(i) : (char) (bytes.get(i) & 0xFF);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    return UNPARSED;
                 }
+                digits++;
+                signAllowed = false;
+            } else if (isWhitespace(c)) {
+                continue;
+            } else if ((c == '-' || c == '+') && signAllowed) {
+                negative = c == '-';
+                signAllowed = false;
+            } else if (c == '\'' && state == 0 && digits > 0) {
+                whole = negative ? -value : value;
+                state = 2;
+                value = 0;
+                digits = 0;
+                negative = false;
+                signAllowed = true;
+            } else if (c == '/' && (state == 0 || state == 2) && digits > 0) {
+                numerator = negative ? -value : value;
+                state = state == 0 ? 1 : 3;
+                value = 0;
+                digits = 0;
+                negative = false;
+                signAllowed = true;
             } else {
-                // 处理整数，去除前导零
-                return String.valueOf(Integer.parseInt(normalized));
+                return UNPARSED;
+            }
+        }
+        if (digits == 0 || state == 2) {
+            return UNPARSED;
+        }
+        long last = negative ? -value : value;
+        if (state == 0) {
+            numerator = last;
+        } else {
+            denominator = last;
+            if (denominator == 0) {
+                return UNPARSED;
+            }
+            if (state == 3) {
+                // 带分数转换为假分数
+                numerator = whole * denominator + numerator;
+            }
+        }
+        return reduce(numerator, denominator);
+    }
+    
+    /**
+     * 约分并检查能否放入int
+     */
+    private static long reduce(long numerator, long denominator) {
+        if (denominator < 0) {
+            numerator = -numerator;
+            denominator = -denominator;
+        }
+        long gcd = FractionMath.gcd(Math.abs(numerator), denominator);
+        numerator /= gcd;
+        denominator /= gcd;
+        if ((int) numerator != numerator || (int) denominator != denominator) {
+            return UNPARSED;
+        }
+        return FractionMath.pack((int) numerator, (int) denominator);
+    }
+    
+    /**
+     * 与正则表达式\s一致的空白字符
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+    
+    /**
+     * 去掉所有空白字符（只在答案无法解析时使用）
+     */
+    private static String removeWhitespace(String answer) {
+        StringBuilder sb = new StringBuilder(answer.length());
+        for (int i = 0; i < answer.length(); i++) {
+            char c = answer.charAt(i);
+            if (!isWhitespace(c)) {
+                sb.append(c);
             }
-        } catch (NumberFormatException e) {
-            // 如果解析失败，返回原始标准化字符串
-            return normalized;
         }
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,213 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文本题目/答案文件的行偏移索引
+ * 索引文件（文本文件旁的.idx）记录每个非空行行首的字节偏移，按题号直接定位，
+ * 读取任意一段题目或答案只需读两个偏移和这一段文本，不必扫描之前的内容
+ * 索引以文本文件的字节数和最后修改时间为键（计算哈希需要读完整个文件），不一致时视为失效
+ *
+ * 索引文件格式（大端序）：
+ * 头部：魔数(4) 版本(4) 行数(4) 保留(4) 文本文件字节数(8) 文本文件最后修改时间(8)
+ * 偏移：行数+1个long，第i项为第i行（从0开始）行首的偏移，最后一项为文本文件末尾
+ */
+public class LineIndex implements Closeable {
+    /** 索引文件的扩展名 */
+    public static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8;
+
+    private final FileChannel channel;
+    private final int count;
+    private final ByteBuffer offset = ByteBuffer.allocate(8);
+
+    private LineIndex(FileChannel channel, int count) {
+        this.channel = channel;
+        this.count = count;
+    }
+
+    /**
+     * 文本文件对应的索引文件路径
+     */
+    public static String pathFor(String textFile) {
+        return textFile + SUFFIX;
+    }
+
+    /**
+     * 打开文本文件旁的索引
+     * @return 索引不存在、已损坏或与文本文件不一致时返回null
+     */
+    public static LineIndex readFor(String textFile) throws IOException {
+        File indexFile = new File(pathFor(textFile));
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        long textSize = Files.size(Paths.get(textFile));
+        long lastModified = Files.getLastModifiedTime(Paths.get(textFile)).toMillis();
+        FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            int count = header.getInt(8);
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getLong(16) != textSize || header.getLong(24) != lastModified
+                    || count < 0 || channel.size() != HEADER_SIZE + ((long) count + 1) * 8) {
+                channel.close();
+                return null;
+            }
+            return new LineIndex(channel, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 扫描文本文件建立索引并写入索引文件（没有索引或索引失效时使用）
+     */
+    public static LineIndex build(String textFile) throws IOException {
+        try (FileChannel text = FileChannel.open(Paths.get(textFile), StandardOpenOption.READ);
+             Writer writer = new Writer(pathFor(textFile), textFile)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Utf8ChannelWriter.DEFAULT_BUFFER_SIZE);
+            long position = 0;
+            long lineStart = 0;
+            boolean blank = true;
+            while (text.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        if (!blank) {
+                            writer.add(lineStart);
+                        }
+                        lineStart = position + 1;
+                        blank = true;
+                    } else if (b < 0 || b > ' ') {
+                        // 与String.trim()的规则一致：不大于空格的ASCII字符都视为空白
+                        blank = false;
+                    }
+                    position++;
+                }
+                buffer.clear();
+            }
+            if (!blank) {
+                writer.add(lineStart);
+            }
+        }
+        LineIndex index = readFor(textFile);
+        if (index == null) {
+            throw new IOException("文件在建立索引时被修改: " + textFile);
+        }
+        return index;
+    }
+
+    /**
+     * 索引的行数（题目数量）
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 第line行（从0开始）行首的字节偏移；line等于行数时为文本文件末尾
+     */
+    public long offset(int line) throws IOException {
+        if (line < 0 || line > count) {
+            throw new IndexOutOfBoundsException("行号超出范围: " + line);
+        }
+        offset.clear();
+        readFully(channel, offset, HEADER_SIZE + (long) line * 8);
+        return offset.getLong(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 索引写入器：写文本文件的同时逐行追加行首偏移，文本文件关闭后再关闭写入器，
+     * 以便记录文本文件最终的字节数和修改时间
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final String textFile;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long flushed = HEADER_SIZE;
+        private int count;
+
+        public Writer(String indexFile, String textFile) throws IOException {
+            this.textFile = textFile;
+            this.channel = FileChannel.open(Paths.get(indexFile), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * 追加下一行行首的字节偏移
+         */
+        public void add(long offset) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(offset);
+            count++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            long position = flushed;
+            flushed += buffer.remaining();
+            writeFully(buffer, position);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source, long position) throws IOException {
+            int start = source.position();
+            while (source.hasRemaining()) {
+                channel.write(source, position + source.position() - start);
+            }
+        }
+
+        /**
+         * 写出末尾偏移并回填头部
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                long textSize = Files.size(Paths.get(textFile));
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.putLong(textSize);
+                flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(textSize)
+                        .putLong(Files.getLastModifiedTime(Paths.get(textFile)).toMillis());
+                header.flip();
+                writeFully(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * 基于开放寻址（线性探测）的long集合
+ * 直接在long数组中存放元素，不产生装箱对象，用于存放表达式指纹进行查重
+ * 装载因子不超过0.5，每个元素占用16到32字节；表最多2^30个槽位，即最多容纳2^29个元素
+ */
+public class LongHashSet {
+    /** 表的最大槽位数 */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private static final long EMPTY = 0L; // 空槽位标记，元素0单独记录
+
+    private final int maxCapacity;
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        this(expectedSize, MAX_CAPACITY);
+    }
+
+    LongHashSet(int expectedSize, int maxCapacity) {
+        this.maxCapacity = maxCapacity;
+        int capacity = (int) Math.min(tableSizeFor(Math.max(expectedSize, 8) * 2L), maxCapacity);
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 添加元素
+     * @return 元素原本不存在时返回true
+     * @throws IllegalStateException 元素数量超过集合的最大容量时
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = slot(value, mask);
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * 判断元素是否存在
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int index = slot(value, mask);
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        containsZero = false;
+    }
+
+    /**
+     * 扩容为原来的两倍并重新插入所有元素
+     */
+    private void resize() {
+        if (table.length >= maxCapacity) {
+            throw new IllegalStateException("查重集合已满，最多容纳" + maxCapacity / 2 + "个元素");
+        }
+        long[] oldTable = table;
+        table = new long[oldTable.length * 2];
+        mask = table.length - 1;
+        for (long value : oldTable) {
+            if (value != EMPTY) {
+                int index = slot(value, mask);
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    /**
+     * 计算元素的起始槽位（指纹本身已经充分混合，这里只做一次高低位折叠）
+     */
+    static int slot(long value, int mask) {
+        return (int) (value ^ (value >>> 32)) & mask;
+    }
+
+    /**
+     * 不小于给定值的最小2的幂，不超过{@link #MAX_CAPACITY}
+     */
+    static int tableSizeFor(long value) {
+        if (value > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) Math.max(value - 1, 1)) << 1;
+    }
+}
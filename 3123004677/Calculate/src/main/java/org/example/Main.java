@@ -4,6 +4,21 @@ import java.io.*;
 import java.util.*;
 
 public class Main {
+    /**
+     * 超过该数量时使用流式生成，不再在内存中保留题目和答案，只有查重的指纹集合随题目数量增长（每道题16到32字节）
+     */
+    private static final int STREAMING_THRESHOLD = 100000;
+    
+    /**
+     * 批量判定的输出目录
+     */
+    private static final String BATCH_OUTPUT_DIR = "Grades";
+    
+    /**
+     * 并行生成的线程数，指定种子时输出只取决于种子，与线程数无关；不指定种子时线程越多生成越快
+     */
+    private static final int THREAD_COUNT = 4;
+    
     public static void main(String[] args) {
         // 解析命令行参数
         CommandLineParser parser = new CommandLineParser(args);
@@ -13,60 +28,87 @@ public class Main {
                 // 生成题目模式
                 int count = parser.getCount();
                 int range = parser.getRange();
+                FileHandler fileHandler = new FileHandler();
+                fileHandler.setWriteAnswerKey(parser.isWriteAnswerKey());
+                fileHandler.setBinaryFormat(parser.isBinaryFormat());
+                fileHandler.setCompression(parser.getCompression());
+                // 指定种子时按批次编号合并，输出只取决于种子；不指定时各线程在无锁指纹集合上并发查重，不保证顺序
+                boolean seeded = parser.hasSeed();
+                String outputFiles = parser.isBinaryFormat() ? fileHandler.getBinaryFile()
+                        : fileHandler.getExercisesFile() + "和" + fileHandler.getAnswersFile();
                 
-                // 生成题目（使用性能优化）
-                List<Expression> expressions;
-                if (count > 100) {
-                    // 大量题目使用并行生成
-                    System.out.println("使用并行处理生成" + count + "道题目...");
-                    expressions = PerformanceOptimizer.generateExpressionsInParallel(count, range, 4);
+                if (count > STREAMING_THRESHOLD) {
+                    // 超大量题目使用流式生成，边生成边写入文件，不在内存中保留全部题目
+                    System.out.println("使用流式处理生成" + count + "道题目...");
+                    GenerationResult result = seeded
+                            ? PerformanceOptimizer.generateStreaming(count, range, THREAD_COUNT, fileHandler, parser.getSeed())
+                            : PerformanceOptimizer.generateStreaming(count, range, THREAD_COUNT, fileHandler);
+                    if (result.getShortfall() > 0) {
+                        throw new RuntimeException("无法生成" + count + "个不重复的表达式，已写入" +
+                                result.getGeneratedCount() + "个，请尝试增加数值范围");
+                    }
+                    System.out.println("已生成" + result.getGeneratedCount() + "道题目，范围为" + range + "，结果已保存到" + outputFiles);
                 } else {
-                    // 少量题目使用普通生成
-                    ExpressionGenerator generator = new ExpressionGenerator(range);
-                    expressions = generator.generateExpressions(count);
-                }
+                    List<Expression> expressions;
+                    if (count > 100) {
+                        // 大量题目使用并行生成
+                        System.out.println("使用并行处理生成" + count + "道题目...");
+                        expressions = seeded
+                                ? PerformanceOptimizer.generateExpressionsInParallel(count, range, THREAD_COUNT, parser.getSeed())
+                                : PerformanceOptimizer.generateExpressionsInParallel(count, range, THREAD_COUNT);
+                    } else {
+                        // 少量题目使用普通生成
+                        ExpressionGenerator generator = new ExpressionGenerator(range,
+                                seeded ? new SplittableRandom(parser.getSeed()) : new SplittableRandom());
+                        expressions = generator.generateExpressions(count);
+                    }
+                    
+                    // 计算答案（编译为扁平数组后整批求值）
+                    List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+                    
+                    // 输出到文件（题目和答案在同一遍中写出）
+                    fileHandler.writeExercisesAndAnswers(expressions, answers);
                 
-                // 计算答案
-                List<String> answers = new ArrayList<>();
-                for (Expression expr : expressions) {
-                    answers.add(expr.calculateResult());
+                    System.out.println("已生成" + expressions.size() + "道题目，范围为" + range + "，结果已保存到" + outputFiles);
                 }
-                
-                // 输出到文件
+            } else if (parser.isConvertMode()) {
+                // 转换模式：把二进制题目文件转换为文本格式的题目文件和答案文件
                 FileHandler fileHandler = new FileHandler();
-                fileHandler.writeExpressions(expressions);
-                fileHandler.writeAnswers(answers);
+                fileHandler.setCompression(parser.getCompression());
+                int converted = fileHandler.exportText(parser.getConvertFile());
+                System.out.println("已转换" + converted + "道题目，结果已保存到" + fileHandler.getExercisesFile()
+                        + "和" + fileHandler.getAnswersFile());
+            } else if (parser.isBatchGradeMode()) {
+                // 批量判定模式：标准答案只计算一次（并缓存），所有学生的答案并行判定
+                BatchGrader batchGrader = new BatchGrader();
+                batchGrader.setCompression(parser.getCompression());
+                AnswerKey key = batchGrader.loadKey(parser.getExerciseFile());
+                List<String> answerFiles = BatchGrader.listAnswerFiles(parser.getAnswerDir());
+                batchGrader.gradeAll(key, answerFiles, BATCH_OUTPUT_DIR);
                 
-                System.out.println("已生成" + count + "道题目，范围为" + range + "，结果已保存到Exercises.txt和Answers.txt");
+                System.out.println("已判定" + answerFiles.size() + "份答案" + (batchGrader.isKeyFromCache() ? "（使用缓存的标准答案）" : "")
+                        + "，结果已保存到" + BATCH_OUTPUT_DIR + "目录");
             } else if (parser.isGradeMode()) {
                 // 判定答案模式
                 String exerciseFile = parser.getExerciseFile();
                 String answerFile = parser.getAnswerFile();
                 
-                // 读取文件
+                // 映射文件后切分为多个范围，在fork-join线程池中并行解析、求值和比较
+                // 题目文件是二进制格式，或旁边有哈希一致的答案表缓存（生成时使用-k）时跳过解析
+                // 压缩的题目和答案文件按魔数识别，解压后同样并行判定
                 FileHandler fileHandler = new FileHandler();
-                List<String> exercises = fileHandler.readExercises(exerciseFile);
-                List<String> userAnswers = fileHandler.readAnswers(answerFile);
-                
-                // 计算正确答案
-                List<String> correctAnswers = new ArrayList<>();
-                ExpressionParser exprParser = new ExpressionParser();
-                for (String exercise : exercises) {
-                    Expression expr = exprParser.parse(exercise.replace(" = ", ""));
-                    correctAnswers.add(expr.calculateResult());
-                }
-                
-                // 判定对错
-                GradeChecker checker = new GradeChecker();
-                checker.checkAnswers(correctAnswers, userAnswers);
+                fileHandler.setCompression(parser.getCompression());
+                new ParallelGrader().gradeFiles(exerciseFile, answerFile, fileHandler);
                 
-                System.out.println("答案判定完成，结果已保存到Grade.txt");
+                System.out.println("答案判定完成，结果已保存到" + fileHandler.getGradeFile());
             }
         } catch (Exception e) {
             System.out.println("错误: " + e.getMessage());
             System.out.println("用法: \n" +
-                    "生成题目: Myapp.exe -n <题目数量> -r <数值范围>\n" +
-                    "判定答案: Myapp.exe -e <exercisefile>.txt -a <answerfile>.txt");
+                    "生成题目: Myapp.exe -n <题目数量> -r <数值范围> [-k] [--seed <种子>] [-format txt|bin] [-compress none|gzip|fast]\n" +
+                    "判定答案: Myapp.exe -e <exercisefile>.txt|.bin -a <answerfile>.txt [-compress none|gzip|fast]\n" +
+                    "批量判定: Myapp.exe -e <exercisefile>.txt|.bin -d <answerdir> [-compress none|gzip|fast]\n" +
+                    "转换格式: Myapp.exe -c <exercisefile>.bin [-compress none|gzip|fast]");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内存映射的题目/答案文件读取器
+ * 文件被映射为若干段只读缓冲区，通过逐字节扫描找出每一行以及行首的“题号.”前缀，
+ * 把去掉前缀和首尾空白后的内容以缓冲区切片的形式交给调用方，不创建中间String对象
+ * 行的划分规则与{@link FileHandler#readExercises(String)}保持一致
+ * 压缩文件（见{@link Compression}）无法映射，打开时解压到堆中的若干段，之后的访问方式相同
+ */
+public class MappedTextFile implements Closeable {
+    /** 每段映射的最大字节数 */
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    /** 解压压缩文件时每段的最大字节数 */
+    static final int INFLATED_SEGMENT_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final ByteBuffer[] segments;
+    private final int segmentSize;
+    private final long size;
+    private CharsetDecoder decoder;
+    private CharBuffer chars;
+
+    /**
+     * 行访问接口，buffer[offset, offset + length)为去掉题号和首尾空白后的内容
+     * 切片只在本次回调内有效
+     */
+    public interface LineVisitor {
+        void visitLine(int index, ByteBuffer buffer, int offset, int length) throws IOException;
+    }
+
+    /**
+     * 文本行访问接口，text为解码后的内容，只在本次回调内有效
+     */
+    public interface TextVisitor {
+        void visitLine(int index, CharSequence text) throws IOException;
+    }
+
+    private MappedTextFile(String filePath, int segmentSize) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            this.segmentSize = segmentSize;
+            int count = (int) ((size + segmentSize - 1) / segmentSize);
+            this.segments = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, size - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedTextFile(ByteBuffer[] segments, int segmentSize, long size) {
+        this.channel = null;
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.size = size;
+    }
+
+    /**
+     * 以只读方式映射文件，压缩文件先解压
+     */
+    public static MappedTextFile open(String filePath) throws IOException {
+        return open(filePath, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * 以指定的段大小映射文件（用于测试跨段的行）
+     */
+    static MappedTextFile open(String filePath, int segmentSize) throws IOException {
+        if (Compression.isCompressed(filePath)) {
+            return inflate(filePath, Math.min(segmentSize, INFLATED_SEGMENT_SIZE));
+        }
+        return new MappedTextFile(filePath, segmentSize);
+    }
+
+    /**
+     * 把压缩文件解压到堆中：除最后一段外每段恰好segmentSize字节，
+     * 段的数组从64KB开始按需加倍，小文件不会占用整段内存
+     */
+    private static MappedTextFile inflate(String filePath, int segmentSize) throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        long size = 0;
+        try (InputStream in = Compression.openInput(filePath)) {
+            byte[] segment = new byte[Math.min(segmentSize, 1 << 16)];
+            int length = 0;
+            while (true) {
+                if (length == segment.length) {
+                    if (length == segmentSize) {
+                        segments.add(ByteBuffer.wrap(segment));
+                        size += length;
+                        segment = new byte[Math.min(segmentSize, 1 << 16)];
+                        length = 0;
+                    } else {
+                        segment = Arrays.copyOf(segment, Math.min(segmentSize, segment.length * 2));
+                    }
+                }
+                int read = in.read(segment, length, segment.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            if (length > 0) {
+                segments.add(ByteBuffer.wrap(segment, 0, length));
+                size += length;
+            }
+        }
+        return new MappedTextFile(segments.toArray(new ByteBuffer[0]), segmentSize, size);
+    }
+
+    /**
+     * 文件字节数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 依次访问所有非空行
+     * @return 访问的行数
+     */
+    public int forEachLine(LineVisitor visitor) throws IOException {
+        return forEachLine(0, size, 0, visitor);
+    }
+
+    /**
+     * 访问[from, to)范围内的所有非空行，行号从firstIndex开始
+     * from和to应为行首位置（见{@link #nextLineStart(long)}），不同范围可以在多个线程中同时访问
+     * @return 访问的行数
+     */
+    public int forEachLine(long from, long to, int firstIndex, LineVisitor visitor) throws IOException {
+        int index = firstIndex;
+        long lineStart = from;
+        long position = from;
+        while (position < to) {
+            int segment = (int) (position / segmentSize);
+            ByteBuffer buffer = segments[segment];
+            long base = (long) segment * segmentSize;
+            int i = (int) (position - base);
+            int limit = (int) Math.min(buffer.limit(), to - base);
+            byte b = 0;
+            while (i < limit) {
+                b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                i++;
+            }
+            if (i == limit) {
+                // 本段中没有行结束符，继续扫描下一段
+                position = base + limit;
+                continue;
+            }
+
+            long lineEnd = base + i;
+            if (visitLine(index, lineStart, lineEnd, visitor)) {
+                index++;
+            }
+            position = lineEnd + 1;
+            if (b == '\r' && position < to && byteAt(position) == '\n') {
+                position++;
+            }
+            lineStart = position;
+        }
+        if (lineStart < to && visitLine(index, lineStart, to, visitor)) {
+            index++;
+        }
+        return index - firstIndex;
+    }
+
+    /**
+     * 统计[from, to)范围内的非空行数
+     */
+    public int countLines(long from, long to) throws IOException {
+        return forEachLine(from, to, 0, (index, buffer, offset, length) -> { });
+    }
+
+    /**
+     * 返回position所在行的下一行的行首位置（position为0或恰好是行首时返回它本身）
+     * 用于把文件切分为互不重叠、都从行首开始的范围
+     */
+    public long nextLineStart(long position) {
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= size) {
+            return size;
+        }
+        long p = position - 1;
+        while (p < size) {
+            byte b = byteAt(p++);
+            if (b == '\n') {
+                return p;
+            }
+            if (b == '\r') {
+                return p < size && byteAt(p) == '\n' ? p + 1 : p;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 依次访问所有非空行的解码文本
+     * 每行解码到同一个可重用的CharBuffer中，因此该方法不能在多个线程中同时调用
+     * @return 访问的行数
+     */
+    public int forEachText(TextVisitor visitor) throws IOException {
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            chars = CharBuffer.allocate(256);
+        }
+        return forEachLine((index, buffer, offset, length) ->
+                visitor.visitLine(index, decode(buffer, offset, length)));
+    }
+
+    /**
+     * 把切片解码到可重用的CharBuffer中
+     */
+    private CharSequence decode(ByteBuffer buffer, int offset, int length) {
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        ByteBuffer input = buffer.duplicate();
+        input.limit(offset + length).position(offset);
+        chars.clear();
+        decoder.reset();
+        decoder.decode(input, chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        return chars;
+    }
+
+    /**
+     * 处理[start, end)范围内的一行，去掉题号前缀和首尾空白
+     * @return 非空行返回true
+     */
+    private boolean visitLine(int index, long start, long end, LineVisitor visitor) throws IOException {
+        ByteBuffer buffer;
+        int from;
+        int to;
+        int segment = (int) (start / segmentSize);
+        if (end <= (long) (segment + 1) * segmentSize) {
+            buffer = segments[segment];
+            from = (int) (start - (long) segment * segmentSize);
+            to = (int) (end - (long) segment * segmentSize);
+        } else {
+            // 跨段的行很少出现，复制到新的缓冲区中，保证多个线程可以同时扫描
+            int length = (int) (end - start);
+            buffer = ByteBuffer.allocate(length);
+            for (int i = 0; i < length; i++) {
+                buffer.put(i, byteAt(start + i));
+            }
+            from = 0;
+            to = length;
+        }
+
+        // 跳过空白行
+        int trimmedStart = skipWhitespace(buffer, from, to);
+        if (trimmedStart == to) {
+            return false;
+        }
+
+        // 去掉题号：与readExercises一样以第一个'.'为界
+        int dot = -1;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '.') {
+                dot = i;
+                break;
+            }
+        }
+        int contentStart = (dot != -1 && dot + 1 < to) ? dot + 1 : from;
+        contentStart = skipWhitespace(buffer, contentStart, to);
+        int contentEnd = to;
+        while (contentEnd > contentStart && isWhitespace(buffer.get(contentEnd - 1))) {
+            contentEnd--;
+        }
+        visitor.visitLine(index, buffer, contentStart, contentEnd - contentStart);
+        return true;
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int from, int to) {
+        while (from < to && isWhitespace(buffer.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * 与String.trim()的规则一致：不大于空格的ASCII字符都视为空白
+     */
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position / segmentSize)].get((int) (position % segmentSize));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.example;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 数值范围内所有操作数的共享节点表（享元）
+ * 题目中的操作数只有[0, range)的自然数和分母在[2, range]的真分数，
+ * 每个不同的值只创建一个{@link Expression.NumberNode}，生成时直接从表中取出而不再分配Fraction和节点。
+ * 每个操作数有一个从0开始的编号：自然数的编号就是它的值，真分数按分母、分子的顺序依次编号（约分后相同的分数共用一个编号），
+ * 编号用于{@link SubtreeCache}按(运算符, 左操作数编号, 右操作数编号)缓存单个运算的结果
+ * 节点不可变，同一数值范围的表在所有线程间共享
+ */
+public final class OperandTable {
+    /** 超过此范围时不建表，操作数的种类太多，共享节点的收益也很小 */
+    static final int MAX_RANGE = 256;
+    /** 子树缓存最多的条目数（每条8字节） */
+    static final int MAX_CACHE_ENTRIES = 1 << 20;
+
+    private static final ConcurrentMap<Integer, OperandTable> TABLES = new ConcurrentHashMap<>();
+    private static final int OPERATOR_COUNT = Expression.OperatorType.values().length;
+
+    private final int range;
+    private final Expression.NumberNode[] nodes;   // 按编号排列的节点
+    private final long[] values;                    // 按编号排列的打包值
+    private final Expression.NumberNode[] fractions; // 未约分的(分子, 分母)到节点，按fractionSlot排列
+
+    private OperandTable(int range) {
+        this.range = range;
+        this.fractions = new Expression.NumberNode[fractionSlot(1, range + 1)];
+
+        // 先数出不同操作数的个数
+        int size = range;
+        for (int denominator = 2; denominator <= range; denominator++) {
+            for (int numerator = 1; numerator < denominator; numerator++) {
+                if (FractionMath.gcd(numerator, denominator) == 1) {
+                    size++;
+                }
+            }
+        }
+        this.nodes = new Expression.NumberNode[size];
+        this.values = new long[size];
+
+        int id = 0;
+        for (int value = 0; value < range; value++) {
+            add(id++, FractionMath.valueOf(value));
+        }
+        for (int denominator = 2; denominator <= range; denominator++) {
+            for (int numerator = 1; numerator < denominator; numerator++) {
+                int gcd = (int) FractionMath.gcd(numerator, denominator);
+                if (gcd == 1) {
+                    add(id++, FractionMath.pack(numerator, denominator));
+                    fractions[fractionSlot(numerator, denominator)] = nodes[id - 1];
+                } else {
+                    // 约分后的分数分母更小，已经建好
+                    fractions[fractionSlot(numerator, denominator)] =
+                            fractions[fractionSlot(numerator / gcd, denominator / gcd)];
+                }
+            }
+        }
+    }
+
+    private void add(int id, long value) {
+        values[id] = value;
+        nodes[id] = new Expression.NumberNode(Fraction.fromPacked(value), id);
+    }
+
+    /**
+     * 分子n、分母d（1 <= n < d）的分数在表中的位置：分母为d的分数从(d-2)(d-1)/2开始
+     */
+    private static int fractionSlot(int numerator, int denominator) {
+        return (denominator - 2) * (denominator - 1) / 2 + numerator - 1;
+    }
+
+    /**
+     * 获取数值范围的共享操作数表
+     * @return 范围太大（或小于1）时返回null，调用方应直接创建节点
+     */
+    public static OperandTable forRange(int range) {
+        if (range < 1 || range > MAX_RANGE) {
+            return null;
+        }
+        return TABLES.computeIfAbsent(range, OperandTable::new);
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    /**
+     * 不同操作数的个数
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 编号为id的操作数节点
+     */
+    public Expression.NumberNode node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * 编号为id的操作数的打包值
+     */
+    public long value(int id) {
+        return values[id];
+    }
+
+    /**
+     * 自然数value（0 <= value < range）的节点
+     */
+    public Expression.NumberNode natural(int value) {
+        return nodes[value];
+    }
+
+    /**
+     * 分数numerator/denominator（1 <= numerator < denominator <= range，可以未约分）的节点
+     */
+    public Expression.NumberNode fraction(int numerator, int denominator) {
+        return fractions[fractionSlot(numerator, denominator)];
+    }
+
+    /**
+     * 为这张表创建一个单运算结果缓存
+     * @return 操作数太多、缓存会超过{@link #MAX_CACHE_ENTRIES}条时返回null
+     */
+    public SubtreeCache newSubtreeCache() {
+        long entries = (long) OPERATOR_COUNT * size() * size();
+        return entries <= MAX_CACHE_ENTRIES ? new SubtreeCache(size()) : null;
+    }
+
+    /**
+     * 两个操作数之间单个运算的结果缓存，按(运算符, 左操作数编号, 右操作数编号)直接寻址
+     * 结果（或{@link EvaluationStatus}的标记值）第一次用到时才计算，之后只是一次数组读取
+     * 只缓存"操作数 运算符 操作数"这一层：运算结果不分配编号，两层及以上的子树不经过缓存。
+     * 若给运算结果也编号，只要一侧是单运算子树，键数就是单层的OPERATOR_COUNT*size倍，数值范围为10时已超过{@link #MAX_CACHE_ENTRIES}
+     * 缓存不是线程安全的，每个生成器使用自己的缓存
+     */
+    public final class SubtreeCache {
+        /** 尚未计算的条目：分子和分母都为0，既不是合法分数也不是状态标记 */
+        private static final long EMPTY = 0L;
+
+        private final int size;
+        private final long[] results;
+        private long hits;
+        private long misses;
+
+        private SubtreeCache(int size) {
+            this.size = size;
+            this.results = new long[OPERATOR_COUNT * size * size];
+        }
+
+        /**
+         * 与{@link Expression.OperatorNode#check}相同，但每个组合只计算一次
+         */
+        public long check(Expression.OperatorType operator, int leftId, int rightId) {
+            int index = (operator.ordinal() * size + leftId) * size + rightId;
+            long result = results[index];
+            if (result == EMPTY) {
+                result = Expression.OperatorNode.check(operator, values[leftId], values[rightId]);
+                results[index] = result;
+                misses++;
+            } else {
+                hits++;
+            }
+            return result;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行答案判定
+ * 题目文件和答案文件被映射后各自切分为从行首开始的字节范围，在fork-join线程池中分三步处理：
+ * 1. 并行统计每个范围的行数，前缀和得到每个范围第一行的全局题号
+ * 2. 并行解析、求值题目得到{@link AnswerKey}，把答案直接从字节解析为分数，结果按全局题号写入共享数组
+ * 3. 按题号区间并行比较，各区间的正确/错误题号按顺序拼接
+ * 结果与{@link GradeChecker#checkAnswers}逐行判定完全一致
+ */
+public class ParallelGrader {
+    /** 每个范围的默认最小字节数，小文件不必切分 */
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+    /** 每个线程分到的范围数，用于平衡负载 */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final int parallelism;
+    private final int minChunkBytes;
+    private final GradeChecker checker = new GradeChecker();
+
+    public ParallelGrader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelGrader(int parallelism) {
+        this(parallelism, MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * 指定每个范围的最小字节数（用于测试切分边界）
+     */
+    ParallelGrader(int parallelism, int minChunkBytes) {
+        this.parallelism = Math.max(1, parallelism);
+        this.minChunkBytes = Math.max(1, minChunkBytes);
+    }
+
+    /**
+     * 判定结果：按题号升序排列的正确和错误题号（题号从1开始）
+     */
+    public static class Result {
+        private final int[] correctIndices;
+        private final int[] wrongIndices;
+
+        Result(int[] correctIndices, int[] wrongIndices) {
+            this.correctIndices = correctIndices;
+            this.wrongIndices = wrongIndices;
+        }
+
+        public int[] getCorrectIndices() {
+            return correctIndices;
+        }
+
+        public int[] getWrongIndices() {
+            return wrongIndices;
+        }
+    }
+
+    /**
+     * 判定答案并把结果写入FileHandler的Grade文件
+     */
+    public Result gradeFiles(String exerciseFile, String answerFile, FileHandler fileHandler) throws IOException {
+        Result result = grade(exerciseFile, answerFile);
+        fileHandler.writeGrade(result.getCorrectIndices(), result.getWrongIndices());
+        return result;
+    }
+
+    /**
+     * 判定答案
+     * 题目文件是二进制格式时直接读出其中的答案；题目文件旁有哈希一致的答案表缓存时直接映射使用；都不再解析题目
+     */
+    public Result grade(String exerciseFile, String answerFile) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            AnswerKey key = BinaryExerciseFile.isBinary(exerciseFile)
+                    ? BinaryExerciseFile.open(exerciseFile).toAnswerKey() : AnswerKey.readFor(exerciseFile);
+            if (key == null) {
+                key = computeKey(pool, exerciseFile);
+            }
+            return grade(pool, key, answerFile);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 并行解析、求值题目文件，得到标准答案表
+     */
+    public AnswerKey computeKey(String exerciseFile) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return computeKey(pool, exerciseFile);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 用已有的标准答案表判定一份答案
+     */
+    public Result grade(AnswerKey key, String answerFile) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return grade(pool, key, answerFile);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 在指定线程池中计算标准答案表（第一、二步）
+     */
+    AnswerKey computeKey(ForkJoinPool pool, String exerciseFile) throws IOException {
+        try (MappedTextFile exerciseText = MappedTextFile.open(exerciseFile)) {
+            long[] bounds = split(exerciseText);
+            int[] first = new int[bounds.length];
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            addCountTasks(tasks, exerciseText, bounds, first);
+            invokeAll(pool, tasks);
+            int exerciseCount = prefixSum(first);
+
+            long[] results = new long[exerciseCount];
+            Map<Integer, String> exactResults = new ConcurrentHashMap<>();
+            tasks.clear();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                int firstIndex = first[i];
+                int count = first[i + 1] - firstIndex;
+                tasks.add(task(() -> evaluateChunk(exerciseText, from, to, firstIndex, count, results, exactResults)));
+            }
+            invokeAll(pool, tasks);
+            return new AnswerKey(results, exactResults);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 在指定线程池中用标准答案表判定一份答案（第一、二、三步）
+     */
+    Result grade(ForkJoinPool pool, AnswerKey key, String answerFile) throws IOException {
+        try (MappedTextFile answerText = MappedTextFile.open(answerFile)) {
+            long[] bounds = split(answerText);
+            int[] first = new int[bounds.length];
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            addCountTasks(tasks, answerText, bounds, first);
+            invokeAll(pool, tasks);
+            int answerCount = prefixSum(first);
+
+            // 答案直接从字节解析为分数，只有无法解析的答案才解码为字符串
+            long[] userAnswers = new long[answerCount];
+            Map<Integer, String> userTexts = new ConcurrentHashMap<>();
+            tasks.clear();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                int firstIndex = first[i];
+                tasks.add(task(() -> answerText.forEachLine(from, to, firstIndex,
+                        (index, buffer, offset, length) -> {
+                            userAnswers[index] = GradeChecker.parseAnswer(buffer, offset, length);
+                            if (userAnswers[index] == GradeChecker.UNPARSED) {
+                                userTexts.put(index, decode(buffer, offset, length));
+                            }
+                        })));
+            }
+            invokeAll(pool, tasks);
+
+            // 第三步：按题号区间比较，再按顺序合并
+            int exerciseCount = key.size();
+            int minSize = Math.min(exerciseCount, answerCount);
+            int ranges = Math.max(1, Math.min(parallelism * CHUNKS_PER_THREAD, minSize / 1024));
+            int[][] correctParts = new int[ranges][];
+            int[][] wrongParts = new int[ranges][];
+            tasks.clear();
+            for (int r = 0; r < ranges; r++) {
+                int part = r;
+                int from = (int) ((long) minSize * r / ranges);
+                int to = (int) ((long) minSize * (r + 1) / ranges);
+                tasks.add(task(() -> compareRange(from, to, key, userAnswers, userTexts, correctParts, wrongParts, part)));
+            }
+            invokeAll(pool, tasks);
+
+            int[] correct = concat(correctParts, 0, 0);
+            // 答案数量少于题目数量时，剩余题目都算错误
+            int[] wrong = concat(wrongParts, minSize, exerciseCount);
+            return new Result(correct, wrong);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 把文件切分为都从行首开始的字节范围，返回各范围的边界（首尾分别为0和文件大小）
+     */
+    private long[] split(MappedTextFile text) {
+        long size = text.size();
+        int chunks = (int) Math.max(1, Math.min(parallelism * CHUNKS_PER_THREAD, size / minChunkBytes));
+        long[] bounds = new long[chunks + 1];
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], text.nextLineStart(size * i / chunks));
+        }
+        bounds[chunks] = size;
+        return bounds;
+    }
+
+    private static void addCountTasks(List<ForkJoinTask<?>> tasks, MappedTextFile text, long[] bounds, int[] counts) {
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int chunk = i;
+            tasks.add(task(() -> counts[chunk + 1] = text.countLines(bounds[chunk], bounds[chunk + 1])));
+        }
+    }
+
+    /**
+     * 把每个范围的行数转换为该范围第一行的全局行号，counts[0]固定为0
+     * @return 总行数
+     */
+    private static int prefixSum(int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        return counts[counts.length - 1];
+    }
+
+    /**
+     * 解析一个范围内的题目并整批求值，溢出的结果用精确计算
+     * 结果为{@link GradeChecker#UNPARSED}的题目，答案字符串保存在exactResults中
+     */
+    private static void evaluateChunk(MappedTextFile text, long from, long to, int first, int count,
+                                      long[] results, Map<Integer, String> exactResults) throws IOException {
+        ExpressionParser parser = new ExpressionParser();
+        CompiledExpressions compiled = new CompiledExpressions(count);
+        text.forEachLine(from, to, first, (index, buffer, offset, length) -> parser.parseInto(buffer, offset, length, compiled));
+        long[] values = compiled.evaluateAll();
+        for (int i = 0; i < values.length; i++) {
+            if (FractionMath.isOverflow(values[i])) {
+                // 精确结果能放回int时按数值比较，否则保留字符串
+                String exact = compiled.evaluateExact(i).toString();
+                values[i] = GradeChecker.parseAnswer(exact);
+                if (values[i] == GradeChecker.UNPARSED) {
+                    exactResults.put(first + i, exact);
+                }
+            }
+        }
+        System.arraycopy(values, 0, results, first, values.length);
+    }
+
+    private void compareRange(int from, int to, AnswerKey key, long[] userAnswers, Map<Integer, String> userTexts,
+                              int[][] correctParts, int[][] wrongParts, int part) {
+        int[] correct = new int[to - from];
+        int[] wrong = new int[to - from];
+        int correctCount = 0;
+        int wrongCount = 0;
+        for (int i = from; i < to; i++) {
+            String userText = userAnswers[i] == GradeChecker.UNPARSED ? userTexts.get(i) : null;
+            if (key.isCorrect(i, userAnswers[i], userText, checker)) {
+                correct[correctCount++] = i + 1; // 题号从1开始
+            } else {
+                wrong[wrongCount++] = i + 1;
+            }
+        }
+        correctParts[part] = Arrays.copyOf(correct, correctCount);
+        wrongParts[part] = Arrays.copyOf(wrong, wrongCount);
+    }
+
+    /**
+     * 按顺序拼接各区间的题号，并追加[tailFrom, tailTo)对应的题号
+     */
+    private static int[] concat(int[][] parts, int tailFrom, int tailTo) {
+        int total = tailTo - tailFrom;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] merged = new int[total];
+        int position = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, merged, position, part.length);
+            position += part.length;
+        }
+        for (int i = tailFrom; i < tailTo; i++) {
+            merged[position++] = i + 1;
+        }
+        return merged;
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 可以抛出IOException的任务体
+     */
+    interface Chunk {
+        void run() throws IOException;
+    }
+
+    static ForkJoinTask<?> task(Chunk chunk) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    chunk.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 在线程池中执行一组任务并等待完成；已经在线程池中时直接分叉执行（批量判定时会嵌套调用）
+     */
+    static void invokeAll(ForkJoinPool pool, List<ForkJoinTask<?>> tasks) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+}
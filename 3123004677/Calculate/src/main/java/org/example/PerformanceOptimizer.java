@@ -1,7 +1,12 @@
 package org.example;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * 性能优化类，用于提高程序执行效率
@@ -9,98 +14,584 @@ import java.util.concurrent.*;
 public class PerformanceOptimizer {
     
     /**
-     * 并行生成表达式
-     * 使用线程池并行处理表达式生成，提高大量题目生成时的性能
+     * 每个工作线程一次从全局尝试预算中领取的次数，减少对共享计数器的竞争
+     */
+    private static final int ATTEMPT_BATCH = 64;
+    
+    /**
+     * 流式生成时每批传递给写入线程的题目数量
+     */
+    private static final int STREAM_BATCH_SIZE = 256;
+    
+    /**
+     * 共享队列中最多缓存的批次数，内存占用与它成正比而与题目总数无关
+     */
+    private static final int STREAM_QUEUE_CAPACITY = 64;
+    
+    /**
+     * 可复现生成时在途（已领取但还没有合并）的批次数上限为它乘以线程数
+     */
+    private static final int ORDERED_QUEUE_CAPACITY = 8;
+    
+    /**
+     * 并行生成表达式，不要求可复现
+     * 各生成线程在共享的无锁指纹集合上并发查重，题目顺序取决于线程调度
+     * @throws RuntimeException 尝试预算用完仍未生成足够的题目时
      */
     public static List<Expression> generateExpressionsInParallel(int count, int range, int threadCount) {
+        return generateExpressionsInParallel(count, range, threadCount, randomSeed(), false);
+    }
+    
+    /**
+     * 可复现的并行生成：相同的种子总是生成完全相同的题目序列，与线程数无关
+     * @throws RuntimeException 尝试预算用完仍未生成足够的题目时
+     */
+    public static List<Expression> generateExpressionsInParallel(int count, int range, int threadCount, long seed) {
+        return generateExpressionsInParallel(count, range, threadCount, seed, true);
+    }
+    
+    /**
+     * 少量题目使用单线程生成；小数值范围直接从枚举的表达式空间中抽样，空间不够时立即报告确切数量
+     */
+    private static List<Expression> generateExpressionsInParallel(int count, int range, int threadCount, long seed,
+                                                                  boolean ordered) {
         if (count <= 100) {
-            // 对于少量题目，使用单线程生成
-            ExpressionGenerator generator = new ExpressionGenerator(range);
-            return generator.generateExpressions(count);
+            return new ExpressionGenerator(range, new SplittableRandom(seed)).generateExpressions(count);
         }
         
-        // 对于大量题目，使用多线程并行生成
-        int processors = Math.min(Runtime.getRuntime().availableProcessors(), threadCount);
-        ExecutorService executor = Executors.newFixedThreadPool(processors);
-        
-        // 计算每个线程需要生成的题目数量
-        int batchSize = count / processors;
-        int remainder = count % processors;
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(range, new SplittableRandom(seed));
+        if (enumerator != null) {
+            return enumerator.sample(count);
+        }
         
-        // 创建任务列表
-        List<Callable<List<Expression>>> tasks = new ArrayList<>();
-        Set<String> sharedSet = Collections.synchronizedSet(new HashSet<>());
+        GenerationResult result = generateWithStats(count, range, threadCount, seed, ordered);
+        if (result.getShortfall() > 0) {
+            throw new RuntimeException("无法生成" + count + "个不重复的表达式，还差" +
+                    result.getShortfall() + "个，请尝试增加数值范围");
+        }
+        return result.getExpressions();
+    }
+    
+    /**
+     * 并行生成表达式并返回统计信息，不要求可复现
+     * 各线程不静态分配题目数量，而是从共享的剩余数量计数器中领取，在共享的无锁指纹集合上查重，
+     * 直到达到目标或全局尝试预算（目标数量的100倍）用完，缺口会在结果中准确报告
+     */
+    public static GenerationResult generateWithStats(int count, int range, int threadCount) {
+        return generateWithStats(count, range, threadCount, randomSeed(), false);
+    }
+    
+    /**
+     * 可复现的并行生成并返回统计信息
+     * 输出只取决于种子，与线程数和线程调度无关；各线程从全局尝试预算（目标数量的100倍）中按批领取，
+     * 预算用完时缺口会在结果中准确报告
+     */
+    public static GenerationResult generateWithStats(int count, int range, int threadCount, long seed) {
+        return generateWithStats(count, range, threadCount, seed, true);
+    }
+    
+    /**
+     * 数值范围很小、表达式空间可以枚举时改为在调用线程中不放回地抽样，缺口就是空间的确切不足
+     */
+    private static GenerationResult generateWithStats(int count, int range, int threadCount, long seed,
+                                                      boolean ordered) {
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(range, new SplittableRandom(seed));
+        if (enumerator != null) {
+            GenerationResult.WorkerStats stats = new GenerationResult.WorkerStats();
+            List<Expression> expressions = new ArrayList<>(count);
+            enumerateExpressions(enumerator, new AtomicInteger(count), stats, expressions::add);
+            return new GenerationResult(expressions, count, Collections.singletonList(stats));
+        }
         
-        for (int i = 0; i < processors; i++) {
-            int taskCount = batchSize + (i < remainder ? 1 : 0);
-            if (taskCount > 0) {
-                tasks.add(() -> {
-                    ExpressionGenerator generator = new ExpressionGenerator(range);
-                    return generateUniqueExpressions(generator, taskCount, sharedSet);
-                });
-            }
+        List<Expression> expressions = new ArrayList<>(count);
+        List<GenerationResult.WorkerStats> workerStats;
+        try {
+            workerStats = generateRandom(count, range, threadCount, seed, ordered, false,
+                    (batch, index) -> expressions.add(batch.expressions[index]));
+        } catch (IOException e) {
+            throw new RuntimeException("生成表达式时发生错误: " + e.getMessage(), e);
+        }
+        return new GenerationResult(expressions, count, workerStats);
+    }
+    
+    /**
+     * 流式生成表达式，不要求可复现：生成线程并发查重后把题目和答案按批放入共享的有界队列，
+     * 调用线程作为唯一的写入者按到达顺序写入题目和答案文件；内存占用与可复现的版本相同
+     */
+    public static GenerationResult generateStreaming(int count, int range, int threadCount,
+                                                     FileHandler fileHandler) throws IOException {
+        return generateStreaming(count, range, threadCount, fileHandler, randomSeed(), false);
+    }
+    
+    /**
+     * 可复现的流式生成：多个生成线程领取编号的批次，把题目和答案放入完成队列，
+     * 调用线程作为唯一的写入者按批次编号的顺序查重后依次写入题目和答案文件
+     * 在途批次达到上限时生成线程阻塞等待（背压），题目和答案不在内存中保留；相同的种子写出完全相同的文件
+     * 查重的指纹集合仍然随题目数量增长，每道题16到32字节（1000万道约268MB），其余内存只与队列容量有关
+     */
+    public static GenerationResult generateStreaming(int count, int range, int threadCount,
+                                                     FileHandler fileHandler, long seed) throws IOException {
+        return generateStreaming(count, range, threadCount, fileHandler, seed, true);
+    }
+    
+    private static GenerationResult generateStreaming(int count, int range, int threadCount,
+                                                      FileHandler fileHandler, long seed, boolean ordered)
+            throws IOException {
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(range, new SplittableRandom(seed));
+        if (enumerator != null) {
+            // 表达式空间不够时在写入任何文件之前失败
+            enumerator.checkCapacity(count);
+        }
+        List<GenerationResult.WorkerStats> workerStats;
+        int generated;
+        try (ExerciseOutput output = fileHandler.openExerciseOutput()) {
+            OrderedConsumer consumer = (batch, index) ->
+                    output.write(batch.expressions[index], batch.exercises[index], batch.answers[index]);
+            workerStats = enumerator != null
+                    ? generateEnumerated(count, enumerator, true, consumer)
+                    : generateRandom(count, range, threadCount, seed, ordered, true, consumer);
+            generated = output.getCount();
+        }
+        return new GenerationResult(generated, count, workerStats);
+    }
+    
+    /**
+     * 未指定种子时使用的随机种子
+     */
+    private static long randomSeed() {
+        return new SplittableRandom().nextLong();
+    }
+    
+    /**
+     * 随机构造表达式：要求可复现时按固定顺序合并各线程的批次，否则各线程并发查重、按到达顺序输出
+     */
+    private static List<GenerationResult.WorkerStats> generateRandom(
+            int count, int range, int threadCount, long seed, boolean ordered, boolean render,
+            OrderedConsumer consumer) throws IOException {
+        if (ordered) {
+            return generateOrdered(count, range, threadCount, seed, render, consumer);
+        }
+        int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), threadCount));
+        AtomicLong budget = new AtomicLong((long) count * 100);
+        ConcurrentLongHashSet sharedSet = new ConcurrentLongHashSet(count + workers);
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[workers];
+        for (int i = 0; i < workers; i++) {
+            streams[i] = root.split();
+        }
+        return generatePipelined(count, workers, render, consumer, (worker, remaining, stats, sink) -> {
+            ExpressionGenerator generator = new ExpressionGenerator(range, streams[worker]);
+            generator.setSubtreeCache(true);
+            generateUniqueExpressions(generator, remaining, budget, sharedSet, stats, sink);
+        });
+    }
+    
+    /**
+     * 一个生成线程从枚举器中不放回地抽样，抽样没有重复和预算问题，输出只取决于枚举器的随机数流
+     */
+    private static List<GenerationResult.WorkerStats> generateEnumerated(
+            int count, ExpressionEnumerator enumerator, boolean render, OrderedConsumer consumer) throws IOException {
+        return generatePipelined(count, 1, render, consumer,
+                (worker, remaining, stats, sink) -> enumerateExpressions(enumerator, remaining, stats, sink));
+    }
+    
+    /**
+     * 生成线程把采用的表达式按批放入共享的有界队列，调用线程作为唯一的消费者按到达顺序把每个表达式交给consumer
+     * render为true时生成线程同时计算答案并渲染题目文本；生成线程出错时同样发送结束标记，由调用线程抛出错误
+     * @throws IOException 生成线程出错（错误作为原因）或消费时被中断
+     */
+    private static List<GenerationResult.WorkerStats> generatePipelined(
+            int count, int workers, boolean render, OrderedConsumer consumer, Producer producer) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        AtomicInteger remaining = new AtomicInteger(count);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        BlockingQueue<ExerciseBatch> queue = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        List<GenerationResult.WorkerStats> workerStats = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            GenerationResult.WorkerStats stats = new GenerationResult.WorkerStats();
+            workerStats.add(stats);
+            executor.execute(() -> {
+                BatchingSink sink = new BatchingSink(queue, render);
+                try {
+                    producer.produce(worker, remaining, stats, sink);
+                    sink.flush();
+                } catch (CancellationException e) {
+                    // 消费线程已经放弃，直接退出
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    // 无论成功与否都发送结束标记，保证消费线程能够退出
+                    sink.finish();
+                }
+            });
         }
+        executor.shutdown();
         
-        // 执行任务并收集结果
-        List<Expression> result = new ArrayList<>();
         try {
-            List<Future<List<Expression>>> futures = executor.invokeAll(tasks);
-            for (Future<List<Expression>> future : futures) {
-                result.addAll(future.get());
+            int finished = 0;
+            while (finished < workers && failure.get() == null) {
+                ExerciseBatch batch = queue.take();
+                if (batch == ExerciseBatch.END) {
+                    finished++;
+                    continue;
+                }
+                for (int i = 0; i < batch.size; i++) {
+                    consumer.accept(batch, i);
+                }
             }
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("生成表达式时发生错误: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("写入题目时被中断", e);
         } finally {
-            executor.shutdown();
+            // 消费失败时停止所有生成线程，避免它们阻塞在已满的队列上
+            remaining.set(0);
+            stop(executor);
         }
+        checkFailure(failure);
+        return workerStats;
+    }
+    
+    /**
+     * 生成不重复的表达式，直到全局剩余数量为0或尝试预算用完
+     * 在共享的无锁指纹集合上原子地查重，不需要任何锁；每个被采用的表达式交给sink处理
+     */
+    private static void generateUniqueExpressions(
+            ExpressionGenerator generator, AtomicInteger remaining, AtomicLong budget,
+            ConcurrentLongHashSet sharedSet, GenerationResult.WorkerStats stats, Consumer<Expression> sink) {
+        long localBudget = 0;
         
-        return result;
+        while (remaining.get() > 0) {
+            if (localBudget == 0) {
+                // 从全局预算中领取一批尝试次数，减少对共享计数器的竞争
+                localBudget = Math.min(ATTEMPT_BATCH, budget.getAndAdd(-ATTEMPT_BATCH));
+                if (localBudget <= 0) {
+                    break;
+                }
+            }
+            localBudget--;
+            stats.recordAttempt();
+            
+            Expression expr = generator.generateSingleExpression();
+            if (generator.wasAdjusted()) {
+                stats.recordReject();
+            }
+            if (!sharedSet.add(expr.getFingerprint())) {
+                stats.recordDuplicate();
+                continue;
+            }
+            
+            // 领取一个名额，名额已被其他线程领完时丢弃该表达式
+            if (remaining.getAndDecrement() <= 0) {
+                break;
+            }
+            sink.accept(expr);
+            stats.recordAccepted();
+        }
     }
     
     /**
-     * 生成不重复的表达式
+     * 从枚举器中不放回地抽取表达式，直到剩余数量为0或表达式空间抽完
+     * 被剪掉的候选（3个运算符的负数减法和非法除法）记为无效尝试，抽样不会产生重复
      */
-    private static List<Expression> generateUniqueExpressions(
-            ExpressionGenerator generator, int count, Set<String> sharedSet) {
-        List<Expression> expressions = new ArrayList<>();
-        int attempts = 0;
-        int maxAttempts = count * 100;
+    private static void enumerateExpressions(ExpressionEnumerator enumerator, AtomicInteger remaining,
+                                             GenerationResult.WorkerStats stats, Consumer<Expression> sink) {
+        while (remaining.get() > 0) {
+            long rejected = enumerator.getRejectedCount();
+            Expression expr = enumerator.next();
+            for (long i = enumerator.getRejectedCount() - rejected; i > 0; i--) {
+                stats.recordAttempt();
+                stats.recordReject();
+            }
+            if (expr == null) {
+                break;
+            }
+            stats.recordAttempt();
+            remaining.decrementAndGet();
+            sink.accept(expr);
+            stats.recordAccepted();
+        }
+    }
+    
+    /**
+     * 可复现的并行生成
+     * 全局尝试预算（目标数量的100倍）按固定大小切成编号的批次，生成线程从共享的计数器领取下一个批次编号，
+     * 用只由种子和批次编号确定的随机数流生成这一批候选并计算指纹，放入共享的完成队列；
+     * 调用线程按批次编号的顺序合并，在指纹集合上查重后交给consumer，直到达到目标数量。
+     * 每一批的内容和合并顺序都是固定的，因此结果与线程数和线程调度都无关；
+     * 慢的线程只推迟它手中的那一批，其余线程继续领取后面的批次，在途批次数有上限
+     * @return 各线程的统计：尝试和无效由生成线程记录，重复和采用由合并线程记在生成该批的线程名下
+     * @throws IOException 生成线程出错（错误作为原因）或合并时被中断
+     */
+    private static List<GenerationResult.WorkerStats> generateOrdered(
+            int count, int range, int threadCount, long seed, boolean render, OrderedConsumer consumer)
+            throws IOException {
+        int workers = Math.max(1, threadCount);
+        long budget = (long) count * 100;
+        AtomicLong nextBatch = new AtomicLong();
+        Semaphore window = new Semaphore(workers * ORDERED_QUEUE_CAPACITY);
+        BlockingQueue<ExerciseBatch> completed = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<GenerationResult.WorkerStats> workerStats = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            GenerationResult.WorkerStats stats = new GenerationResult.WorkerStats();
+            workerStats.add(stats);
+            executor.execute(() -> produceBatches(worker, range, seed, budget, nextBatch, window, render, stats,
+                    completed, failure));
+        }
+        executor.shutdown();
         
-        while (expressions.size() < count && attempts < maxAttempts) {
-            try {
-                Expression expr = generator.generateSingleExpression();
-                String canonicalForm = expr.getCanonicalForm();
-                
-                // 使用同步集合检查是否重复
-                synchronized (sharedSet) {
-                    if (!sharedSet.contains(canonicalForm)) {
-                        expressions.add(expr);
-                        sharedSet.add(canonicalForm);
+        LongHashSet seen = new LongHashSet(count);
+        Map<Long, ExerciseBatch> pending = new HashMap<>();
+        long next = 0;
+        int accepted = 0;
+        try {
+            int active = workers;
+            while (accepted < count && active > 0 && failure.get() == null) {
+                ExerciseBatch batch = completed.take();
+                if (batch == ExerciseBatch.END) {
+                    active--;
+                    continue;
+                }
+                pending.put(batch.sequence, batch);
+                // 按编号合并已经到齐的批次
+                for (ExerciseBatch ready; accepted < count && (ready = pending.remove(next)) != null; next++) {
+                    GenerationResult.WorkerStats stats = workerStats.get(ready.worker);
+                    for (int i = 0; i < ready.size && accepted < count; i++) {
+                        if (seen.add(ready.fingerprints[i])) {
+                            consumer.accept(ready, i);
+                            stats.recordAccepted();
+                            accepted++;
+                        } else {
+                            stats.recordDuplicate();
+                        }
                     }
+                    window.release();
                 }
-            } catch (ArithmeticException e) {
-                // 忽略无效表达式
             }
-            
-            attempts++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("生成题目时被中断", e);
+        } finally {
+            stop(executor);
+        }
+        checkFailure(failure);
+        return workerStats;
+    }
+    
+    /**
+     * 可复现生成中的一个生成线程：领取批次编号，用这一批的随机数流生成候选表达式并计算指纹，放入完成队列；
+     * 预算用完后发送结束标记。出错时把错误交给合并线程，同样发送结束标记，合并线程不会一直等待
+     */
+    private static void produceBatches(int worker, int range, long seed, long budget, AtomicLong nextBatch,
+                                       Semaphore window, boolean render, GenerationResult.WorkerStats stats,
+                                       BlockingQueue<ExerciseBatch> completed, AtomicReference<Throwable> failure) {
+        try {
+            ExpressionGenerator generator = new ExpressionGenerator(range, new SplittableRandom(seed));
+            generator.setSubtreeCache(true);
+            List<Expression> pending = new ArrayList<>(STREAM_BATCH_SIZE);
+            while (true) {
+                // 在途的批次太多时等待合并线程赶上
+                window.acquire();
+                long sequence = nextBatch.getAndIncrement();
+                long first = sequence * STREAM_BATCH_SIZE;
+                if (first >= budget) {
+                    window.release();
+                    break;
+                }
+                generator.reseed(batchSeed(seed, sequence));
+                for (long i = Math.min(STREAM_BATCH_SIZE, budget - first); i > 0; i--) {
+                    stats.recordAttempt();
+                    pending.add(generator.generateSingleExpression());
+                    if (generator.wasAdjusted()) {
+                        stats.recordReject();
+                    }
+                }
+                completed.put(ExerciseBatch.of(pending, render, sequence, worker));
+                pending.clear();
+            }
+        } catch (InterruptedException e) {
+            // 合并线程已经取够题目，不再需要结束标记
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
         }
+        // 无论成功与否都发送结束标记，保证合并线程能够退出（完成队列没有容量限制，不会阻塞）
+        completed.add(ExerciseBatch.END);
+    }
+    
+    /**
+     * 第sequence批的随机数种子：种子的SplitMix64序列中的第sequence个值，不需要依次生成前面的批次
+     */
+    private static long batchSeed(long seed, long sequence) {
+        return Expression.mix(seed + (sequence + 1) * 0x9e3779b97f4a7c15L);
+    }
+    
+    /**
+     * 停止生成线程：它们可能阻塞在已满的队列上，中断后等待它们退出，保证统计信息完整可见
+     */
+    private static void stop(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 生成线程出错时把错误抛给调用线程
+     */
+    private static void checkFailure(AtomicReference<Throwable> failure) throws IOException {
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IOException("生成题目时发生错误: " + e, e);
+        }
+    }
+    
+    /**
+     * 共享队列的一个生成线程：把采用的表达式交给sink，直到剩余数量为0或没有更多的表达式
+     */
+    private interface Producer {
+        void produce(int worker, AtomicInteger remaining, GenerationResult.WorkerStats stats,
+                     Consumer<Expression> sink);
+    }
+    
+    /**
+     * 按顺序接收合并后的表达式（批次中的第index个）
+     */
+    private interface OrderedConsumer {
+        void accept(ExerciseBatch batch, int index) throws IOException;
+    }
+    
+    /**
+     * 一批表达式及其渲染好的题目和答案
+     */
+    private static final class ExerciseBatch {
+        /** 生成线程结束的标记 */
+        static final ExerciseBatch END = new ExerciseBatch(null, new String[0], new String[0], null, 0, -1, -1);
+        
+        final Expression[] expressions;
+        final String[] exercises;
+        final String[] answers;
+        final long[] fingerprints; // 可复现生成时由生成线程计算，否则为null
+        final int size;
+        final long sequence;       // 可复现生成时的批次编号
+        final int worker;          // 可复现生成时生成这一批的线程
         
-        return expressions;
+        ExerciseBatch(Expression[] expressions, String[] exercises, String[] answers, long[] fingerprints,
+                      int size, long sequence, int worker) {
+            this.expressions = expressions;
+            this.exercises = exercises;
+            this.answers = answers;
+            this.fingerprints = fingerprints;
+            this.size = size;
+            this.sequence = sequence;
+            this.worker = worker;
+        }
+        
+        /**
+         * 把攒下的表达式作为一批，render为true时在当前线程计算答案并渲染题目文本
+         */
+        static ExerciseBatch of(List<Expression> pending, boolean render) {
+            return of(pending, render, null, -1, -1);
+        }
+        
+        /**
+         * 可复现生成的一批：同时在当前线程计算指纹，合并线程只需查重
+         */
+        static ExerciseBatch of(List<Expression> pending, boolean render, long sequence, int worker) {
+            long[] fingerprints = new long[pending.size()];
+            for (int i = 0; i < fingerprints.length; i++) {
+                fingerprints[i] = pending.get(i).getFingerprint();
+            }
+            return of(pending, render, fingerprints, sequence, worker);
+        }
+        
+        private static ExerciseBatch of(List<Expression> pending, boolean render, long[] fingerprints,
+                                        long sequence, int worker) {
+            Expression[] expressions = pending.toArray(new Expression[0]);
+            if (!render) {
+                return new ExerciseBatch(expressions, null, null, fingerprints, expressions.length, sequence, worker);
+            }
+            List<String> answers = CompiledExpressions.compile(pending).calculateResults();
+            String[] exercises = new String[expressions.length];
+            for (int i = 0; i < exercises.length; i++) {
+                exercises[i] = expressions[i].toString();
+            }
+            return new ExerciseBatch(expressions, exercises, answers.toArray(new String[0]), fingerprints,
+                    exercises.length, sequence, worker);
+        }
     }
     
     /**
-     * 优化文件写入
-     * 使用缓冲写入和批处理提高文件写入性能
+     * 在生成线程中把表达式攒成批次（render为true时同时计算答案、渲染文本）后放入队列
      */
-    public static void writeExpressionsOptimized(List<Expression> expressions, String filePath) {
-        // 实现批量写入逻辑
+    private static final class BatchingSink implements Consumer<Expression> {
+        private final BlockingQueue<ExerciseBatch> queue;
+        private final boolean render;
+        private final List<Expression> pending = new ArrayList<>(STREAM_BATCH_SIZE);
+        
+        BatchingSink(BlockingQueue<ExerciseBatch> queue, boolean render) {
+            this.queue = queue;
+            this.render = render;
+        }
+        
+        @Override
+        public void accept(Expression expression) {
+            pending.add(expression);
+            if (pending.size() == STREAM_BATCH_SIZE) {
+                flush();
+            }
+        }
+        
+        /**
+         * 把当前攒下的表达式作为一批放入队列
+         */
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            put(ExerciseBatch.of(pending, render));
+            pending.clear();
+        }
+        
+        /**
+         * 发送结束标记；消费线程已经放弃时不再发送
+         */
+        void finish() {
+            try {
+                queue.put(ExerciseBatch.END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        private void put(ExerciseBatch batch) {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                // 写入线程已经放弃，直接退出
+                Thread.currentThread().interrupt();
+                throw new CancellationException("写入已中止");
+            }
+        }
     }
     
     /**
-     * 使用更高效的哈希算法进行表达式查重
+     * 优化文件写入
+     * 题目一遍渲染为UTF-8字节后复制进可重用的大缓冲区，通过FileChannel整块写入
      */
-    public static boolean isDuplicate(String expr1, String expr2) {
-        // 实现高效查重算法
-        return false;
+    public static void writeExpressionsOptimized(List<Expression> expressions, String filePath) throws IOException {
+        ExpressionRenderer renderer = new ExpressionRenderer();
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(filePath)) {
+            for (int i = 0; i < expressions.size(); i++) {
+                byte[] exercise = renderer.render(expressions.get(i));
+                writer.writeNumberedLine(i + 1, exercise, 0, renderer.getLength());
+            }
+        }
     }
 }
\ No newline at end of file
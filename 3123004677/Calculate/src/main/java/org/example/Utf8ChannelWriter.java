@@ -0,0 +1,244 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于FileChannel的UTF-8文本写入器
+ * 字符直接编码进一个可重用的大缓冲区，缓冲区满时整块写入通道，
+ * 不经过Writer/Encoder，也不为每行拼接字符串
+ * 写入压缩文件时缓冲区整块交给{@link Compression}打开的通道，由后台线程压缩
+ */
+public class Utf8ChannelWriter implements Closeable {
+    /** 默认缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer; // 包装buffer的视图，用于写入通道
+    private char[] chars = new char[256]; // 复制字符串内容用的临时数组，避免逐个调用charAt
+    private int position;
+    private long bytesWritten;
+
+    /**
+     * 按扩展名选择压缩方式（见{@link Compression#forPath}）
+     */
+    public Utf8ChannelWriter(String filePath) throws IOException {
+        this(filePath, Compression.forPath(filePath));
+    }
+
+    public Utf8ChannelWriter(String filePath, Compression compression) throws IOException {
+        this(filePath, compression, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Utf8ChannelWriter(String filePath, int bufferSize) throws IOException {
+        this(filePath, Compression.forPath(filePath), bufferSize);
+    }
+
+    public Utf8ChannelWriter(String filePath, Compression compression, int bufferSize) throws IOException {
+        this.channel = compression.open(filePath);
+        this.buffer = new byte[Math.max(bufferSize, 64)];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * 写入一行带题号的文本："题号. 内容"
+     */
+    public void writeNumberedLine(int number, CharSequence text) throws IOException {
+        writeInt(number);
+        writeAscii('.');
+        writeAscii(' ');
+        write(text);
+        newLine();
+    }
+
+    /**
+     * 写入一行带题号的已编码文本："题号. 内容"
+     */
+    public void writeNumberedLine(int number, byte[] bytes, int offset, int length) throws IOException {
+        writeInt(number);
+        writeAscii('.');
+        writeAscii(' ');
+        writeBytes(bytes, offset, length);
+        newLine();
+    }
+
+    /**
+     * 写入一个十进制整数
+     */
+    public void writeInt(int value) throws IOException {
+        ensureCapacity(11);
+        if (value < 0) {
+            buffer[position++] = '-';
+            if (value == Integer.MIN_VALUE) {
+                write("2147483648");
+                return;
+            }
+            value = -value;
+        }
+        int digits = digitCount(value);
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * 写入一个ASCII字符
+     */
+    public void writeAscii(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    /**
+     * 写入已编码好的字节
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length) {
+            flush();
+            channel.write(ByteBuffer.wrap(bytes, offset, length));
+            bytesWritten += length;
+            return;
+        }
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * 以UTF-8编码写入文本
+     */
+    public void write(CharSequence text) throws IOException {
+        int length = text.length();
+        // 每个字符最多占3个字节（代理对两个字符共占4个字节）
+        if (length * 3 <= buffer.length) {
+            ensureCapacity(length * 3);
+            if (text instanceof String) {
+                if (chars.length < length) {
+                    chars = new char[Math.max(length, chars.length * 2)];
+                }
+                ((String) text).getChars(0, length, chars, 0);
+                position = encode(chars, length, buffer, position);
+            } else {
+                position = encode(text, 0, length, buffer, position);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                ensureCapacity(4);
+                int next = (Character.isHighSurrogate(text.charAt(i)) && i + 1 < length) ? i + 2 : i + 1;
+                position = encode(text, i, next, buffer, position);
+                i = next - 1;
+            }
+        }
+    }
+
+    /**
+     * 写入行分隔符
+     */
+    public void newLine() throws IOException {
+        writeBytes(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * 已写入的字节数（包括仍在缓冲区中的部分，压缩时为压缩前的字节数）
+     */
+    public long getBytesWritten() {
+        return bytesWritten + position;
+    }
+
+    /**
+     * 把缓冲区中的数据写入通道
+     */
+    public void flush() throws IOException {
+        byteBuffer.clear().limit(position);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        bytesWritten += position;
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flush();
+        }
+    }
+
+    /**
+     * 把chars[0, length)按UTF-8编码写入dest，返回写入后的位置
+     * ASCII字符走最短的分支，其余情况交给通用实现
+     */
+    private static int encode(char[] chars, int length, byte[] dest, int pos) {
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                dest[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                dest[pos++] = (byte) (0xC0 | (c >> 6));
+                dest[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                return encode(CharBuffer.wrap(chars, 0, length), i, length, dest, pos);
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * 把text[start, end)按UTF-8编码写入dest，返回写入后的位置
+     */
+    static int encode(CharSequence text, int start, int end, byte[] dest, int pos) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                dest[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                dest[pos++] = (byte) (0xC0 | (c >> 6));
+                dest[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                dest[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                dest[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                dest[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                dest[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符，与标准编码器一样替换为'?'
+                dest[pos++] = '?';
+            } else {
+                dest[pos++] = (byte) (0xE0 | (c >> 12));
+                dest[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dest[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * 非负整数的十进制位数
+     */
+    static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
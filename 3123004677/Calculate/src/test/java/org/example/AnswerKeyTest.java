@@ -0,0 +1,76 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AnswerKeyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSidecarRoundTrip() throws IOException {
+        Path exercises = tempDir.resolve("Exercises.txt");
+        Files.write(exercises, "1. 3 + 4 = \n".getBytes(StandardCharsets.UTF_8));
+        byte[] hash = AnswerKey.hash(exercises.toString());
+        assertEquals(32, hash.length);
+
+        Map<Integer, String> exact = new HashMap<>();
+        exact.put(2, "4294967296");
+        AnswerKey key = new AnswerKey(new long[]{FractionMath.valueOf(7), FractionMath.of(5, 2), GradeChecker.UNPARSED}, exact);
+        String sidecar = AnswerKey.sidecarPath(exercises.toString());
+        key.write(sidecar, hash);
+
+        AnswerKey loaded = AnswerKey.read(sidecar, hash);
+        assertNotNull(loaded);
+        assertTrue(loaded.isMapped());
+        assertEquals(3, loaded.size());
+        assertEquals(FractionMath.of(5, 2), loaded.get(1));
+        assertEquals("7", loaded.getAnswer(0));
+        assertEquals("2'1/2", loaded.getAnswer(1));
+        assertEquals("4294967296", loaded.getAnswer(2));
+
+        // 题目文件改变后缓存失效
+        Files.write(exercises, "1. 3 + 5 = \n".getBytes(StandardCharsets.UTF_8));
+        assertNull(AnswerKey.read(sidecar, AnswerKey.hash(exercises.toString())));
+        assertNull(AnswerKey.read(tempDir.resolve("missing.key").toString(), hash));
+    }
+
+    @Test
+    public void testIsCorrect() {
+        Map<Integer, String> exact = new HashMap<>();
+        exact.put(1, "4294967296");
+        AnswerKey key = new AnswerKey(new long[]{FractionMath.of(1, 2), GradeChecker.UNPARSED}, exact);
+        GradeChecker checker = new GradeChecker();
+
+        assertTrue(key.isCorrect(0, GradeChecker.parseAnswer("2/4"), null, checker));
+        assertFalse(key.isCorrect(0, GradeChecker.parseAnswer("1/3"), null, checker));
+        assertFalse(key.isCorrect(0, GradeChecker.UNPARSED, "abc", checker));
+        assertTrue(key.isCorrect(1, GradeChecker.UNPARSED, "4294967296", checker));
+        assertFalse(key.isCorrect(1, GradeChecker.parseAnswer("7"), null, checker));
+    }
+    
+    @Test
+    public void testBuilder() {
+        AnswerKey.Builder builder = new AnswerKey.Builder();
+        for (int i = 0; i < 3000; i++) {
+            builder.add(String.valueOf(i));
+        }
+        builder.add("2'1/2");
+        builder.add("4294967296");
+        AnswerKey key = builder.build();
+        assertEquals(3002, key.size());
+        assertEquals(FractionMath.valueOf(2999), key.get(2999));
+        assertEquals(FractionMath.of(5, 2), key.get(3000));
+        assertEquals(GradeChecker.UNPARSED, key.get(3001));
+        assertEquals("4294967296", key.getAnswer(3001));
+    }
+}
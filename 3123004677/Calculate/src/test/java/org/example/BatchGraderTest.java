@@ -0,0 +1,71 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class BatchGraderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testGradeDirectory() throws IOException {
+        Path exercises = tempDir.resolve("Exercises.txt");
+        Files.write(exercises, "1. 3 + 4 = \n2. 1/2 × 3 = \n3. 5 - 2 = \n".getBytes(StandardCharsets.UTF_8));
+        Path answerDir = Files.createDirectory(tempDir.resolve("answers"));
+        Files.write(answerDir.resolve("alice.txt"), "1. 7\n2. 1'1/2\n3. 3\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(answerDir.resolve("bob.txt"), "1. 7\n2. 3/2\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(answerDir.resolve("carol.txt"), "1. 8\n2. x\n3. 003\n".getBytes(StandardCharsets.UTF_8));
+        Path outputDir = tempDir.resolve("Grades");
+
+        BatchGrader grader = new BatchGrader(2);
+        List<BatchGrader.StudentResult> results =
+                grader.gradeDirectory(exercises.toString(), answerDir.toString(), outputDir.toString());
+        assertFalse(grader.isKeyFromCache());
+        assertTrue(new File(AnswerKey.sidecarPath(exercises.toString())).isFile());
+
+        assertEquals(3, results.size());
+        assertEquals("alice.txt", results.get(0).getName());
+        assertEquals(3, results.get(0).getCorrectCount());
+        assertEquals(2, results.get(1).getCorrectCount());
+        assertEquals(1, results.get(2).getCorrectCount());
+
+        List<String> bob = Files.readAllLines(outputDir.resolve("Grade_bob.txt"));
+        assertEquals("Correct: 2 (1, 2)", bob.get(0));
+        assertEquals("Wrong: 1 (3)", bob.get(1));
+
+        List<String> summary = Files.readAllLines(outputDir.resolve(BatchGrader.SUMMARY_FILE));
+        assertEquals("Students: 3", summary.get(0));
+        assertEquals("carol.txt: Correct: 1, Wrong: 2", summary.get(3));
+
+        // 第二次判定直接使用缓存的标准答案，结果不变
+        List<BatchGrader.StudentResult> again =
+                grader.gradeDirectory(exercises.toString(), answerDir.toString(), outputDir.toString());
+        assertTrue(grader.isKeyFromCache());
+        assertEquals(bob, Files.readAllLines(outputDir.resolve("Grade_bob.txt")));
+        assertEquals(3, again.get(0).getCorrectCount());
+    }
+
+    @Test
+    public void testListAnswerFiles() throws IOException {
+        Path answerDir = Files.createDirectory(tempDir.resolve("answers"));
+        Files.write(answerDir.resolve("b.txt"), new byte[0]);
+        Files.write(answerDir.resolve("a.txt"), new byte[0]);
+        Files.write(answerDir.resolve(".hidden"), new byte[0]);
+        Files.write(answerDir.resolve("Exercises.txt.key"), new byte[0]);
+        Files.createDirectory(answerDir.resolve("sub"));
+
+        List<String> files = BatchGrader.listAnswerFiles(answerDir.toString());
+        assertEquals(2, files.size());
+        assertTrue(files.get(0).endsWith("a.txt"));
+        assertTrue(files.get(1).endsWith("b.txt"));
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class BinaryExerciseFileTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testRandomAccess() throws IOException {
+        List<Expression> expressions = new ExpressionGenerator(20, new SplittableRandom(5)).generateExpressions(3000);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+        String path = tempDir.resolve("Exercises.bin").toString();
+        // 很小的块，让随机访问跨越许多块
+        try (BinaryExerciseFile.Writer writer = new BinaryExerciseFile.Writer(path, 100)) {
+            for (int i = 0; i < expressions.size(); i++) {
+                writer.write(expressions.get(i), answers.get(i));
+            }
+            assertEquals(3000, writer.getCount());
+        }
+        
+        assertTrue(BinaryExerciseFile.isBinary(path));
+        BinaryExerciseFile file = BinaryExerciseFile.open(path);
+        assertEquals(3000, file.size());
+        assertEquals(100, file.getBlockSize());
+        for (int i : new int[]{2999, 0, 1234, 99, 100, 101, 1500}) {
+            assertEquals(expressions.get(i).toString(), file.getExpression(i).toString());
+            assertEquals(answers.get(i), file.getAnswer(i));
+            assertEquals(GradeChecker.parseAnswer(answers.get(i)), file.getAnswerValue(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> file.getExpression(3000));
+        
+        AnswerKey key = file.toAnswerKey();
+        assertEquals(3000, key.size());
+        for (int i = 0; i < answers.size(); i++) {
+            assertEquals(answers.get(i), key.getAnswer(i));
+        }
+        
+        // 每道题远小于文本格式的两行
+        assertTrue(Files.size(tempDir.resolve("Exercises.bin")) < 3000 * 12);
+    }
+    
+    @Test
+    public void testTextAnswers() throws IOException {
+        String path = tempDir.resolve("Exercises.bin").toString();
+        char[] longAnswer = new char[(1 << 20) + 10];
+        Arrays.fill(longAnswer, '9');
+        Expression expression = new Expression(new Expression.OperatorNode(Expression.OperatorType.ADD,
+                new Expression.NumberNode(new Fraction(1)), new Expression.NumberNode(new Fraction(2, 3))));
+        try (BinaryExerciseFile.Writer writer = new BinaryExerciseFile.Writer(path)) {
+            writer.write(expression, "1'2/3");
+            writer.write(expression, "答案");
+            writer.write(expression, new String(longAnswer));
+            writer.write(expression, "5/3");
+        }
+        
+        BinaryExerciseFile file = BinaryExerciseFile.open(path);
+        assertEquals("1 + 2/3 = ", file.getExpression(3).toString());
+        assertEquals("1'2/3", file.getAnswer(0));
+        assertEquals("答案", file.getAnswer(1));
+        assertEquals(new String(longAnswer), file.getAnswer(2));
+        assertEquals("1'2/3", file.getAnswer(3));
+        assertEquals(GradeChecker.UNPARSED, file.getAnswerValue(2));
+        
+        AnswerKey key = file.toAnswerKey();
+        assertEquals(GradeChecker.UNPARSED, key.get(1));
+        assertEquals("答案", key.getAnswer(1));
+        assertEquals(FractionMath.of(5, 3), key.get(3));
+    }
+    
+    @Test
+    public void testExportMatchesTextFormat() throws IOException {
+        List<Expression> expressions = new ExpressionGenerator(10, new SplittableRandom(7)).generateExpressions(500);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+        
+        FileHandler text = new FileHandler();
+        text.setFilePaths(tempDir.resolve("Exercises.txt").toString(), tempDir.resolve("Answers.txt").toString(), null);
+        text.writeExercisesAndAnswers(expressions, answers);
+        
+        FileHandler binary = new FileHandler();
+        binary.setFilePaths(tempDir.resolve("Copy.txt").toString(), tempDir.resolve("CopyAnswers.txt").toString(), null);
+        binary.setBinaryFormat(true);
+        binary.writeExercisesAndAnswers(expressions, answers);
+        assertEquals(tempDir.resolve("Copy.bin").toString(), binary.getBinaryFile());
+        assertEquals(500, binary.exportText(binary.getBinaryFile()));
+        
+        assertArrayEquals(Files.readAllBytes(tempDir.resolve("Exercises.txt")), Files.readAllBytes(tempDir.resolve("Copy.txt")));
+        assertArrayEquals(Files.readAllBytes(tempDir.resolve("Answers.txt")), Files.readAllBytes(tempDir.resolve("CopyAnswers.txt")));
+    }
+    
+    @Test
+    public void testWriterRejectsOversizedFile() throws IOException {
+        // 用很小的上限代替2GB：写入超过上限的题目立即失败，而不是留下读取时无法映射的文件
+        List<Expression> expressions = new ExpressionGenerator(20, new SplittableRandom(9)).generateExpressions(1000);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+        String path = tempDir.resolve("Exercises.bin").toString();
+        try (BinaryExerciseFile.Writer writer = new BinaryExerciseFile.Writer(path, 100, 4096)) {
+            IOException exception = assertThrows(IOException.class, () -> {
+                for (int i = 0; i < expressions.size(); i++) {
+                    writer.write(expressions.get(i), answers.get(i));
+                }
+            });
+            assertTrue(exception.getMessage().contains("2GB"));
+            assertTrue(writer.getCount() > 0 && writer.getCount() < 1000);
+        }
+    }
+    
+    @Test
+    public void testRejectsTextFile() throws IOException {
+        Path textFile = tempDir.resolve("Exercises.txt");
+        Files.write(textFile, "1. 3 + 4 = \n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(BinaryExerciseFile.isBinary(textFile.toString()));
+        assertThrows(IOException.class, () -> BinaryExerciseFile.open(textFile.toString()));
+        
+        Path empty = tempDir.resolve("Empty.bin");
+        Files.write(empty, new byte[0]);
+        assertFalse(BinaryExerciseFile.isBinary(empty.toString()));
+        assertEquals("Exercises.bin", BinaryExerciseFile.pathFor("Exercises.txt"));
+    }
+}
@@ -69,4 +69,96 @@ public class CommandLineParserTest {
         Exception exception4 = assertThrows(Exception.class, parser4::parse);
         assertTrue(exception4.getMessage().contains("不能同时使用"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testBatchGradeMode() throws Exception {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-e", "Exercises.txt", "-d", "answers"});
+        parser.parse();
+        assertTrue(parser.isGradeMode());
+        assertTrue(parser.isBatchGradeMode());
+        assertEquals("answers", parser.getAnswerDir());
+        
+        CommandLineParser single = new CommandLineParser(new String[]{"-e", "Exercises.txt", "-a", "Answers.txt"});
+        single.parse();
+        assertFalse(single.isBatchGradeMode());
+        
+        CommandLineParser both = new CommandLineParser(new String[]{"-e", "e.txt", "-a", "a.txt", "-d", "answers"});
+        assertThrows(Exception.class, both::parse);
+    }
+    
+    @Test
+    public void testWriteAnswerKeyOption() throws Exception {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-k"});
+        parser.parse();
+        assertTrue(parser.isWriteAnswerKey());
+        
+        CommandLineParser grade = new CommandLineParser(new String[]{"-e", "e.txt", "-a", "a.txt", "-k"});
+        assertThrows(Exception.class, grade::parse);
+    }
+    
+    @Test
+    public void testSeedOption() throws Exception {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10", "--seed", "-42"});
+        parser.parse();
+        assertTrue(parser.hasSeed());
+        assertEquals(-42L, parser.getSeed());
+        
+        parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10"});
+        parser.parse();
+        assertFalse(parser.hasSeed());
+        
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "--seed", "abc"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "--seed"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-e", "e.txt", "-a", "a.txt", "--seed", "1"})::parse);
+    }
+    
+    @Test
+    public void testFormatOption() throws Exception {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-format", "bin"});
+        parser.parse();
+        assertTrue(parser.isBinaryFormat());
+        
+        parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-format", "txt"});
+        parser.parse();
+        assertFalse(parser.isBinaryFormat());
+        
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-format", "csv"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-format"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-format", "bin", "-k"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-e", "e.txt", "-a", "a.txt", "-format", "bin"})::parse);
+    }
+    
+    @Test
+    public void testConvertMode() throws Exception {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-c", "Exercises.bin"});
+        parser.parse();
+        assertTrue(parser.isConvertMode());
+        assertFalse(parser.isGenerateMode());
+        assertFalse(parser.isGradeMode());
+        assertEquals("Exercises.bin", parser.getConvertFile());
+        
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-c", "Exercises.bin", "-n", "10", "-r", "10"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-c", "Exercises.bin", "-e", "e.txt", "-a", "a.txt"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-c", "Exercises.bin", "-a", "a.txt"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-k", "-c"})::parse);
+    }
+    
+    @Test
+    public void testCompressOption() throws Exception {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-compress", "fast"});
+        parser.parse();
+        assertEquals(Compression.FAST, parser.getCompression());
+        
+        parser = new CommandLineParser(new String[]{"-e", "e.txt.gz", "-a", "a.txt.gz", "-compress", "gzip"});
+        parser.parse();
+        assertEquals(Compression.GZIP, parser.getCompression());
+        
+        parser = new CommandLineParser(new String[]{"-n", "10", "-r", "10"});
+        parser.parse();
+        assertEquals(Compression.NONE, parser.getCompression());
+        
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-compress", "lz4"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-compress"})::parse);
+        assertThrows(Exception.class, new CommandLineParser(new String[]{"-n", "10", "-r", "10", "-format", "bin", "-compress", "gzip"})::parse);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CompiledExpressionsTest {
+
+    @Test
+    public void testBatchEvaluation() {
+        // (3 + 4) × 2, 3 ÷ 4, 1/2 - 1/3
+        Expression.ExpressionNode addNode = new Expression.OperatorNode(
+                Expression.OperatorType.ADD,
+                new Expression.NumberNode(new Fraction(3)),
+                new Expression.NumberNode(new Fraction(4)));
+        Expression expr1 = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.MULTIPLY, addNode, new Expression.NumberNode(new Fraction(2))));
+        Expression expr2 = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.DIVIDE,
+                new Expression.NumberNode(new Fraction(3)),
+                new Expression.NumberNode(new Fraction(4))));
+        Expression expr3 = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.SUBTRACT,
+                new Expression.NumberNode(new Fraction(1, 2)),
+                new Expression.NumberNode(new Fraction(1, 3))));
+        
+        CompiledExpressions compiled = CompiledExpressions.compile(Arrays.asList(expr1, expr2, expr3));
+        assertEquals(3, compiled.size());
+        
+        long[] results = compiled.evaluateAll();
+        assertEquals(FractionMath.valueOf(14), results[0]);
+        assertEquals(FractionMath.of(3, 4), results[1]);
+        assertEquals(FractionMath.of(1, 6), results[2]);
+        assertEquals(FractionMath.of(3, 4), compiled.evaluate(1));
+        
+        assertEquals(Arrays.asList("14", "3/4", "1/6"), compiled.calculateResults());
+    }
+    
+    @Test
+    public void testMatchesTreeEvaluation() {
+        // 编译求值的结果必须与树遍历完全一致
+        ExpressionGenerator generator = new ExpressionGenerator(10);
+        List<Expression> expressions = generator.generateExpressions(200);
+        
+        List<String> compiledResults = CompiledExpressions.compile(expressions).calculateResults();
+        for (int i = 0; i < expressions.size(); i++) {
+            assertEquals(expressions.get(i).calculateResult(), compiledResults.get(i));
+        }
+    }
+    
+    @Test
+    public void testConstraintViolation() {
+        // 减法结果为负数时与树遍历一样抛出异常
+        Expression expr = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.SUBTRACT,
+                new Expression.NumberNode(new Fraction(1)),
+                new Expression.NumberNode(new Fraction(2))));
+        CompiledExpressions compiled = CompiledExpressions.compile(Arrays.asList(expr));
+        
+        assertThrows(ArithmeticException.class, compiled::evaluateAll);
+    }
+}
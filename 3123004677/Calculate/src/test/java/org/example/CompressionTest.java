@@ -0,0 +1,135 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+public class CompressionTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private static byte[] decompress(Path file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = Compression.openInput(file.toString())) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+    
+    @Test
+    public void testBlocksRoundTrip() throws IOException {
+        // 跨越多个压缩块，其中一次写入超过写入器的缓冲区和压缩块
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Path file = tempDir.resolve("Exercises.txt.gz");
+        SplittableRandom random = new SplittableRandom(1);
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(file.toString(), Compression.FAST)) {
+            for (int i = 1; i <= 100000; i++) {
+                String line = i + ". " + random.nextInt(100) + " × " + random.nextInt(100) + " = ";
+                writer.writeNumberedLine(i, line);
+                expected.write((i + ". " + line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] large = new byte[3 * BlockGzipChannel.BLOCK_SIZE + 17];
+            for (int i = 0; i < large.length; i++) {
+                large[i] = (byte) ('a' + i % 26);
+            }
+            writer.writeBytes(large, 0, large.length);
+            expected.write(large);
+            assertEquals(expected.size(), writer.getBytesWritten());
+        }
+        assertTrue(Compression.isCompressed(file.toString()));
+        assertArrayEquals(expected.toByteArray(), decompress(file));
+        assertTrue(Files.size(file) * 4 < expected.size());
+    }
+    
+    @Test
+    public void testEmptyFile() throws IOException {
+        Path file = tempDir.resolve("empty.gz");
+        new Utf8ChannelWriter(file.toString()).close();
+        assertTrue(Compression.isCompressed(file.toString()));
+        assertEquals(0, decompress(file).length);
+        
+        Path plain = tempDir.resolve("empty.txt");
+        new Utf8ChannelWriter(plain.toString()).close();
+        assertFalse(Compression.isCompressed(plain.toString()));
+        assertEquals(0, decompress(plain).length);
+    }
+    
+    @Test
+    public void testCompressorFailure() {
+        // 压缩线程中的非受检异常和Error都要报告给写入方，写入和关闭不能因为块没有归还而永远阻塞
+        Throwable[] failures = {new IllegalStateException("磁盘已拔出"), new StackOverflowError()};
+        for (Throwable failure : failures) {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                BlockGzipChannel channel = new BlockGzipChannel(new FailingChannel(failure), 1);
+                ByteBuffer block = ByteBuffer.allocate(BlockGzipChannel.BLOCK_SIZE);
+                IOException e = assertThrows(IOException.class, () -> {
+                    for (int i = 0; i < 10; i++) {
+                        block.clear();
+                        channel.write(block);
+                    }
+                });
+                assertSame(failure, e.getCause());
+                assertThrows(IOException.class, channel::close);
+                assertFalse(channel.isOpen());
+            });
+        }
+    }
+    
+    /**
+     * 每次写入都抛出给定异常的通道
+     */
+    private static final class FailingChannel implements WritableByteChannel {
+        private final Throwable failure;
+        private boolean open = true;
+        
+        FailingChannel(Throwable failure) {
+            this.failure = failure;
+        }
+        
+        @Override
+        public int write(ByteBuffer source) {
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+        
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+    
+    @Test
+    public void testNamesAndPaths() {
+        assertEquals(Compression.GZIP, Compression.forPath("Exercises.txt.gz"));
+        assertEquals(Compression.NONE, Compression.forPath("Exercises.txt"));
+        assertEquals(Compression.FAST, Compression.forName("fast"));
+        assertEquals("gzip", Compression.GZIP.getName());
+        assertThrows(IllegalArgumentException.class, () -> Compression.forName("zip"));
+        assertEquals("Grade.txt.gz", Compression.FAST.apply("Grade.txt"));
+        assertEquals("Grade.txt.gz", Compression.GZIP.apply("Grade.txt.gz"));
+        assertEquals("Grade.txt", Compression.NONE.apply("Grade.txt"));
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(16);
+        assertTrue(set.add(7L));
+        assertFalse(set.add(7L));
+        assertTrue(set.contains(7L));
+        assertFalse(set.contains(8L));
+        
+        // 0作为空槽位标记，需要单独处理
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(2, set.size());
+    }
+    
+    @Test
+    public void testConcurrentInsertIfAbsent() throws Exception {
+        // 多个线程插入相同的元素，每个元素只能被一个线程成功插入
+        int threads = 8;
+        int values = 20000;
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(values);
+        AtomicInteger inserted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < values; i++) {
+                    if (set.add(Expression.mix(i))) {
+                        inserted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        
+        assertEquals(values, inserted.get());
+        assertEquals(values, set.size());
+    }
+    
+    @Test
+    public void testFull() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(1);
+        assertThrows(IllegalStateException.class, () -> {
+            for (long i = 1; i <= 64; i++) {
+                set.add(i);
+            }
+        });
+        // 超过最大容量的预计数量在创建时明确失败，而不是得到一个很快被填满的表
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLongHashSet(Integer.MAX_VALUE));
+    }
+}
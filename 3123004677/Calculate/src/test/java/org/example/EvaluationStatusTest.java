@@ -0,0 +1,45 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationStatusTest {
+
+    @Test
+    public void testSentinels() {
+        assertEquals(FractionMath.OVERFLOW, EvaluationStatus.OVERFLOW.sentinel());
+        for (EvaluationStatus status : EvaluationStatus.values()) {
+            if (status == EvaluationStatus.OK) {
+                continue;
+            }
+            // 标记值都是分母为0的值，能和合法分数区分，并且能还原出状态
+            assertTrue(FractionMath.isOverflow(status.sentinel()));
+            assertEquals(status, EvaluationStatus.of(status.sentinel()));
+            assertEquals(status.isViolation(), EvaluationStatus.isViolation(status.sentinel()));
+        }
+        assertEquals(EvaluationStatus.OK, EvaluationStatus.of(FractionMath.of(1, 2)));
+        assertFalse(EvaluationStatus.isViolation(FractionMath.valueOf(0)));
+        assertFalse(EvaluationStatus.OVERFLOW.isViolation());
+        assertThrows(IllegalStateException.class, EvaluationStatus.OK::sentinel);
+    }
+    
+    @Test
+    public void testCheckMatchesApply() {
+        long[] values = {FractionMath.valueOf(0), FractionMath.valueOf(1), FractionMath.valueOf(3),
+                FractionMath.of(1, 2), FractionMath.of(2, 3)};
+        for (Expression.OperatorType operator : Expression.OperatorType.values()) {
+            for (long left : values) {
+                for (long right : values) {
+                    long checked = Expression.OperatorNode.check(operator, left, right);
+                    if (EvaluationStatus.isViolation(checked)) {
+                        ArithmeticException e = assertThrows(ArithmeticException.class,
+                                () -> Expression.OperatorNode.apply(operator, left, right));
+                        assertEquals(EvaluationStatus.of(checked).getMessage(), e.getMessage());
+                    } else {
+                        assertEquals(checked, Expression.OperatorNode.apply(operator, left, right));
+                    }
+                }
+            }
+        }
+    }
+}
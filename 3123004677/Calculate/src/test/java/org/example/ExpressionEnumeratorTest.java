@@ -0,0 +1,125 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class ExpressionEnumeratorTest {
+
+    @Test
+    public void testEnumeratesWholeSpace() {
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(2, new SplittableRandom(1));
+        assertNotNull(enumerator);
+        
+        // 抽完整个空间：数量与精确计数一致，互不重复且都满足题目约束
+        LongHashSet fingerprints = new LongHashSet();
+        Expression expr;
+        while ((expr = enumerator.next()) != null) {
+            assertTrue(fingerprints.add(expr.getFingerprint()), "重复的表达式: " + expr);
+            expr.getRoot().evaluate();
+        }
+        assertEquals(enumerator.getExpressionCount(), fingerprints.size());
+        assertEquals(enumerator.getCandidateCount(), fingerprints.size() + enumerator.getRejectedCount());
+        assertEquals(0, enumerator.getRemainingCount());
+        
+        // 随机生成的任何合法表达式都在枚举的空间中
+        ExpressionGenerator generator = new ExpressionGenerator(2);
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(fingerprints.contains(generator.generateSingleExpression().getFingerprint()));
+        }
+    }
+    
+    @Test
+    public void testSampleWithoutReplacement() {
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(5, new SplittableRandom(2));
+        assertNotNull(enumerator);
+        List<Expression> expressions = enumerator.sample(20000);
+        LongHashSet fingerprints = new LongHashSet();
+        for (Expression expr : expressions) {
+            assertTrue(fingerprints.add(expr.getFingerprint()));
+        }
+        // 只有3个运算符的减法和除法会被剪掉，无效候选远少于抽取数量
+        assertTrue(enumerator.getRejectedCount() < expressions.size());
+    }
+    
+    @Test
+    public void testOperatorCountDistribution() {
+        // 与随机生成一样，1、2、3个运算符的题目各占约三分之一
+        for (int range : new int[]{5, 6}) {
+            ExpressionEnumerator enumerator = ExpressionEnumerator.create(range, new SplittableRandom(4));
+            int[] counts = new int[4];
+            for (Expression expr : enumerator.sample(900)) {
+                counts[operatorCount(expr)]++;
+            }
+            for (int operators = 1; operators <= 3; operators++) {
+                assertTrue(counts[operators] > 240 && counts[operators] < 360,
+                        "范围" + range + "内" + operators + "个运算符的题目有" + counts[operators] + "道");
+            }
+        }
+
+        // 范围3内只有90个1个运算符的题目，抽完后在其余两层中各取一半
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(3, new SplittableRandom(5));
+        int[] counts = new int[4];
+        for (Expression expr : enumerator.sample(900)) {
+            counts[operatorCount(expr)]++;
+        }
+        assertEquals(90, counts[1]);
+        assertTrue(counts[2] > 330 && counts[2] < 480, "2个运算符的题目有" + counts[2] + "道");
+
+        // 某一层抽完后继续从其余层抽取，直到整个空间抽完
+        enumerator = ExpressionEnumerator.create(3, new SplittableRandom(5));
+        counts = new int[4];
+        Expression expr;
+        while ((expr = enumerator.next()) != null) {
+            counts[operatorCount(expr)]++;
+        }
+        assertEquals(enumerator.getExpressionCount(), counts[1] + counts[2] + counts[3]);
+        assertTrue(counts[1] < counts[2] && counts[2] < counts[3]);
+    }
+
+    @Test
+    public void testFailsImmediatelyWithExactCount() {
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(1, new SplittableRandom(3));
+        long total = enumerator.getExpressionCount();
+        
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> new ExpressionGenerator(1).generateExpressions(1000));
+        assertTrue(exception.getMessage().contains("只有" + total + "个"));
+        
+        // 恰好抽完整个空间，之后再要一个就立即失败
+        ExpressionGenerator generator = new ExpressionGenerator(1);
+        assertEquals(total, generator.generateExpressions((int) total).size());
+        exception = assertThrows(RuntimeException.class, () -> generator.generateExpressions(1));
+        assertTrue(exception.getMessage().contains("只有0个"));
+    }
+    
+    @Test
+    public void testLargeRangeNotEnumerated() {
+        assertNull(ExpressionEnumerator.create(20, new SplittableRandom()));
+        assertNotNull(ExpressionEnumerator.create(3, new SplittableRandom()));
+    }
+    
+    @Test
+    public void testCombineRules() {
+        long half = FractionMath.of(1, 2);
+        long one = FractionMath.valueOf(1);
+        long two = FractionMath.valueOf(2);
+        assertEquals(FractionMath.OVERFLOW, ExpressionEnumerator.combine(Expression.OperatorType.SUBTRACT, half, one));
+        assertEquals(FractionMath.OVERFLOW, ExpressionEnumerator.combine(Expression.OperatorType.DIVIDE, one, FractionMath.valueOf(0)));
+        assertEquals(FractionMath.OVERFLOW, ExpressionEnumerator.combine(Expression.OperatorType.DIVIDE, two, FractionMath.of(3, 2)));
+        assertEquals(half, ExpressionEnumerator.combine(Expression.OperatorType.DIVIDE, one, two));
+        assertEquals(FractionMath.of(3, 2), ExpressionEnumerator.combine(Expression.OperatorType.ADD, one, half));
+    }
+
+    private static int operatorCount(Expression expr) {
+        int count = 0;
+        for (String token : expr.toString().split(" ")) {
+            if (token.equals("+") || token.equals("-") || token.equals("×") || token.equals("÷")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class ExpressionGeneratorTest {
+
+    @Test
+    public void testConstructedExpressionsAreValid() {
+        // 大范围下3个运算符的中间结果会超出int，覆盖精确计算的构造路径
+        for (int range : new int[]{2, 10, 100, 100000}) {
+            ExpressionGenerator generator = new ExpressionGenerator(range);
+            for (int i = 0; i < 20000; i++) {
+                Expression expr = generator.generateSingleExpression();
+                Fraction value = expr.getRoot().evaluate();
+                assertTrue(value.getBigNumerator().signum() >= 0, expr.toString());
+            }
+        }
+    }
+    
+    @Test
+    public void testOperatorCounts() {
+        ExpressionGenerator generator = new ExpressionGenerator(50);
+        int[] counts = new int[4];
+        for (int i = 0; i < 3000; i++) {
+            counts[countOperators(generator.generateSingleExpression().getRoot())]++;
+        }
+        assertEquals(0, counts[0]);
+        for (int operators = 1; operators <= 3; operators++) {
+            assertTrue(counts[operators] > 800, "运算符个数分布: " + operators + " -> " + counts[operators]);
+        }
+    }
+    
+    @Test
+    public void testGenerateExpressions() {
+        List<Expression> expressions = new ExpressionGenerator(10).generateExpressions(1000);
+        assertEquals(1000, expressions.size());
+        LongHashSet fingerprints = new LongHashSet();
+        for (Expression expr : expressions) {
+            assertTrue(fingerprints.add(expr.getFingerprint()));
+        }
+    }
+    
+    @Test
+    public void testSeededGenerator() {
+        ExpressionGenerator a = new ExpressionGenerator(20, new SplittableRandom(5));
+        ExpressionGenerator b = new ExpressionGenerator(20, new SplittableRandom(5));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.generateSingleExpression().toString(), b.generateSingleExpression().toString());
+        }
+    }
+    
+    private static int countOperators(Expression.ExpressionNode node) {
+        if (node instanceof Expression.OperatorNode) {
+            Expression.OperatorNode operatorNode = (Expression.OperatorNode) node;
+            return 1 + countOperators(operatorNode.getLeft()) + countOperators(operatorNode.getRight());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ExpressionParserTest {
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testNumbers() {
+        ExpressionParser parser = new ExpressionParser();
+        assertEquals("7", parser.parse("7").calculateResult());
+        assertEquals("3/4", parser.parse("3/4").calculateResult());
+        assertEquals("2'1/3", parser.parse("2'1/3").calculateResult());
+        assertEquals("5'1/6", parser.parse("2'1/2 + 2'2/3").calculateResult());
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("99999999999"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("1/"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("2'1"));
+    }
+
+    @Test
+    public void testTrailingEquals() {
+        ExpressionParser parser = new ExpressionParser();
+        assertEquals("7", parser.parse("3 + 4 =").calculateResult());
+        assertEquals("7", parser.parse("  3 + 4 = ").calculateResult());
+        assertEquals("14", parser.parse("(3 + 4) × 2=").calculateResult());
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(" = "));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("3 + 4 = 7"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("(3 + 4"));
+    }
+
+    @Test
+    public void testWindow() {
+        ExpressionParser parser = new ExpressionParser();
+        String line = "12. 1/2 ÷ (1/3 - 1/4) = ";
+        assertEquals("6", parser.parse(line, 4, line.length() - 4).calculateResult());
+
+        // 字节窗口中×和÷按UTF-8双字节识别
+        ByteBuffer bytes = utf8(line);
+        int offset = 4;
+        assertEquals("6", parser.parse(bytes, offset, bytes.limit() - offset).calculateResult());
+        ByteBuffer product = utf8("1/2 × 3 =");
+        assertEquals("1/2 × 3 = ", parser.parse(product, 0, product.limit()).toString());
+    }
+
+    @Test
+    public void testParseIntoCompiled() {
+        ExpressionParser parser = new ExpressionParser();
+        CompiledExpressions compiled = new CompiledExpressions();
+        ByteBuffer first = utf8("(1/2 + 1/3) × 6 = ");
+        parser.parseInto(first, 0, first.limit(), compiled);
+        parser.parseInto("3 - 1'1/2 =", 0, 11, compiled);
+
+        // 解析失败的表达式不会留在批次中
+        ByteBuffer broken = utf8("4 ÷ (2 +");
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parseInto(broken, 0, broken.limit(), compiled));
+        parser.parseInto("4 ÷ 8", 0, 5, compiled);
+
+        assertEquals(3, compiled.size());
+        List<String> results = compiled.calculateResults();
+        assertEquals("5", results.get(0));
+        assertEquals("1'1/2", results.get(1));
+        assertEquals("1/2", results.get(2));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        // 生成的题目经过文本往返后结构和结果都不变
+        ExpressionGenerator generator = new ExpressionGenerator(10);
+        ExpressionParser parser = new ExpressionParser();
+        for (Expression expr : generator.generateExpressions(200)) {
+            String text = expr.toString();
+            Expression parsed = parser.parse(text);
+            assertEquals(expr.toString(), parsed.toString());
+            assertEquals(expr.calculateResult(), parsed.calculateResult());
+
+            ByteBuffer bytes = utf8(text);
+            assertEquals(expr.toString(), parser.parse(bytes, 0, bytes.limit()).toString());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class ExpressionRendererTest {
+    
+    @Test
+    public void testMatchesRecursiveRendering() {
+        ExpressionRenderer renderer = new ExpressionRenderer();
+        Random random = new Random(17);
+        for (int i = 0; i < 20000; i++) {
+            // 随机结构和运算符（包括不满足约束的），覆盖所有加括号的组合
+            Expression expr = new Expression(randomTree(random, 12, random.nextInt(4)));
+            String expected = recursive(expr.getRoot()) + " = ";
+            assertEquals(expected, expr.toString());
+            byte[] bytes = renderer.render(expr);
+            assertEquals(expected, new String(bytes, 0, renderer.getLength(), StandardCharsets.UTF_8));
+        }
+    }
+    
+    @Test
+    public void testGeneratedExpressions() {
+        ExpressionRenderer renderer = new ExpressionRenderer();
+        for (int range : new int[]{10, 100, 1000}) {
+            for (Expression expr : new ExpressionGenerator(range, new SplittableRandom(range)).generateExpressions(2000)) {
+                String expected = recursive(expr.getRoot()) + " = ";
+                StringBuilder sb = new StringBuilder();
+                ExpressionRenderer.appendTo(sb, expr);
+                assertEquals(expected, sb.toString());
+                byte[] bytes = renderer.render(expr);
+                assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), Arrays.copyOf(bytes, renderer.getLength()));
+            }
+        }
+    }
+    
+    @Test
+    public void testNumberTokens() {
+        // 共享节点使用建表时渲染好的文本
+        OperandTable table = OperandTable.forRange(10);
+        assertSame(table.fraction(7, 9).toString(), table.fraction(7, 9).toString());
+        assertEquals("7/9", table.fraction(7, 9).toString());
+        
+        ExpressionRenderer renderer = new ExpressionRenderer();
+        Expression mixed = new Expression(new Expression.OperatorNode(Expression.OperatorType.ADD,
+                new Expression.NumberNode(new Fraction(7, 3)), new Expression.NumberNode(new Fraction(0))));
+        assertEquals("2'1/3 + 0 = ", new String(renderer.render(mixed), 0, renderer.getLength(), StandardCharsets.UTF_8));
+        
+        // 超出int的分数
+        Fraction big = Fraction.fromPacked(FractionMath.valueOf(Integer.MAX_VALUE)).multiply(new Fraction(4));
+        assertEquals(BigInteger.valueOf(Integer.MAX_VALUE).multiply(BigInteger.valueOf(4)), big.getBigNumerator());
+        Expression bigExpr = new Expression(new Expression.OperatorNode(Expression.OperatorType.MULTIPLY,
+                new Expression.NumberNode(big), new Expression.NumberNode(new Fraction(1, 2))));
+        assertEquals("8589934588 × 1/2 = ", bigExpr.toString());
+        assertEquals(bigExpr.toString(), new String(renderer.render(bigExpr), 0, renderer.getLength(), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 原来的递归拼接实现，作为对照
+     */
+    private static String recursive(Expression.ExpressionNode node) {
+        if (!(node instanceof Expression.OperatorNode)) {
+            return node.evaluate().toString();
+        }
+        Expression.OperatorNode op = (Expression.OperatorNode) node;
+        String left = recursive(op.getLeft());
+        String right = recursive(op.getRight());
+        if (op.getLeft() instanceof Expression.OperatorNode && !samePrecedence(op.getOperator(), ((Expression.OperatorNode) op.getLeft()).getOperator())) {
+            left = "(" + left + ")";
+        }
+        if (op.getRight() instanceof Expression.OperatorNode) {
+            Expression.OperatorType child = ((Expression.OperatorNode) op.getRight()).getOperator();
+            boolean wrap = !samePrecedence(op.getOperator(), child)
+                    || op.getOperator() == Expression.OperatorType.SUBTRACT
+                    || op.getOperator() == Expression.OperatorType.MULTIPLY
+                    || op.getOperator() == Expression.OperatorType.DIVIDE;
+            if (wrap) {
+                right = "(" + right + ")";
+            }
+        }
+        return left + " " + op.getOperator().getSymbol() + " " + right;
+    }
+    
+    private static boolean samePrecedence(Expression.OperatorType a, Expression.OperatorType b) {
+        return isAdditive(a) == isAdditive(b);
+    }
+    
+    private static boolean isAdditive(Expression.OperatorType operator) {
+        return operator == Expression.OperatorType.ADD || operator == Expression.OperatorType.SUBTRACT;
+    }
+    
+    private static Expression.ExpressionNode randomTree(Random random, int range, int operatorCount) {
+        if (operatorCount == 0) {
+            if (random.nextBoolean()) {
+                int denominator = random.nextInt(range - 1) + 2;
+                return new Expression.NumberNode(new Fraction(random.nextInt(3 * denominator), denominator));
+            }
+            return new Expression.NumberNode(new Fraction(random.nextInt(range)));
+        }
+        int leftCount = random.nextInt(operatorCount);
+        Expression.OperatorType[] operators = Expression.OperatorType.values();
+        return new Expression.OperatorNode(operators[random.nextInt(operators.length)],
+                randomTree(random, range, leftCount), randomTree(random, range, operatorCount - 1 - leftCount));
+    }
+}
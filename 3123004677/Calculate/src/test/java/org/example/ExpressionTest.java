@@ -74,6 +74,35 @@ public class ExpressionTest {
         assertEquals("(3 + 4) × 2 = ", expr2.toString());
     }
     
+    @Test
+    public void testRightOperandParentheses() {
+        // 同级的右操作数：按左结合重新解析会改变结构的必须加括号，满足结合律的加法不加
+        assertRendered("5 - (3 + 1) = ", new Fraction(5), Expression.OperatorType.SUBTRACT, Expression.OperatorType.ADD, 3, 1);
+        assertRendered("5 - (3 - 1) = ", new Fraction(5), Expression.OperatorType.SUBTRACT, Expression.OperatorType.SUBTRACT, 3, 1);
+        assertRendered("1 ÷ (3 × 4) = ", new Fraction(1), Expression.OperatorType.DIVIDE, Expression.OperatorType.MULTIPLY, 3, 4);
+        assertRendered("1/2 ÷ (3 ÷ 4) = ", new Fraction(1, 2), Expression.OperatorType.DIVIDE, Expression.OperatorType.DIVIDE, 3, 4);
+        assertRendered("5 × (3 ÷ 4) = ", new Fraction(5), Expression.OperatorType.MULTIPLY, Expression.OperatorType.DIVIDE, 3, 4);
+        assertRendered("5 + 3 + 1 = ", new Fraction(5), Expression.OperatorType.ADD, Expression.OperatorType.ADD, 3, 1);
+        assertRendered("5 + 3 - 1 = ", new Fraction(5), Expression.OperatorType.ADD, Expression.OperatorType.SUBTRACT, 3, 1);
+        // 低优先级的右操作数照常加括号
+        assertRendered("5 × (3 + 1) = ", new Fraction(5), Expression.OperatorType.MULTIPLY, Expression.OperatorType.ADD, 3, 1);
+    }
+    
+    /**
+     * left operator (a childOperator b) 的输出，以及输出重新解析后的值不变
+     */
+    private static void assertRendered(String expected, Fraction left, Expression.OperatorType operator,
+                                       Expression.OperatorType childOperator, int a, int b) {
+        Expression expression = new Expression(new Expression.OperatorNode(operator,
+                new Expression.NumberNode(left),
+                new Expression.OperatorNode(childOperator,
+                        new Expression.NumberNode(new Fraction(a)), new Expression.NumberNode(new Fraction(b)))));
+        assertEquals(expected, expression.toString());
+        Expression reparsed = new ExpressionParser().parse(expression.toString());
+        assertEquals(expression.calculateResult(), reparsed.calculateResult());
+        assertEquals(expected, reparsed.toString());
+    }
+    
     @Test
     public void testExpressionGenerator() {
         ExpressionGenerator generator = new ExpressionGenerator(10);
@@ -118,4 +147,97 @@ public class ExpressionTest {
         Expression expr3 = parser.parse("1/2 + 1/3");
         assertEquals("5/6", expr3.calculateResult());
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testLargeRangeEvaluation() {
+        // 1/65521 × 1/65519 × 65519 的中间结果超出int范围，答案必须仍然精确
+        Expression.ExpressionNode product = new Expression.OperatorNode(
+                Expression.OperatorType.MULTIPLY,
+                new Expression.NumberNode(new Fraction(1, 65521)),
+                new Expression.NumberNode(new Fraction(1, 65519)));
+        Expression expr1 = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.MULTIPLY, product, new Expression.NumberNode(new Fraction(65519))));
+        assertEquals("1/65521", expr1.calculateResult());
+        
+        // 溢出后仍然执行减法非负检查
+        Expression expr2 = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.SUBTRACT, product, new Expression.NumberNode(new Fraction(1))));
+        assertThrows(ArithmeticException.class, expr2::calculateResult);
+    }
+    
+    @Test
+    public void testFingerprint() {
+        Expression.ExpressionNode three = new Expression.NumberNode(new Fraction(3));
+        Expression.ExpressionNode four = new Expression.NumberNode(new Fraction(4));
+        Expression.ExpressionNode half = new Expression.NumberNode(new Fraction(1, 2));
+        
+        // 加法和乘法交换左右操作数后指纹相同
+        Expression add1 = new Expression(new Expression.OperatorNode(Expression.OperatorType.ADD, three, four));
+        Expression add2 = new Expression(new Expression.OperatorNode(Expression.OperatorType.ADD, four, three));
+        assertEquals(add1.getFingerprint(), add2.getFingerprint());
+        assertTrue(add1.isEquivalent(add2));
+        
+        Expression mul1 = new Expression(new Expression.OperatorNode(Expression.OperatorType.MULTIPLY,
+                add1.getRoot(), half));
+        Expression mul2 = new Expression(new Expression.OperatorNode(Expression.OperatorType.MULTIPLY,
+                half, add2.getRoot()));
+        assertEquals(mul1.getFingerprint(), mul2.getFingerprint());
+        assertTrue(mul1.isEquivalent(mul2));
+        
+        // 减法和除法交换后是不同的题目
+        Expression sub1 = new Expression(new Expression.OperatorNode(Expression.OperatorType.SUBTRACT, four, three));
+        Expression sub2 = new Expression(new Expression.OperatorNode(Expression.OperatorType.SUBTRACT, three, four));
+        assertNotEquals(sub1.getFingerprint(), sub2.getFingerprint());
+        assertFalse(sub1.isEquivalent(sub2));
+        
+        // 运算符不同的题目指纹不同
+        assertNotEquals(add1.getFingerprint(), mul1.getFingerprint());
+    }
+    
+    @Test
+    public void testFingerprintMatchesCanonicalForm() {
+        // 在冲突校验模式下生成，指纹查重的结果应与规范形式查重一致
+        ExpressionGenerator generator = new ExpressionGenerator(10);
+        generator.setVerifyCollisions(true);
+        List<Expression> expressions = generator.generateExpressions(2000);
+        
+        Set<String> uniqueForms = new HashSet<>();
+        for (Expression expr : expressions) {
+            uniqueForms.add(expr.getCanonicalForm());
+        }
+        assertEquals(expressions.size(), uniqueForms.size());
+        assertEquals(0, generator.getCollisionCount());
+    }
+    
+    @Test
+    public void testValidate() {
+        Expression.ExpressionNode zero = new Expression.NumberNode(new Fraction(0));
+        Expression.ExpressionNode two = new Expression.NumberNode(new Fraction(2));
+        Expression.ExpressionNode three = new Expression.NumberNode(new Fraction(3));
+        
+        assertEquals(EvaluationStatus.OK, new Expression(
+                new Expression.OperatorNode(Expression.OperatorType.DIVIDE, two, three)).validate());
+        assertEquals(EvaluationStatus.NEGATIVE_SUBTRACTION, new Expression(
+                new Expression.OperatorNode(Expression.OperatorType.SUBTRACT, two, three)).validate());
+        assertEquals(EvaluationStatus.DIVIDE_BY_ZERO, new Expression(
+                new Expression.OperatorNode(Expression.OperatorType.DIVIDE, two, zero)).validate());
+        assertEquals(EvaluationStatus.IMPROPER_QUOTIENT, new Expression(
+                new Expression.OperatorNode(Expression.OperatorType.DIVIDE, three, two)).validate());
+        
+        // 子树违反约束时标记一直传播到根节点，不会被外层运算掩盖
+        Expression.ExpressionNode negative = new Expression.OperatorNode(Expression.OperatorType.SUBTRACT, two, three);
+        Expression nested = new Expression(new Expression.OperatorNode(Expression.OperatorType.MULTIPLY, negative, zero));
+        assertEquals(EvaluationStatus.NEGATIVE_SUBTRACTION, nested.validate());
+        assertTrue(EvaluationStatus.isViolation(nested.getRoot().evaluateChecked()));
+        
+        // 快速路径溢出后精确地重新检查
+        Expression.ExpressionNode product = new Expression.OperatorNode(
+                Expression.OperatorType.MULTIPLY,
+                new Expression.NumberNode(new Fraction(1, 65521)),
+                new Expression.NumberNode(new Fraction(1, 65519)));
+        assertEquals(EvaluationStatus.OK, new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.MULTIPLY, product, new Expression.NumberNode(new Fraction(65519)))).validate());
+        assertEquals(EvaluationStatus.NEGATIVE_SUBTRACTION, new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.SUBTRACT, product, new Expression.NumberNode(new Fraction(1)))).validate());
+    }
+}
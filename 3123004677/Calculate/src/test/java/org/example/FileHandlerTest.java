@@ -4,12 +4,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class FileHandlerTest {
 
@@ -91,4 +97,161 @@ public class FileHandlerTest {
         assertEquals("Correct: 3 (1, 3, 5)", lines.get(0));
         assertEquals("Wrong: 2 (2, 4)", lines.get(1));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testWriteExercisesAndAnswers() throws IOException {
+        // 创建带乘除号的测试表达式：(3 + 4) ÷ 1/2
+        Expression.ExpressionNode addNode = new Expression.OperatorNode(
+                Expression.OperatorType.ADD,
+                new Expression.NumberNode(new Fraction(3)),
+                new Expression.NumberNode(new Fraction(4)));
+        Expression expr = new Expression(new Expression.OperatorNode(
+                Expression.OperatorType.DIVIDE, addNode, new Expression.NumberNode(new Fraction(1, 2))));
+        
+        File exercisesFile = tempDir.resolve("Exercises.txt").toFile();
+        File answersFile = tempDir.resolve("Answers.txt").toFile();
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile.getAbsolutePath(), answersFile.getAbsolutePath(), null);
+        
+        // 在同一遍中写入题目和答案
+        fileHandler.writeExercisesAndAnswers(Arrays.asList(expr, expr), Arrays.asList("14", "14"));
+        
+        // 文件以UTF-8编码
+        List<String> exercises = Files.readAllLines(exercisesFile.toPath());
+        List<String> answers = Files.readAllLines(answersFile.toPath());
+        assertEquals(Arrays.asList("1. (3 + 4) ÷ 1/2 = ", "2. (3 + 4) ÷ 1/2 = "), exercises);
+        assertEquals(Arrays.asList("1. 14", "2. 14"), answers);
+    }
+    
+    @Test
+    public void testReadExercisesWithOperatorSigns() throws IOException {
+        // 3 × 4 ÷ 2：写出的UTF-8文件按UTF-8读回，与平台默认编码无关
+        Expression expr = new Expression(new Expression.OperatorNode(Expression.OperatorType.DIVIDE,
+                new Expression.OperatorNode(Expression.OperatorType.MULTIPLY,
+                        new Expression.NumberNode(new Fraction(3)), new Expression.NumberNode(new Fraction(4))),
+                new Expression.NumberNode(new Fraction(2))));
+        String exercisesFile = tempDir.resolve("Exercises.txt").toString();
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile, tempDir.resolve("Answers.txt").toString(), null);
+        fileHandler.writeExercisesAndAnswers(Arrays.asList(expr), Arrays.asList("6"));
+
+        List<String> exercises = fileHandler.readExercises(exercisesFile);
+        assertEquals(Arrays.asList("3 × 4 ÷ 2 ="), exercises);
+        assertEquals(exercises, fileHandler.readExercises(exercisesFile, 0, 1));
+        assertEquals("6", new ExpressionParser().parse(exercises.get(0)).calculateResult());
+    }
+
+    @Test
+    public void testReadRange() throws IOException {
+        String exercisesFile = tempDir.resolve("Exercises.txt").toString();
+        String answersFile = tempDir.resolve("Answers.txt").toString();
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile, answersFile, null);
+        List<Expression> expressions = new ExpressionGenerator(20, new SplittableRandom(11)).generateExpressions(5000);
+        fileHandler.writeExercisesAndAnswers(expressions, CompiledExpressions.compile(expressions).calculateResults());
+        assertTrue(new File(LineIndex.pathFor(exercisesFile)).isFile());
+        assertTrue(new File(LineIndex.pathFor(answersFile)).isFile());
+        
+        List<String> allExercises = new ArrayList<>();
+        for (Expression expression : expressions) {
+            allExercises.add(expression.toString().trim());
+        }
+        List<String> allAnswers = fileHandler.readAnswers(answersFile);
+        assertEquals(5000, fileHandler.getExerciseCount(exercisesFile));
+        assertEquals(allExercises.subList(4000, 4050), fileHandler.readExercises(exercisesFile, 4000, 4050));
+        assertEquals(allAnswers.subList(4000, 4050), fileHandler.readAnswers(answersFile, 4000, 4050));
+        assertEquals(allExercises.subList(4999, 5000), fileHandler.readExercises(exercisesFile, 4999, 5000));
+        assertEquals(allExercises.subList(0, 1), fileHandler.readExercises(exercisesFile, 0, 1));
+        assertTrue(fileHandler.readExercises(exercisesFile, 10, 10).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> fileHandler.readExercises(exercisesFile, 4990, 5001));
+        
+        // 二进制题目文件按块索引读取同一段题目和答案
+        fileHandler.setBinaryFormat(true);
+        fileHandler.writeExercisesAndAnswers(expressions, CompiledExpressions.compile(expressions).calculateResults());
+        String binaryFile = fileHandler.getBinaryFile();
+        assertEquals(5000, fileHandler.getExerciseCount(binaryFile));
+        assertEquals(allExercises.subList(1020, 1030), fileHandler.readExercises(binaryFile, 1020, 1030));
+        assertEquals(allAnswers.subList(1020, 1030), fileHandler.readAnswers(binaryFile, 1020, 1030));
+    }
+    
+    @Test
+    public void testReadRangeWithoutIndex() throws IOException {
+        Path exercises = tempDir.resolve("Exercises.txt");
+        Files.write(exercises, "1. 3 + 4 = \r\n\r\n  \n2. 1/2 × 3 = \n3. 5 - 2 = ".getBytes(StandardCharsets.UTF_8));
+        FileHandler fileHandler = new FileHandler();
+        
+        // 没有索引时扫描文件建立索引（空行不计），之后直接使用
+        assertEquals(Arrays.asList("1/2 × 3 =", "5 - 2 ="), fileHandler.readExercises(exercises.toString(), 1, 3));
+        assertTrue(new File(LineIndex.pathFor(exercises.toString())).isFile());
+        assertEquals(Arrays.asList("3 + 4 =", "1/2 × 3 =", "5 - 2 ="), fileHandler.readExercises(exercises.toString(), 0, 3));
+        
+        // 文件改变后索引失效，重新建立
+        Files.write(exercises, "1. 1 + 1 = \n2. 2 + 2 = \n3. 3 + 3 = \n4. 4 + 4 = \n".getBytes(StandardCharsets.UTF_8));
+        assertNull(LineIndex.readFor(exercises.toString()));
+        assertEquals(4, fileHandler.getExerciseCount(exercises.toString()));
+        assertEquals(Arrays.asList("4 + 4 ="), fileHandler.readExercises(exercises.toString(), 3, 4));
+    }
+    
+    @Test
+    public void testReadRangeWhenIndexCannotBeWritten() throws IOException {
+        // 索引路径被目录占用（与只读目录一样写不出索引），读取改为从头扫描而不是失败
+        Path exercises = tempDir.resolve("Exercises.txt");
+        Files.write(exercises, "1. 3 + 4 = \n\f\n2. 1/2 × 3 = \n3. 5 - 2 = \n".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectory(tempDir.resolve("Exercises.txt.idx"));
+        FileHandler fileHandler = new FileHandler();
+        assertEquals(3, fileHandler.getExerciseCount(exercises.toString()));
+        assertEquals(Arrays.asList("1/2 × 3 =", "5 - 2 ="), fileHandler.readExercises(exercises.toString(), 1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> fileHandler.readExercises(exercises.toString(), 2, 4));
+    }
+    
+    @Test
+    public void testCompressedOutput() throws IOException {
+        String exercisesFile = tempDir.resolve("Exercises.txt").toString();
+        String answersFile = tempDir.resolve("Answers.txt").toString();
+        List<Expression> expressions = new ExpressionGenerator(20, new SplittableRandom(13)).generateExpressions(3000);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+        FileHandler plain = new FileHandler();
+        plain.setFilePaths(exercisesFile, answersFile, null);
+        plain.writeExercisesAndAnswers(expressions, answers);
+        
+        for (Compression compression : new Compression[]{Compression.GZIP, Compression.FAST}) {
+            FileHandler fileHandler = new FileHandler();
+            fileHandler.setFilePaths(exercisesFile, answersFile, null);
+            fileHandler.setCompression(compression);
+            fileHandler.writeExercisesAndAnswers(expressions, answers);
+            assertEquals(exercisesFile + ".gz", fileHandler.getExercisesFile());
+            assertFalse(new File(LineIndex.pathFor(fileHandler.getExercisesFile())).exists());
+            
+            // 解压后与未压缩的文件逐字节相同，并且小得多
+            try (InputStream in = Compression.openInput(fileHandler.getExercisesFile())) {
+                assertArrayEquals(Files.readAllBytes(Paths.get(exercisesFile)), readAll(in));
+            }
+            assertTrue(Files.size(Paths.get(fileHandler.getAnswersFile())) * 2 < Files.size(Paths.get(answersFile)));
+            
+            assertEquals(plain.readAnswers(answersFile), fileHandler.readAnswers(fileHandler.getAnswersFile()));
+            assertEquals(3000, fileHandler.getExerciseCount(fileHandler.getExercisesFile()));
+            assertEquals(plain.readExercises(exercisesFile, 2990, 3000),
+                    fileHandler.readExercises(fileHandler.getExercisesFile(), 2990, 3000));
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> fileHandler.readAnswers(fileHandler.getAnswersFile(), 2990, 3001));
+        }
+        
+        // 不设置压缩方式时按扩展名选择
+        FileHandler byExtension = new FileHandler();
+        String gzipFile = tempDir.resolve("Other.txt.gz").toString();
+        byExtension.setFilePaths(gzipFile, tempDir.resolve("OtherAnswers.txt").toString(), null);
+        byExtension.writeExercisesAndAnswers(expressions, answers);
+        assertTrue(Compression.isCompressed(gzipFile));
+        assertFalse(Compression.isCompressed(tempDir.resolve("OtherAnswers.txt").toString()));
+    }
+    
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FractionMathTest {
+
+    @Test
+    public void testPackAndReduce() {
+        // 测试打包与拆包
+        long f1 = FractionMath.of(2, 4);
+        assertEquals(1, FractionMath.numerator(f1));
+        assertEquals(2, FractionMath.denominator(f1));
+
+        // 测试分母为负数的处理
+        long f2 = FractionMath.of(1, -2);
+        assertEquals(-1, FractionMath.numerator(f2));
+        assertEquals(2, FractionMath.denominator(f2));
+
+        // 测试零
+        long f3 = FractionMath.of(0, 5);
+        assertEquals(FractionMath.valueOf(0), f3);
+
+        assertThrows(ArithmeticException.class, () -> FractionMath.of(1, 0));
+    }
+
+    @Test
+    public void testArithmetic() {
+        long quarter = FractionMath.of(1, 4);
+        long sixth = FractionMath.of(1, 6);
+
+        assertEquals(FractionMath.of(5, 12), FractionMath.add(quarter, sixth));
+        assertEquals(FractionMath.of(1, 12), FractionMath.subtract(quarter, sixth));
+        assertEquals(FractionMath.of(1, 24), FractionMath.multiply(quarter, sixth));
+        assertEquals(FractionMath.of(3, 2), FractionMath.divide(quarter, sixth));
+        assertEquals(FractionMath.valueOf(8), FractionMath.add(FractionMath.valueOf(3), FractionMath.valueOf(5)));
+
+        assertThrows(ArithmeticException.class,
+                () -> FractionMath.divide(quarter, FractionMath.valueOf(0)));
+    }
+
+    @Test
+    public void testCompareAndPredicates() {
+        long half = FractionMath.of(1, 2);
+        long third = FractionMath.of(1, 3);
+
+        assertTrue(FractionMath.compare(half, third) > 0);
+        assertTrue(FractionMath.compare(third, half) < 0);
+        assertEquals(0, FractionMath.compare(half, FractionMath.of(2, 4)));
+
+        assertTrue(FractionMath.isProperFraction(half));
+        assertFalse(FractionMath.isProperFraction(FractionMath.of(5, 2)));
+        assertTrue(FractionMath.isNaturalNumber(FractionMath.valueOf(3)));
+        assertFalse(FractionMath.isNaturalNumber(half));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("5", FractionMath.toString(FractionMath.valueOf(5)));
+        assertEquals("1/2", FractionMath.toString(FractionMath.of(1, 2)));
+        assertEquals("2'1/2", FractionMath.toString(FractionMath.of(5, 2)));
+
+        // 与Fraction外观的结果保持一致
+        assertEquals(new Fraction(7, 3).toString(), FractionMath.toString(FractionMath.of(7, 3)));
+    }
+
+    @Test
+    public void testOverflowDetection() {
+        long max = FractionMath.valueOf(Integer.MAX_VALUE);
+        assertTrue(FractionMath.isOverflow(FractionMath.add(max, FractionMath.valueOf(1))));
+        assertTrue(FractionMath.isOverflow(FractionMath.multiply(FractionMath.of(1, 65521), FractionMath.of(1, 65519))));
+
+        // 溢出标记在后续运算中传播
+        long overflow = FractionMath.OVERFLOW;
+        assertTrue(FractionMath.isOverflow(FractionMath.add(overflow, FractionMath.valueOf(1))));
+        assertTrue(FractionMath.isOverflow(FractionMath.divide(FractionMath.valueOf(1), overflow)));
+
+        // 中间结果超出int但约分后能放回时不算溢出
+        long big = FractionMath.of(65521, 65519);
+        assertEquals(FractionMath.valueOf(1), FractionMath.divide(big, big));
+    }
+}
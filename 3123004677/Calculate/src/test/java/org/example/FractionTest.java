@@ -133,4 +133,27 @@ public class FractionTest {
         Fraction f3 = new Fraction(5, 2);
         assertEquals("2'1/2", f3.toString());
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testOverflowFallback() {
+        // 分母相乘超出int范围时切换为BigInteger精确表示
+        Fraction f1 = new Fraction(1, 65521);
+        Fraction f2 = new Fraction(1, 65519);
+        Fraction product = f1.multiply(f2);
+        assertTrue(product.isBig());
+        assertEquals("1/4292870399", product.toString());
+        
+        // 结果重新回到int范围时恢复快速表示
+        Fraction back = product.multiply(new Fraction(65519));
+        assertFalse(back.isBig());
+        assertEquals(f1, back);
+        
+        // 比较不再发生回绕
+        Fraction large = new Fraction(Integer.MAX_VALUE);
+        Fraction sum = large.add(large);
+        assertTrue(sum.isBig());
+        assertEquals("4294967294", sum.toString());
+        assertTrue(sum.compareTo(large) > 0);
+        assertTrue(large.compareTo(sum) < 0);
+    }
+}
@@ -90,4 +90,40 @@ public class GradeCheckerTest {
         assertEquals("Correct: 3 (1, 2, 3)", lines.get(0));
         assertEquals("Wrong: 2 (4, 5)", lines.get(1));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testParseAnswer() {
+        assertEquals(FractionMath.valueOf(7), GradeChecker.parseAnswer("007"));
+        assertEquals(FractionMath.of(1, 2), GradeChecker.parseAnswer(" 2 / 4 "));
+        assertEquals(FractionMath.of(5, 2), GradeChecker.parseAnswer("2' 1/2"));
+        assertEquals(FractionMath.of(-1, 2), GradeChecker.parseAnswer("-1/2"));
+        assertEquals(FractionMath.valueOf(0), GradeChecker.parseAnswer("0/5"));
+
+        // 格式错误、分母为0或超出范围的答案无法解析
+        assertEquals(GradeChecker.UNPARSED, GradeChecker.parseAnswer(""));
+        assertEquals(GradeChecker.UNPARSED, GradeChecker.parseAnswer("abc"));
+        assertEquals(GradeChecker.UNPARSED, GradeChecker.parseAnswer("1/0"));
+        assertEquals(GradeChecker.UNPARSED, GradeChecker.parseAnswer("2'1"));
+        assertEquals(GradeChecker.UNPARSED, GradeChecker.parseAnswer("1/2/3"));
+        assertEquals(GradeChecker.UNPARSED, GradeChecker.parseAnswer("99999999999"));
+
+        java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("12. 3'2/4".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        assertEquals(FractionMath.of(7, 2), GradeChecker.parseAnswer(bytes, 4, 5));
+    }
+    
+    @Test
+    public void testIsCorrect() {
+        GradeChecker checker = new GradeChecker();
+        assertTrue(checker.isCorrect("2'1/2", "5/2"));
+        assertTrue(checker.isCorrect("1/2", "3/6"));
+        assertFalse(checker.isCorrect("1/2", "1/3"));
+        assertFalse(checker.isCorrect("1/2", "abc"));
+
+        // 都无法解析时按去掉空白后的字符串比较
+        assertTrue(checker.isCorrect("99999999999", " 99999 999999 "));
+        assertTrue(checker.isCorrect("1/0", "1 / 0"));
+
+        assertEquals("2'1/2", checker.normalizeAnswer(" 5 / 2 "));
+        assertEquals("abc", checker.normalizeAnswer(" a b c"));
+    }
+}
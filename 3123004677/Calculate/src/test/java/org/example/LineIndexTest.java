@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class LineIndexTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testOffsetsMatchLineStarts() throws IOException {
+        String exercisesFile = tempDir.resolve("Exercises.txt").toString();
+        String answersFile = tempDir.resolve("Answers.txt").toString();
+        // 超过索引写入器缓冲区能容纳的偏移数，覆盖中途刷新
+        int count = 20000;
+        try (ExerciseWriter writer = new ExerciseWriter(exercisesFile, answersFile, null, true)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(i + " × " + i + " = ", Integer.toString(i * i));
+            }
+        }
+        
+        byte[] text = Files.readAllBytes(tempDir.resolve("Exercises.txt"));
+        try (LineIndex index = LineIndex.readFor(exercisesFile)) {
+            assertNotNull(index);
+            assertEquals(count, index.size());
+            assertEquals(0, index.offset(0));
+            assertEquals(text.length, index.offset(count));
+            for (int i = 1; i < count; i++) {
+                long offset = index.offset(i);
+                assertEquals('\n', text[(int) offset - 1]);
+                int end = (int) index.offset(i + 1);
+                assertEquals((i + 1) + ". " + i + " × " + i + " = " + System.lineSeparator(),
+                        new String(text, (int) offset, end - (int) offset, StandardCharsets.UTF_8));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> index.offset(count + 1));
+        }
+        try (LineIndex index = LineIndex.readFor(answersFile)) {
+            assertEquals(count, index.size());
+            assertEquals(Files.size(tempDir.resolve("Answers.txt")), index.offset(count));
+        }
+    }
+    
+    @Test
+    public void testInvalidIndex() throws IOException {
+        Path exercises = tempDir.resolve("Exercises.txt");
+        Files.write(exercises, "1. 3 + 4 = \n".getBytes(StandardCharsets.UTF_8));
+        assertNull(LineIndex.readFor(exercises.toString()));
+        
+        Files.write(tempDir.resolve("Exercises.txt.idx"), "not an index".getBytes(StandardCharsets.UTF_8));
+        assertNull(LineIndex.readFor(exercises.toString()));
+        
+        try (LineIndex index = LineIndex.build(exercises.toString())) {
+            assertEquals(1, index.size());
+            assertEquals(12, index.offset(1));
+        }
+        assertNotNull(LineIndex.readFor(exercises.toString()));
+    }
+    
+    @Test
+    public void testControlCharactersAreBlank() throws IOException {
+        // 与按行读取时的String.trim()一致：只含换页符、垂直制表符等控制字符的行是空行
+        Path exercises = tempDir.resolve("Exercises.txt");
+        Files.write(exercises, "1. 3 + 4 = \n\f\n\u000b \r\n2. 5 - 2 = \n\u0000\n".getBytes(StandardCharsets.UTF_8));
+        try (LineIndex index = LineIndex.build(exercises.toString())) {
+            assertEquals(2, index.size());
+            assertEquals(18, index.offset(1));
+        }
+        assertEquals(2, new FileHandler().readExercises(exercises.toString()).size());
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(43L));
+        
+        // 0作为空槽位标记，需要单独处理
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        
+        assertEquals(2, set.size());
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(42L));
+    }
+    
+    @Test
+    public void testResizeAgainstHashSet() {
+        // 与HashSet对比，验证扩容后元素不丢失
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextInt(50000) * 0x9e3779b97f4a7c15L;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) {
+            assertTrue(set.contains(value));
+        }
+    }
+    
+    @Test
+    public void testCapacityLimit() {
+        // 预计数量很大时容量被截断而不是溢出成很小的表；到达最大容量后再扩容明确失败
+        LongHashSet set = new LongHashSet(Integer.MAX_VALUE, 16);
+        for (long i = 1; i <= 8; i++) {
+            assertTrue(set.add(i * 0x9e3779b97f4a7c15L));
+        }
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> set.add(9 * 0x9e3779b97f4a7c15L));
+        assertTrue(exception.getMessage().contains("8"));
+        assertEquals(1 << 30, LongHashSet.tableSizeFor(Integer.MAX_VALUE * 2L));
+        assertEquals(16, LongHashSet.tableSizeFor(9));
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MappedTextFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<String> readAll(Path file, int segmentSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (MappedTextFile mapped = MappedTextFile.open(file.toString(), segmentSize)) {
+            mapped.forEachText((index, text) -> {
+                assertEquals(lines.size(), index);
+                lines.add(text.toString());
+            });
+        }
+        return lines;
+    }
+
+    @Test
+    public void testStripNumberPrefix() throws IOException {
+        Path file = tempDir.resolve("Exercises.txt");
+        String content = "1. 3 + 4 = \n\n2. 1/2 × (2 ÷ 3) = \r\n  \r\n3. 2'1/3\r4.\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        List<String> lines = readAll(file, MappedTextFile.DEFAULT_SEGMENT_SIZE);
+        assertEquals(Arrays.asList("3 + 4 =", "1/2 × (2 ÷ 3) =", "2'1/3", "4."), lines);
+    }
+
+    @Test
+    public void testMatchesReadExercises() throws IOException {
+        Path file = tempDir.resolve("Answers.txt");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 500; i++) {
+            sb.append(i).append(". ").append(i % 7).append('\'').append(i % 5 + 1).append("/7");
+            sb.append(System.lineSeparator());
+        }
+        sb.append("没有题号的行");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        // 很小的段迫使许多行跨段，结果必须与不分段时一致
+        List<String> expected = readAll(file, MappedTextFile.DEFAULT_SEGMENT_SIZE);
+        assertEquals(501, expected.size());
+        assertEquals("没有题号的行", expected.get(500));
+        assertEquals(expected, readAll(file, 7));
+        assertEquals(expected, readAll(file, 1));
+        
+        // 压缩文件解压后按同样的规则分段访问
+        Path compressed = tempDir.resolve("Answers.txt.gz");
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(compressed.toString())) {
+            writer.write(sb);
+        }
+        assertTrue(Compression.isCompressed(compressed.toString()));
+        assertEquals(expected, readAll(compressed, MappedTextFile.DEFAULT_SEGMENT_SIZE));
+        assertEquals(expected, readAll(compressed, 7));
+
+        // 纯ASCII部分与原有的逐行读取结果一致
+        FileHandler fileHandler = new FileHandler();
+        assertEquals(fileHandler.readAnswers(file.toString()).subList(0, 500), expected.subList(0, 500));
+    }
+
+    @Test
+    public void testByteSlices() throws IOException {
+        Path file = tempDir.resolve("Exercises.txt");
+        Files.write(file, "1. 5 - 2 = \n2. 7\n".getBytes(StandardCharsets.UTF_8));
+
+        List<String> slices = new ArrayList<>();
+        try (MappedTextFile mapped = MappedTextFile.open(file.toString())) {
+            assertEquals(17, mapped.size());
+            int count = mapped.forEachLine((index, buffer, offset, length) -> {
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = buffer.get(offset + i);
+                }
+                slices.add(new String(bytes, StandardCharsets.UTF_8));
+            });
+            assertEquals(2, count);
+        }
+        assertEquals(Arrays.asList("5 - 2 =", "7"), slices);
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        Path file = tempDir.resolve("empty.txt");
+        Files.write(file, new byte[0]);
+        assertTrue(readAll(file, MappedTextFile.DEFAULT_SEGMENT_SIZE).isEmpty());
+    }
+}
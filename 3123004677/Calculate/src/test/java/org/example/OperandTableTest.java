@@ -0,0 +1,69 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperandTableTest {
+
+    @Test
+    public void testInternedNodes() {
+        OperandTable table = OperandTable.forRange(6);
+        assertSame(table, OperandTable.forRange(6));
+        // 0..5 以及 1/2, 1/3, 2/3, 1/4, 3/4, 1/5..4/5, 1/6, 5/6
+        assertEquals(6 + 11, table.size());
+        
+        for (int value = 0; value < 6; value++) {
+            assertEquals(value, table.natural(value).getId());
+            assertEquals(FractionMath.valueOf(value), table.natural(value).evaluatePacked());
+        }
+        // 约分后相同的分数共用一个节点
+        assertSame(table.fraction(1, 2), table.fraction(2, 4));
+        assertSame(table.fraction(1, 2), table.fraction(3, 6));
+        assertSame(table.fraction(2, 3), table.fraction(4, 6));
+        assertEquals("5/6", table.fraction(5, 6).toString());
+        for (int id = 0; id < table.size(); id++) {
+            assertEquals(id, table.node(id).getId());
+            assertEquals(table.value(id), table.node(id).evaluatePacked());
+        }
+        
+        assertNull(OperandTable.forRange(OperandTable.MAX_RANGE + 1));
+        assertNull(OperandTable.forRange(0));
+        assertEquals(-1, new Expression.NumberNode(new Fraction(1, 2)).getId());
+    }
+    
+    @Test
+    public void testSubtreeCacheMatchesCheck() {
+        OperandTable table = OperandTable.forRange(5);
+        OperandTable.SubtreeCache cache = table.newSubtreeCache();
+        for (int round = 0; round < 2; round++) {
+            for (Expression.OperatorType operator : Expression.OperatorType.values()) {
+                for (int left = 0; left < table.size(); left++) {
+                    for (int right = 0; right < table.size(); right++) {
+                        assertEquals(Expression.OperatorNode.check(operator, table.value(left), table.value(right)),
+                                cache.check(operator, left, right));
+                    }
+                }
+            }
+        }
+        // 第二轮全部命中
+        assertEquals(cache.getMisses(), cache.getHits());
+        
+        assertNull(OperandTable.forRange(OperandTable.MAX_RANGE).newSubtreeCache());
+    }
+    
+    @Test
+    public void testGeneratorWithSubtreeCache() {
+        ExpressionGenerator generator = new ExpressionGenerator(10);
+        generator.setSubtreeCache(true);
+        assertNotNull(generator.getSubtreeCache());
+        for (int i = 0; i < 20000; i++) {
+            assertEquals(EvaluationStatus.OK, generator.generateSingleExpression().validate());
+        }
+        assertTrue(generator.getSubtreeCache().getHits() > 0);
+        
+        // 范围超出共享表时不启用缓存
+        generator = new ExpressionGenerator(1000);
+        generator.setSubtreeCache(true);
+        assertNull(generator.getSubtreeCache());
+    }
+}
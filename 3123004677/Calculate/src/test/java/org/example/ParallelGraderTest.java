@@ -0,0 +1,169 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelGraderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 用原有的逐行方式判定，作为对照
+     */
+    private List<String> sequentialGrade(List<String> correctAnswers, List<String> userAnswers) throws IOException {
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(null, null, tempDir.resolve("ExpectedGrade.txt").toString());
+        new GradeChecker().checkAnswers(correctAnswers, userAnswers, fileHandler);
+        return Files.readAllLines(tempDir.resolve("ExpectedGrade.txt"));
+    }
+
+    private List<String> parallelGrade(Path exercisesFile, Path answersFile, ParallelGrader grader) throws IOException {
+        Path gradeFile = tempDir.resolve("Grade.txt");
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(null, null, gradeFile.toString());
+        grader.gradeFiles(exercisesFile.toString(), answersFile.toString(), fileHandler);
+        return Files.readAllLines(gradeFile);
+    }
+
+    @Test
+    public void testMatchesSequentialGrading() throws IOException {
+        List<Expression> expressions = new ExpressionGenerator(10).generateExpressions(3000);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+
+        Path exercisesFile = tempDir.resolve("Exercises.txt");
+        Path answersFile = tempDir.resolve("Answers.txt");
+        StringBuilder exerciseText = new StringBuilder();
+        StringBuilder answerText = new StringBuilder();
+        List<String> userAnswers = new ArrayList<>();
+        for (int i = 0; i < expressions.size(); i++) {
+            exerciseText.append(i + 1).append(". ").append(expressions.get(i)).append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 500 == 0) {
+                exerciseText.append("\n   \n");
+            }
+            // 每7题错一道，最后100题没有作答
+            if (i < expressions.size() - 100) {
+                String answer = i % 7 == 0 ? "0" : answers.get(i);
+                userAnswers.add(answer);
+                answerText.append(i + 1).append(". ").append(answer).append('\n');
+            }
+        }
+        Files.write(exercisesFile, exerciseText.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(answersFile, answerText.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> expected = sequentialGrade(answers, userAnswers);
+        // 很小的范围迫使文件被切分为许多块
+        assertEquals(expected, parallelGrade(exercisesFile, answersFile, new ParallelGrader(4, 1000)));
+        assertEquals(expected, parallelGrade(exercisesFile, answersFile, new ParallelGrader(1)));
+        assertTrue(expected.get(1).endsWith(", " + expressions.size() + ")"));
+    }
+
+    @Test
+    public void testResultIndices() throws IOException {
+        Path exercisesFile = tempDir.resolve("Exercises.txt");
+        Path answersFile = tempDir.resolve("Answers.txt");
+        Files.write(exercisesFile, "1. 3 + 4 = \n2. 1/2 × 3 = \n3. 5 - 2 = \n".getBytes(StandardCharsets.UTF_8));
+        Files.write(answersFile, "1. 7\n2. 1 1/2\n".getBytes(StandardCharsets.UTF_8));
+
+        ParallelGrader.Result result = new ParallelGrader(2).grade(exercisesFile.toString(), answersFile.toString());
+        assertArrayEquals(new int[]{1}, result.getCorrectIndices());
+        assertArrayEquals(new int[]{2, 3}, result.getWrongIndices());
+    }
+    
+    @Test
+    public void testUsesAnswerKeySidecar() throws IOException {
+        Path exercisesFile = tempDir.resolve("Exercises.txt");
+        Path answersFile = tempDir.resolve("Answers.txt");
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile.toString(), answersFile.toString(), tempDir.resolve("Grade.txt").toString());
+        fileHandler.setWriteAnswerKey(true);
+        List<Expression> expressions = new ExpressionGenerator(10).generateExpressions(50);
+        fileHandler.writeExercisesAndAnswers(expressions, CompiledExpressions.compile(expressions).calculateResults());
+
+        AnswerKey key = AnswerKey.readFor(exercisesFile.toString());
+        assertNotNull(key);
+        assertTrue(key.isMapped());
+        ParallelGrader.Result result = new ParallelGrader(2).grade(exercisesFile.toString(), answersFile.toString());
+        assertEquals(50, result.getCorrectIndices().length);
+
+        // 用哈希一致但内容不同的缓存验证判定时确实没有重新解析题目
+        AnswerKey.Builder fake = new AnswerKey.Builder();
+        for (int i = 0; i < 50; i++) {
+            fake.add("0");
+        }
+        fake.build().write(AnswerKey.sidecarPath(exercisesFile.toString()), AnswerKey.hash(exercisesFile.toString()));
+        result = new ParallelGrader(2).grade(exercisesFile.toString(), answersFile.toString());
+        assertEquals(50, result.getCorrectIndices().length + result.getWrongIndices().length);
+        for (int index : result.getCorrectIndices()) {
+            assertEquals("0", CompiledExpressions.compile(expressions).calculateResults().get(index - 1));
+        }
+
+        // 题目文件改变后缓存失效，重新解析
+        Files.write(exercisesFile, "1. 1 + 1 = \n".getBytes(StandardCharsets.UTF_8));
+        assertNull(AnswerKey.readFor(exercisesFile.toString()));
+        Files.write(answersFile, "1. 2\n".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new int[]{1}, new ParallelGrader(2).grade(exercisesFile.toString(), answersFile.toString()).getCorrectIndices());
+    }
+    
+    @Test
+    public void testGradesBinaryExercises() throws IOException {
+        Path exercisesFile = tempDir.resolve("Exercises.txt");
+        Path answersFile = tempDir.resolve("Answers.txt");
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile.toString(), answersFile.toString(), tempDir.resolve("Grade.txt").toString());
+        fileHandler.setBinaryFormat(true);
+        List<Expression> expressions = new ExpressionGenerator(10).generateExpressions(200);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+        fileHandler.writeExercisesAndAnswers(expressions, answers);
+        assertFalse(Files.exists(exercisesFile));
+        
+        StringBuilder answerText = new StringBuilder();
+        for (int i = 0; i < answers.size(); i++) {
+            answerText.append(i + 1).append(". ").append(i % 4 == 0 ? "0" : answers.get(i)).append('\n');
+        }
+        Files.write(answersFile, answerText.toString().getBytes(StandardCharsets.UTF_8));
+        
+        // 二进制题目文件按魔数识别，答案直接从文件读出
+        ParallelGrader.Result result = new ParallelGrader(2).grade(fileHandler.getBinaryFile(), answersFile.toString());
+        assertEquals(200, result.getCorrectIndices().length + result.getWrongIndices().length);
+        for (int index : result.getWrongIndices()) {
+            assertEquals(1, index % 4);
+        }
+        assertTrue(result.getCorrectIndices().length >= 150);
+    }
+    
+    @Test
+    public void testGradesCompressedFiles() throws IOException {
+        List<Expression> expressions = new ExpressionGenerator(10).generateExpressions(2000);
+        List<String> answers = CompiledExpressions.compile(expressions).calculateResults();
+        FileHandler plain = new FileHandler();
+        plain.setFilePaths(tempDir.resolve("Exercises.txt").toString(), tempDir.resolve("Answers.txt").toString(),
+                tempDir.resolve("Grade.txt").toString());
+        plain.writeExercisesAndAnswers(expressions, answers);
+        
+        FileHandler compressed = new FileHandler();
+        compressed.setFilePaths(tempDir.resolve("Exercises.txt").toString(), tempDir.resolve("Answers.txt").toString(),
+                tempDir.resolve("Grade.txt").toString());
+        compressed.setCompression(Compression.FAST);
+        compressed.writeExercisesAndAnswers(expressions, answers);
+        assertTrue(Compression.isCompressed(compressed.getExercisesFile()));
+        assertTrue(Compression.isCompressed(compressed.getAnswersFile()));
+        
+        // 压缩的题目和答案文件按魔数识别，判定结果与未压缩时相同，评分文件也压缩输出
+        ParallelGrader grader = new ParallelGrader(2);
+        List<String> expected = parallelGrade(tempDir.resolve("Exercises.txt"), tempDir.resolve("Answers.txt"), grader);
+        grader.gradeFiles(compressed.getExercisesFile(), compressed.getAnswersFile(), compressed);
+        assertEquals(tempDir.resolve("Grade.txt.gz").toString(), compressed.getGradeFile());
+        assertTrue(Compression.isCompressed(compressed.getGradeFile()));
+        assertEquals(expected.get(0), compressed.readAnswers(compressed.getGradeFile()).get(0));
+        assertEquals("Correct: 2000 (1, 2, 3", expected.get(0).substring(0, 22));
+    }
+}
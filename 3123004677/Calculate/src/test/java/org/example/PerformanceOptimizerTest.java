@@ -0,0 +1,173 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Set;
+
+public class PerformanceOptimizerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExactCount() {
+        List<Expression> expressions = PerformanceOptimizer.generateExpressionsInParallel(5000, 20, 4);
+        assertEquals(5000, expressions.size());
+        
+        // 各线程生成的题目之间也不能重复
+        Set<String> uniqueForms = new HashSet<>();
+        for (Expression expr : expressions) {
+            uniqueForms.add(expr.getCanonicalForm());
+        }
+        assertEquals(5000, uniqueForms.size());
+    }
+    
+    @Test
+    public void testWorkerStats() {
+        // 并发查重和可复现合并两种方式的统计口径相同
+        for (GenerationResult result : new GenerationResult[]{
+                PerformanceOptimizer.generateWithStats(2000, 10, 4),
+                PerformanceOptimizer.generateWithStats(2000, 10, 4, 5L)}) {
+            assertEquals(0, result.getShortfall());
+            assertFalse(result.getWorkerStats().isEmpty());
+            
+            // 每次尝试要么重复、要么被采用；取够题目时还没有合并的候选（最多在途的几批）不计结果
+            // 无效尝试是构造时按约束调整过的候选，调整后照常查重，范围10内必然出现
+            long accepted = 0;
+            long rejects = 0;
+            for (GenerationResult.WorkerStats stats : result.getWorkerStats()) {
+                long outcomes = stats.getDuplicates() + stats.getAccepted();
+                assertTrue(outcomes <= stats.getAttempts());
+                assertTrue(stats.getRejects() <= stats.getAttempts());
+                accepted += stats.getAccepted();
+                rejects += stats.getRejects();
+            }
+            assertEquals(2000, accepted);
+            assertTrue(rejects > 0);
+            assertTrue(result.getTotalAttempts() <= 2000L * 100);
+        }
+    }
+    
+    @Test
+    public void testShortfallReported() {
+        // 范围为1时只有数字0，不重复的题目非常有限
+        // 这么小的空间直接枚举，缺口就是空间的确切不足，尝试次数只是候选空间的大小
+        ExpressionEnumerator enumerator = ExpressionEnumerator.create(1, new SplittableRandom());
+        GenerationResult result = PerformanceOptimizer.generateWithStats(1000, 1, 4);
+        assertEquals(enumerator.getExpressionCount(), result.getExpressions().size());
+        assertEquals(1000 - result.getExpressions().size(), result.getShortfall());
+        assertEquals(enumerator.getCandidateCount(), result.getTotalAttempts());
+        
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> PerformanceOptimizer.generateExpressionsInParallel(1000, 1, 4));
+        assertTrue(exception.getMessage().contains("无法生成"));
+        assertTrue(exception.getMessage().contains("只有" + enumerator.getExpressionCount() + "个"));
+        
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(tempDir.resolve("Exercises.txt").toString(),
+                tempDir.resolve("Answers.txt").toString(), null);
+        assertThrows(RuntimeException.class, () -> PerformanceOptimizer.generateStreaming(1000, 1, 4, fileHandler));
+        assertFalse(Files.exists(tempDir.resolve("Exercises.txt")));
+    }
+    
+    @Test
+    public void testStreamingGeneration() throws IOException {
+        Path exercisesFile = tempDir.resolve("Exercises.txt");
+        Path answersFile = tempDir.resolve("Answers.txt");
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(exercisesFile.toString(), answersFile.toString(), null);
+        
+        GenerationResult result = PerformanceOptimizer.generateStreaming(3000, 20, 4, fileHandler);
+        assertEquals(0, result.getShortfall());
+        assertEquals(3000, result.getGeneratedCount());
+        assertTrue(result.getExpressions().isEmpty());
+        
+        // 两个文件的行数和题号一一对应，题目不重复
+        List<String> exercises = Files.readAllLines(exercisesFile);
+        List<String> answers = Files.readAllLines(answersFile);
+        assertEquals(3000, exercises.size());
+        assertEquals(3000, answers.size());
+        assertEquals(3000, new HashSet<>(exercises).size());
+        for (int i = 0; i < exercises.size(); i++) {
+            assertTrue(exercises.get(i).startsWith((i + 1) + ". "));
+            assertTrue(exercises.get(i).endsWith(" = "));
+            assertTrue(answers.get(i).startsWith((i + 1) + ". "));
+        }
+    }
+    
+    @Test
+    public void testSeededGenerationIsReproducible() {
+        List<String> first = render(PerformanceOptimizer.generateExpressionsInParallel(3000, 20, 4, 42L));
+        assertEquals(first, render(PerformanceOptimizer.generateExpressionsInParallel(3000, 20, 4, 42L)));
+        assertEquals(3000, new HashSet<>(first).size());
+        assertNotEquals(first, render(PerformanceOptimizer.generateExpressionsInParallel(3000, 20, 4, 43L)));
+        
+        // 少量题目和可枚举的小范围走不同的路径，同样可复现
+        assertEquals(render(PerformanceOptimizer.generateExpressionsInParallel(50, 20, 4, 7L)),
+                render(PerformanceOptimizer.generateExpressionsInParallel(50, 20, 4, 7L)));
+        assertEquals(render(PerformanceOptimizer.generateExpressionsInParallel(2000, 4, 4, 7L)),
+                render(PerformanceOptimizer.generateExpressionsInParallel(2000, 4, 4, 7L)));
+        
+        GenerationResult result = PerformanceOptimizer.generateWithStats(3000, 20, 3, 42L);
+        assertEquals(0, result.getShortfall());
+        assertEquals(3, result.getWorkerStats().size());
+        
+        // 每一批由种子和批次编号确定，合并顺序固定，线程数不影响结果
+        assertEquals(first, render(PerformanceOptimizer.generateExpressionsInParallel(3000, 20, 1, 42L)));
+        assertEquals(first, render(PerformanceOptimizer.generateExpressionsInParallel(3000, 20, 7, 42L)));
+    }
+    
+    @Test
+    public void testSeededStreamingIsByteIdentical() throws IOException {
+        byte[][] exercises = new byte[2][];
+        byte[][] answers = new byte[2][];
+        for (int run = 0; run < 2; run++) {
+            Path exercisesFile = tempDir.resolve("Exercises" + run + ".txt");
+            Path answersFile = tempDir.resolve("Answers" + run + ".txt");
+            FileHandler fileHandler = new FileHandler();
+            fileHandler.setFilePaths(exercisesFile.toString(), answersFile.toString(), null);
+            GenerationResult result = PerformanceOptimizer.generateStreaming(5000, 30, 4, fileHandler, 2024L);
+            assertEquals(5000, result.getGeneratedCount());
+            exercises[run] = Files.readAllBytes(exercisesFile);
+            answers[run] = Files.readAllBytes(answersFile);
+        }
+        assertArrayEquals(exercises[0], exercises[1]);
+        assertArrayEquals(answers[0], answers[1]);
+        assertEquals(5000, new HashSet<>(Files.readAllLines(tempDir.resolve("Exercises0.txt"))).size());
+    }
+    
+    @Test
+    public void testWorkerFailureIsReported() {
+        // 范围为0时生成线程在生成第一个操作数时就出错，合并线程收到结束标记后抛出错误而不是一直等待
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setFilePaths(tempDir.resolve("Exercises.txt").toString(),
+                tempDir.resolve("Answers.txt").toString(), null);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            Exception exception = assertThrows(RuntimeException.class,
+                    () -> PerformanceOptimizer.generateWithStats(1000, 0, 4, 1L));
+            assertTrue(exception.getMessage().contains("生成题目时发生错误"));
+            assertThrows(IOException.class,
+                    () -> PerformanceOptimizer.generateStreaming(200000, 0, 4, fileHandler, 1L));
+            // 不要求可复现时各线程在共享队列上并发生成，出错时同样报告
+            assertThrows(RuntimeException.class, () -> PerformanceOptimizer.generateWithStats(1000, 0, 4));
+            assertThrows(IOException.class, () -> PerformanceOptimizer.generateStreaming(200000, 0, 4, fileHandler));
+        });
+    }
+
+    private static List<String> render(List<Expression> expressions) {
+        List<String> lines = new java.util.ArrayList<>(expressions.size());
+        for (Expression expr : expressions) {
+            lines.add(expr.toString());
+        }
+        return lines;
+    }
+}
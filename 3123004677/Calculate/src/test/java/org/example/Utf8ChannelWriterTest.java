@@ -0,0 +1,57 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class Utf8ChannelWriterTest {
+
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testEncodingMatchesStandardCharset() throws IOException {
+        // 包含ASCII、两字节（×÷）、三字节和四字节字符
+        String text = "1/2 × 3 ÷ 4 = 中文 😀 end";
+        Path file = tempDir.resolve("utf8.txt");
+        
+        // 使用很小的缓冲区，覆盖缓冲区边界和逐字符写入的路径
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(file.toString(), 16)) {
+            writer.write(text);
+            writer.newLine();
+            writer.writeNumberedLine(42, text);
+            writer.writeInt(-7);
+            writer.writeInt(Integer.MIN_VALUE);
+            writer.writeInt(0);
+        }
+        
+        String expected = text + System.lineSeparator() + "42. " + text + System.lineSeparator()
+                + "-7" + Integer.MIN_VALUE + "0";
+        byte[] actual = Files.readAllBytes(file);
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), actual);
+    }
+    
+    @Test
+    public void testLargeWrites() throws IOException {
+        // 超过缓冲区大小的内容需要分多次写出
+        char[] chars = new char[5000];
+        Arrays.fill(chars, '÷');
+        String text = new String(chars);
+        Path file = tempDir.resolve("large.txt");
+        
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(file.toString(), 1024)) {
+            writer.write(text);
+            assertEquals(10000, writer.getBytesWritten());
+            byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+            writer.writeBytes(raw, 0, raw.length);
+        }
+        
+        assertEquals(text + text, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+}